@@ -0,0 +1,120 @@
+package tws.keeper.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tws.keeper.solution.KeeperAI;
+
+/**
+ * Building a maze, encoding it, making its keeper act and replaying the moves
+ * of a whole game. The moves of the game replayed are printed when the trial
+ * starts, replay minus construction over them is the time of a replayed move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MazeBenchmark {
+
+	private static final Keeper IDLE_KEEPER = maze -> Action.DO_NOTHING;
+	private static final String REPLAYED = "%dx%d: %d moves replayed%n";
+
+	@Param({ "41", "101", "401" })
+	public int size;
+
+	@Param({ "1", "2", "3" })
+	public long seed;
+
+	private Maze maze;
+	private Maze game;
+	private long games;
+	private Trajectory moves;
+
+	@Setup
+	public void setUp() {
+		maze = build(IDLE_KEEPER, seed);
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(seed);
+		Maze played = build(keeper, seed);
+		moves = new Trajectory();
+		while (!played.isMazeCompleted()) {
+			moves.add(played.makeKeeperAct());
+		}
+		System.out.printf(REPLAYED, size, size, moves.getMoves());
+	}
+
+	/**
+	 * Every iteration plays from the start of a game, as the cost of a step grows
+	 * with what the keeper has visited
+	 */
+	@Setup(Level.Iteration)
+	public void newGame() {
+		games = 0;
+		game = build(new KeeperAI(), seed);
+	}
+
+	@Benchmark
+	public Maze construction() {
+		return build(IDLE_KEEPER, seed);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return maze.toJson();
+	}
+
+	/**
+	 * A step of a KeeperAI. When the game ends the next one starts, its
+	 * construction is measured too, once every few thousand steps.
+	 */
+	@Benchmark
+	public Action makeKeeperAct() {
+		try {
+			if (!game.isMazeCompleted()) {
+				return game.makeKeeperAct();
+			}
+		} catch (IllegalStateException e) {
+			// The keeper gave up, same as completing
+		}
+		game = build(new KeeperAI(), seed + ++games);
+		return Action.DO_NOTHING;
+	}
+
+	/**
+	 * A whole game played again without its keeper, along with the construction of
+	 * its maze
+	 */
+	@Benchmark
+	public Maze replay() {
+		Maze replayed = build(IDLE_KEEPER, seed);
+		replayed.replay(moves);
+		return replayed;
+	}
+
+	/**
+	 * A fork of a game in progress, the same whatever the size of the maze
+	 */
+	@Benchmark
+	public Maze fork() {
+		return game.fork(IDLE_KEEPER);
+	}
+
+	private Maze build(Keeper keeper, long seed) {
+		return Maze.builder(keeper).height(size).width(size).seed(seed).build();
+	}
+
+}
@@ -0,0 +1,70 @@
+package tws.keeper.model.generator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tws.keeper.model.CellGrid;
+
+/**
+ * Measures how generation time scales with the area of the maze, the time per
+ * cell should stay flat as the side grows
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+	@Param({ "backtracker", "prim", "wilson", "eller" })
+	public String generator;
+
+	@Param({ "100", "400", "1600" })
+	public int side;
+
+	@Param({ "1", "2", "3" })
+	public long seed;
+
+	private MazeGenerator mazeGenerator;
+
+	@Setup
+	public void setUp() {
+		switch (generator) {
+		case "prim":
+			mazeGenerator = new PrimGenerator();
+			break;
+		case "wilson":
+			mazeGenerator = new WilsonGenerator();
+			break;
+		case "eller":
+			mazeGenerator = new EllerGenerator();
+			break;
+		default:
+			mazeGenerator = new RandomizedBacktrackerGenerator();
+		}
+	}
+
+	/**
+	 * Generators carve an empty grid, so its allocation is measured too
+	 */
+	@Benchmark
+	public CellGrid generate() {
+		CellGrid grid = CellGrid.allocate(side, side);
+		mazeGenerator.generate(grid, new SplittableRandom(seed));
+		return grid;
+	}
+
+}
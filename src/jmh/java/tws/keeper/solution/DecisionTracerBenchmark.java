@@ -0,0 +1,78 @@
+package tws.keeper.solution;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+
+/**
+ * A step of a KeeperAI with its decisions traced and without, the untraced
+ * one costs what a step cost before the tracer existed
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionTracerBenchmark {
+
+	private static final int TRACE_CAPACITY = 1024;
+
+	@Param({ "101", "401" })
+	public int size;
+
+	@Param({ "1", "2", "3" })
+	public long seed;
+
+	@Param({ "false", "true" })
+	public boolean traced;
+
+	private Maze game;
+	private long games;
+
+	/**
+	 * Every iteration plays from the start of a game, as the cost of a step grows
+	 * with what the keeper has visited
+	 */
+	@Setup(Level.Iteration)
+	public void newGame() {
+		games = 0;
+		game = build(seed);
+	}
+
+	@Benchmark
+	public Action makeKeeperAct() {
+		try {
+			if (!game.isMazeCompleted()) {
+				return game.makeKeeperAct();
+			}
+		} catch (IllegalStateException e) {
+			// The keeper gave up, same as completing
+		}
+		game = build(seed + ++games);
+		return Action.DO_NOTHING;
+	}
+
+	private Maze build(long mazeSeed) {
+		KeeperAI keeper = new KeeperAI();
+		if (traced) {
+			keeper.setTracer(new DecisionTracer(TRACE_CAPACITY));
+		}
+		return Maze.builder(keeper).height(size).width(size).seed(mazeSeed).build();
+	}
+
+}
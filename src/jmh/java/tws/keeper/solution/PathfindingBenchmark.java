@@ -0,0 +1,96 @@
+package tws.keeper.solution;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+
+/**
+ * The way to the door planned with A* and with Jump Point Search, over what a
+ * keeper knows when it has every key. Corridor mazes only have the openings of
+ * the backtracker generation, open mazes have a wall in four carved into a
+ * path. The node expansions of a search of each planner are printed when the
+ * trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+
+	private static final int MAX_ATTEMPTS = 100;
+	private static final String NO_PLANNING = "No game reached the door in %d attempts";
+	private static final String EXPANSIONS = "%s %dx%d: %d steps, A* %d expansions, JPS %d expansions%n";
+
+	@Param({ "corridors", "open" })
+	public String layout;
+
+	@Param({ "101", "401" })
+	public int size;
+
+	@Param({ "1", "2", "3" })
+	public long seed;
+
+	private Explorer explorer;
+
+	@Setup
+	public void setUp() {
+		long openings = "open".equals(layout) ? (long) size * size / 4 : 0;
+		for (int attempt = 0; explorer == null; attempt++) {
+			if (attempt == MAX_ATTEMPTS) {
+				throw new IllegalStateException(String.format(NO_PLANNING, MAX_ATTEMPTS));
+			}
+			explorer = playUntilPlanned(seed + attempt, openings);
+		}
+
+		StarAlgorithm starAlgorithm = new StarAlgorithm(explorer);
+		JumpPointSearch jumpPointSearch = new JumpPointSearch(explorer);
+		int steps = starAlgorithm.createPath().size();
+		jumpPointSearch.createPath();
+		System.out.printf(EXPANSIONS, layout, size, size, steps, starAlgorithm.getExpansions(),
+				jumpPointSearch.getExpansions());
+	}
+
+	@Benchmark
+	public List<Action> star() {
+		return new StarAlgorithm(explorer).createPath();
+	}
+
+	@Benchmark
+	public List<Action> jumpPoint() {
+		return new JumpPointSearch(explorer).createPath();
+	}
+
+	/**
+	 * What a keeper knows when it is about to plan its way to the door, null if
+	 * the game ended before
+	 */
+	private Explorer playUntilPlanned(long mazeSeed, long openings) {
+		KeeperAI keeper = new KeeperAI(KeeperAI.Mode.FRONTIER);
+		Maze maze = Maze.builder(keeper).height(size).width(size).openings(openings).seed(mazeSeed).build();
+		while (!maze.isMazeCompleted()) {
+			Explorer current = keeper.observableUtils;
+			if (current != null && current.doorPositionIsKnown() && current.allKeysAreFound()) {
+				return current;
+			}
+			maze.makeKeeperAct();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,123 @@
+package tws.keeper.solution;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+
+/**
+ * The parts of a KeeperAI step: exploring, planning the way to the door and
+ * looking around
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolutionBenchmark {
+
+	private static final int MAX_ATTEMPTS = 100;
+	private static final String NO_PLANNING = "No game reached the door in %d attempts";
+
+	@Param({ "41", "101", "401" })
+	public int size;
+
+	@Param({ "1", "2", "3" })
+	public long seed;
+
+	// Exploration only, the action chosen is the next one performed
+	private Maze exploring;
+	private ExploratoryAlgorithm explorer;
+	private Action next;
+	private long games;
+
+	// A keeper that just planned its way to the door
+	private KeeperAI planner;
+
+	@Setup
+	public void setUp() {
+		for (int attempt = 0; planner == null; attempt++) {
+			if (attempt == MAX_ATTEMPTS) {
+				throw new IllegalStateException(String.format(NO_PLANNING, MAX_ATTEMPTS));
+			}
+			planner = playUntilPlanned(seed + attempt);
+		}
+	}
+
+	/**
+	 * Every iteration explores from the start, as the cost of a step grows with
+	 * what the keeper has visited
+	 */
+	@Setup(Level.Iteration)
+	public void newExploration() {
+		games = 0;
+		startExploring(seed);
+	}
+
+	/**
+	 * A step of exploration. When the maze is explored the next one starts, its
+	 * construction is measured too.
+	 */
+	@Benchmark
+	public Action getNextAction() {
+		try {
+			if (!exploring.isMazeCompleted()) {
+				explorer.addVisitedPosition();
+				next = explorer.getNextAction();
+				exploring.makeKeeperAct();
+				return next;
+			}
+		} catch (IllegalStateException e) {
+			// Everything visited
+		}
+		startExploring(seed + ++games);
+		return Action.DO_NOTHING;
+	}
+
+	@Benchmark
+	public List<Action> createPath() {
+		return new StarAlgorithm(planner.observableUtils).createPath();
+	}
+
+	@Benchmark
+	public List<Action> possibleActions() {
+		return MazeUtils.possibleActions(planner.observableUtils.getMaze(), planner.observableUtils.getAvailableActions());
+	}
+
+	private void startExploring(long mazeSeed) {
+		exploring = Maze.builder(maze -> next).height(size).width(size).seed(mazeSeed).build();
+		explorer = new ExploratoryAlgorithm(exploring, planner.observableUtils.getAvailableActions());
+	}
+
+	/**
+	 * A keeper that has planned its way to the door, null if it failed to
+	 */
+	private KeeperAI playUntilPlanned(long mazeSeed) {
+		KeeperAI keeper = new KeeperAI();
+		Maze maze = Maze.builder(keeper).height(size).width(size).seed(mazeSeed).build();
+		try {
+			while (keeper.getStarInvocations() == 0 && !maze.isMazeCompleted()) {
+				maze.makeKeeperAct();
+			}
+		} catch (IllegalStateException e) {
+			return null;
+		}
+		return keeper.getStarInvocations() > 0 ? keeper : null;
+	}
+
+}
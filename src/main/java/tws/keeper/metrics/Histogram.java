@@ -0,0 +1,125 @@
+package tws.keeper.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of non negative values with log linear buckets, in the
+ * spirit of HdrHistogram: every power of two is split in 16 buckets, so a
+ * percentile is known within 1/16 of its value whatever its magnitude, and the
+ * whole range of longs takes 976 counters. Recording is a few arithmetic
+ * operations and atomic increments; reading adds up the buckets and may see a
+ * recording half done, which is fine for monitoring.
+ */
+public final class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Record a value, negative ones count as 0
+	 */
+	public void record(long value) {
+		long recorded = Math.max(0, value);
+		buckets.incrementAndGet(bucketOf(recorded));
+		count.increment();
+		sum.add(recorded);
+		max.accumulate(recorded);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long recorded = count.sum();
+		return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+	}
+
+	/**
+	 * The value below or at which this fraction of the values are, within the
+	 * precision of the buckets. 0 when nothing was recorded.
+	 */
+	public long getPercentile(double fraction) {
+		long total = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			total += buckets.get(b);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			seen += buckets.get(b);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(b), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forget every value recorded
+	 */
+	public void reset() {
+		for (int b = 0; b < BUCKETS; b++) {
+			buckets.set(b, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * Count, mean, max and the usual percentiles as a json object
+	 */
+	public String toJson() {
+		return String.format(Locale.ROOT,
+				"{\"count\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d}",
+				getCount(), getMean(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99),
+				getPercentile(0.999), getMax());
+	}
+
+	/**
+	 * Values below 16 have a bucket each, above the exponent picks a row of 16
+	 * buckets and the 4 bits after the leading one pick the bucket in the row
+	 */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * The highest value that falls in the bucket
+	 */
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
@@ -0,0 +1,69 @@
+package tws.keeper.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What the keepers and their mazes do, measured where it happens. The
+ * recorders are process wide and lock free: striped {@link LongAdder} counters
+ * and {@link Histogram}s, so recording from many sessions at once costs no
+ * contention. Durations are in nanoseconds.
+ */
+public final class Metrics {
+
+	/** Calls to Maze.makeKeeperAct */
+	public static final LongAdder ACTS = new LongAdder();
+
+	/** Duration of Maze.makeKeeperAct, the keeper deciding plus the move, sampled */
+	public static final Histogram ACT_NANOS = new Histogram();
+
+	/** Duration of the generation of a maze */
+	public static final Histogram GENERATION_NANOS = new Histogram();
+
+	/** Duration and size of the json encodings of a maze */
+	public static final Histogram JSON_NANOS = new Histogram();
+	public static final Histogram JSON_BYTES = new Histogram();
+
+	/** Duration, nodes expanded and peak open set size of the A* searches */
+	public static final Histogram PATH_NANOS = new Histogram();
+	public static final Histogram PATH_EXPANSIONS = new Histogram();
+	public static final Histogram PATH_PEAK_OPEN = new Histogram();
+
+	/** Exploration steps into a new position and back along the path */
+	public static final LongAdder FORWARD_STEPS = new LongAdder();
+	public static final LongAdder BACKTRACK_STEPS = new LongAdder();
+
+	private Metrics() {
+	}
+
+	/**
+	 * Every metric as a json object
+	 */
+	public static String toJson() {
+		long forward = FORWARD_STEPS.sum();
+		long backtrack = BACKTRACK_STEPS.sum();
+		double backtrackRatio = forward + backtrack == 0 ? 0 : (double) backtrack / (forward + backtrack);
+		return "{\"act\":{\"count\":" + ACTS.sum() + ",\"nanos\":" + ACT_NANOS.toJson() + "}"
+				+ ",\"generation\":{\"nanos\":" + GENERATION_NANOS.toJson() + "}"
+				+ ",\"json\":{\"nanos\":" + JSON_NANOS.toJson() + ",\"bytes\":" + JSON_BYTES.toJson() + "}"
+				+ ",\"path\":{\"nanos\":" + PATH_NANOS.toJson() + ",\"expansions\":" + PATH_EXPANSIONS.toJson()
+				+ ",\"peakOpen\":" + PATH_PEAK_OPEN.toJson() + "}"
+				+ String.format(Locale.ROOT,
+						",\"exploration\":{\"forward\":%d,\"backtrack\":%d,\"backtrackRatio\":%.4f}}", forward,
+						backtrack, backtrackRatio);
+	}
+
+	/**
+	 * Forget everything recorded
+	 */
+	public static void reset() {
+		for (Histogram histogram : new Histogram[] { ACT_NANOS, GENERATION_NANOS, JSON_NANOS, JSON_BYTES,
+				PATH_NANOS, PATH_EXPANSIONS, PATH_PEAK_OPEN }) {
+			histogram.reset();
+		}
+		ACTS.reset();
+		FORWARD_STEPS.reset();
+		BACKTRACK_STEPS.reset();
+	}
+
+}
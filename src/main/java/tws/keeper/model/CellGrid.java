@@ -0,0 +1,49 @@
+package tws.keeper.model;
+
+/**
+ * Storage of the cells of a maze. Cells are packed in row-major order using 2
+ * bits per cell, which is the ordinal of the {@link Cell}. Since
+ * {@link Cell#WALL} is the first value, a freshly allocated grid is all walls.
+ */
+public interface CellGrid {
+
+	/**
+	 * Boards with more cells than this are allocated off-heap by default
+	 */
+	long OFF_HEAP_THRESHOLD = 1L << 26;
+
+	/**
+	 * Number of rows
+	 */
+	int height();
+
+	/**
+	 * Number of columns
+	 */
+	int width();
+
+	/**
+	 * Value of the cell at this row and column
+	 */
+	Cell get(int vertical, int horizontal);
+
+	/**
+	 * Changes the value of the cell at this row and column
+	 */
+	void set(int vertical, int horizontal, Cell cell);
+
+	/**
+	 * Allocates a grid of walls, on heap or off-heap depending on its size
+	 */
+	static CellGrid allocate(int height, int width) {
+		return allocate(height, width, (long) height * width > OFF_HEAP_THRESHOLD);
+	}
+
+	/**
+	 * Allocates a grid of walls
+	 */
+	static CellGrid allocate(int height, int width, boolean offHeap) {
+		return offHeap ? new DirectCellGrid(height, width) : new PackedCellGrid(height, width);
+	}
+
+}
@@ -0,0 +1,31 @@
+package tws.keeper.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap grid allocated in direct buffers, for boards that do not fit in the
+ * heap
+ */
+class DirectCellGrid extends PagedCellGrid {
+
+	private final LongBuffer[] pages;
+
+	DirectCellGrid(int height, int width) {
+		super(height, width);
+		long words = wordsFor(height, width);
+		pages = new LongBuffer[pagesFor(height, width)];
+		for (int i = 0; i < pages.length; i++) {
+			long pageWords = Math.min(PAGE_WORDS, words - ((long) i << PAGE_SHIFT));
+			pages[i] = ByteBuffer.allocateDirect((int) (pageWords * Long.BYTES)).order(ByteOrder.LITTLE_ENDIAN)
+					.asLongBuffer();
+		}
+	}
+
+	@Override
+	protected LongBuffer page(int pageIndex) {
+		return pages[pageIndex];
+	}
+
+}
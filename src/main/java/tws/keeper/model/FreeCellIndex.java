@@ -0,0 +1,128 @@
+package tws.keeper.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random internal cells of a grid used to place objects without retrying
+ * random coordinates. A single pass over the grid keeps a uniform sample of
+ * the paths and one of the walls (algorithm R), each only as large as the
+ * objects to place and the walls to carve, so the memory used does not depend
+ * on the size of the maze. Drawing a cell swaps it with the last one left in
+ * its sample, so every draw is O(1) and the walls carved end up after the
+ * walls left.
+ */
+class FreeCellIndex {
+
+	private static final String TOO_MANY = "Too many cells to sample: %d";
+	private static final String NO_CELL_LEFT = "There is no %s cell left";
+
+	private final CellGrid grid;
+	private final SplittableRandom random;
+	private final long[] paths;
+	private final long[] walls;
+	private long freePaths;
+	private int pathsLeft;
+	private int wallsLeft; // walls[wallsLeft, wallsLeft + carved) are carved
+	private int carved;
+
+	/**
+	 * An index able to place objects in paths, to carve walls and then to
+	 * choose a {@link #randomPath()}
+	 */
+	FreeCellIndex(CellGrid grid, SplittableRandom random, int objects, long walls) {
+		this.grid = grid;
+		this.random = random;
+		long innerCells = (long) (grid.height() - 2) * (grid.width() - 2);
+		this.paths = new long[sampleSize(objects + 1L, innerCells)];
+		this.walls = new long[sampleSize(walls, innerCells)];
+
+		long pathsSeen = 0;
+		long wallsSeen = 0;
+		for (int vertical = 1; vertical < grid.height() - 1; vertical++) {
+			for (int horizontal = 1; horizontal < grid.width() - 1; horizontal++) {
+				Cell cell = grid.get(vertical, horizontal);
+				long index = (long) vertical * grid.width() + horizontal;
+				if (cell == Cell.PATH) {
+					sample(this.paths, pathsSeen++, index);
+				} else if (cell == Cell.WALL) {
+					sample(this.walls, wallsSeen++, index);
+				}
+			}
+		}
+		freePaths = pathsSeen;
+		pathsLeft = (int) Math.min(pathsSeen, this.paths.length);
+		wallsLeft = (int) Math.min(wallsSeen, this.walls.length);
+	}
+
+	/**
+	 * Turns a random wall into a path
+	 */
+	Position carveRandomWall() {
+		if (wallsLeft == 0) {
+			throw new IllegalStateException(String.format(NO_CELL_LEFT, Cell.WALL));
+		}
+		swap(walls, random.nextInt(wallsLeft), --wallsLeft);
+		carved++;
+		return place(walls[wallsLeft], Cell.PATH);
+	}
+
+	/**
+	 * Places an object in a random path, not one of the carved walls
+	 */
+	Position placeInRandomPath(Cell object) {
+		if (pathsLeft == 0) {
+			throw new IllegalStateException(String.format(NO_CELL_LEFT, Cell.PATH));
+		}
+		swap(paths, random.nextInt(pathsLeft), --pathsLeft);
+		freePaths--;
+		return place(paths[pathsLeft], object);
+	}
+
+	/**
+	 * A random path, the carved walls included, which stays free. The paths left
+	 * in the sample are a uniform sample of the free paths of the maze as
+	 * generated, so every free path is as likely.
+	 */
+	Position randomPath() {
+		if (freePaths + carved == 0) {
+			throw new IllegalStateException(String.format(NO_CELL_LEFT, Cell.PATH));
+		}
+		long choice = random.nextLong(freePaths + carved);
+		if (choice < carved) {
+			return positionOf(walls[wallsLeft + (int) choice]);
+		}
+		return positionOf(paths[random.nextInt(pathsLeft)]);
+	}
+
+	private void sample(long[] reservoir, long seen, long index) {
+		long slot = seen < reservoir.length ? seen : random.nextLong(seen + 1);
+		if (slot < reservoir.length) {
+			reservoir[(int) slot] = index;
+		}
+	}
+
+	private Position place(long index, Cell object) {
+		Position position = positionOf(index);
+		grid.set(position.getVertical(), position.getHorizontal(), object);
+		return position;
+	}
+
+	private static void swap(long[] cells, int a, int b) {
+		long cell = cells[a];
+		cells[a] = cells[b];
+		cells[b] = cell;
+	}
+
+	private static int sampleSize(long wanted, long innerCells) {
+		long size = Math.max(0, Math.min(wanted, innerCells));
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException(String.format(TOO_MANY, wanted));
+		}
+		return (int) size;
+	}
+
+	private Position positionOf(long index) {
+		return new Position((int) (index / grid.width()), (int) (index % grid.width()));
+	}
+
+}
@@ -0,0 +1,51 @@
+package tws.keeper.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Grid whose cells live in a memory-mapped file. Mapping only reserves address
+ * space, the operating system pages rows in when they are first read and can
+ * evict them again, so boards much larger than the heap can be used.
+ */
+class MappedCellGrid extends PagedCellGrid {
+
+	private final MappedByteBuffer[] mappings;
+	private final LongBuffer[] pages;
+
+	/**
+	 * Maps a grid stored in the file from the offset on. With
+	 * {@link MapMode#PRIVATE} changes stay in memory and never reach the file
+	 */
+	MappedCellGrid(FileChannel channel, MapMode mode, long offset, int height, int width) throws IOException {
+		super(height, width);
+		long words = wordsFor(height, width);
+		mappings = new MappedByteBuffer[pagesFor(height, width)];
+		pages = new LongBuffer[mappings.length];
+		for (int i = 0; i < pages.length; i++) {
+			long firstWord = (long) i << PAGE_SHIFT;
+			long pageWords = Math.min(PAGE_WORDS, words - firstWord);
+			mappings[i] = channel.map(mode, offset + firstWord * Long.BYTES, pageWords * Long.BYTES);
+			pages[i] = mappings[i].order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		}
+	}
+
+	@Override
+	protected LongBuffer page(int pageIndex) {
+		return pages[pageIndex];
+	}
+
+	/**
+	 * Writes the changes to the file
+	 */
+	void force() {
+		for (MappedByteBuffer mapping : mappings) {
+			mapping.force();
+		}
+	}
+
+}
@@ -1,69 +1,206 @@
 package tws.keeper.model;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.Stack;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import tws.keeper.metrics.Metrics;
+import tws.keeper.model.generator.MazeGenerator;
+import tws.keeper.model.generator.RandomizedBacktrackerGenerator;
 
 /**
  * Random theMaze generator
  */
 public class Maze implements Observable {
 
-	private Cell[][] theMaze; // The theMaze
+	private static final long POSITION_BYTES = 32; // Object header, two ints and a reference to it
+	private static final long MAZE_BYTES = 256; // The maze, its lists and grid objects
+	private static final int ACT_SAMPLING = 16; // One act in 16 is timed, reading the clock costs a fraction of a step
+	private static final String NOT_GENERATED = "The maze was loaded from a file, it cannot be generated again";
+	private static final String NOT_REPLAYABLE = "Move %d of the trajectory cannot be made from %s";
+
+	private CellGrid theMaze; // The theMaze, never changed once generated
 	private Keeper theKeeper; // The keeper
 	private Position keeperPosition; // The keeperPosition
+	private Position startPosition; // Where the keeper started
 	private Position doorPosition; // The door
 	private List<Position> keysPositions; // The keys
-	private List<Position> keysFoundPositions; // The keys
 	private int numberOfKeys; // Total number of keys to find
+	private long seed; // Seed the maze was generated from
+	private MazeGenerator generator; // What carved the paths, null when loaded from a file
+	private long openings; // Walls turned into paths after the generation
 	private int keysFound = 0; // Keys found
 	private boolean mazeCompleted = false; // Is the lock open
+	private int acts; // Acts requested from the keeper
+	private volatile MazeSnapshot snapshot; // The state after the last step, the grid as generated is shared
+	private final List<MazeListener> listeners = new CopyOnWriteArrayList<>(); // Notified of the changes
 
 	/**
 	 * Default tws.keeper.maze 40x40 7 keys
 	 */
 	public Maze(Keeper keeper) {
-		this(keeper, 40, 40, 7);
+		this(builder(keeper));
 	}
 
 	/**
 	 * Generate a new tws.keeper.maze
 	 */
-	private Maze(Keeper keeper, int height, int width, int keys) {
-		theKeeper = keeper;
-		numberOfKeys = keys;
-		theMaze = new Cell[height][width]; // empty tws.keeper.maze
-		for (Cell[] row : theMaze)
-			Arrays.parallelSetAll(row, (index) -> Cell.WALL); // all cells are walls for starters
-		createRandomPath(); // generate a random tws.keeper.maze
-		doorPosition = switchRandomCell(Cell.PATH, Cell.DOOR); // place the door
+	private Maze(Builder builder) {
+		long start = System.nanoTime();
+		int height = builder.height;
+		int width = builder.width;
+		theKeeper = builder.keeper;
+		numberOfKeys = builder.keys;
+		seed = builder.seed != null ? builder.seed : new SplittableRandom().nextLong();
+		SplittableRandom random = new SplittableRandom(seed); // everything random comes from the seed
+		theMaze = builder.offHeap == null ? CellGrid.allocate(height, width)
+				: CellGrid.allocate(height, width, builder.offHeap); // all cells are walls for starters
+		generator = builder.generator;
+		generator.generate(theMaze, random); // generate a random tws.keeper.maze
+		openings = builder.openings != null ? builder.openings : ((long) width * height) / 100;
+		FreeCellIndex freeCells = new FreeCellIndex(theMaze, random, numberOfKeys + 1, openings);
+		doorPosition = freeCells.placeInRandomPath(Cell.DOOR); // place the door
 		keysPositions = new ArrayList<>();
-		keysFoundPositions = new ArrayList<>();
 		for (int i = 0; i < numberOfKeys; i++)
-			keysPositions.add(switchRandomCell(Cell.PATH, Cell.KEY)); // the keys
-		for (int i = 0; i < (width * height) / 100; i++)
-			switchRandomCell(Cell.WALL, Cell.PATH); // place a few extra empty cells
-		keeperPosition = randomInternalPosition(Cell.PATH); // place the keeper in an empty cell
+			keysPositions.add(freeCells.placeInRandomPath(Cell.KEY)); // the keys
+		for (long i = 0; i < openings; i++)
+			freeCells.carveRandomWall(); // place a few extra empty cells
+		keeperPosition = freeCells.randomPath(); // place the keeper in an empty cell
+		startPosition = keeperPosition;
+		snapshot = MazeSnapshot.initial(theMaze, seed, keeperPosition, doorPosition, keysPositions);
+		Metrics.GENERATION_NANOS.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * A tws.keeper.maze whose cells and objects are already placed
+	 */
+	private Maze(Keeper keeper, CellGrid grid, long seed, Position start, Position door, List<Position> keys) {
+		theKeeper = keeper;
+		theMaze = grid;
+		this.seed = seed;
+		keeperPosition = start;
+		startPosition = start;
+		doorPosition = door;
+		keysPositions = new ArrayList<>(keys);
+		numberOfKeys = keys.size();
+		snapshot = MazeSnapshot.initial(theMaze, seed, keeperPosition, doorPosition, keysPositions);
+	}
+
+	/**
+	 * A copy of the state of another tws.keeper.maze, taken from one snapshot so
+	 * it is consistent even while the other is played
+	 */
+	private Maze(Maze parent, MazeSnapshot state, Keeper keeper) {
+		theKeeper = keeper;
+		theMaze = parent.theMaze;
+		seed = parent.seed;
+		generator = parent.generator;
+		openings = parent.openings;
+		startPosition = parent.startPosition;
+		doorPosition = parent.doorPosition;
+		keysPositions = state.getKeysPositions();
+		numberOfKeys = keysPositions.size();
+		keeperPosition = state.getKeeperPosition();
+		keysFound = state.getKeysFoundPositions().size();
+		mazeCompleted = state.isMazeCompleted();
+		snapshot = state;
+	}
+
+	/**
+	 * Loads a tws.keeper.maze stored in a {@link MazeFile}. The cells are
+	 * memory-mapped instead of read, so loading takes the same time whatever the
+	 * size of the maze and rows are paged in when the keeper gets to them. Playing
+	 * never changes the cells, so they are mapped read only.
+	 */
+	public static Maze load(Path file, Keeper keeper) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MazeFile.Header header = MazeFile.readHeader(channel, file);
+			CellGrid grid = new MappedCellGrid(channel, MapMode.READ_ONLY, MazeFile.bodyOffset(header.keys.size()),
+					header.height, header.width);
+			return new Maze(keeper, grid, header.seed, header.keeper, header.door, header.keys);
+		}
+	}
+
+	/**
+	 * Saves this tws.keeper.maze as it was generated, with every key in place and
+	 * the keeper at its starting position, so it can be loaded again
+	 */
+	public void save(Path file) throws IOException {
+		MazeFile.write(file, new MazeFile.Header(height(), width(), seed, startPosition, doorPosition, keysPositions),
+				theMaze);
+	}
+
+	/**
+	 * A builder of this same tws.keeper.maze, as it was generated, for another
+	 * keeper
+	 *
+	 * @throws IllegalStateException if the maze was loaded from a file
+	 */
+	public Builder rebuild(Keeper keeper) {
+		if (generator == null) {
+			throw new IllegalStateException(NOT_GENERATED);
+		}
+		return builder(keeper).height(height()).width(width()).keys(numberOfKeys).generator(generator)
+				.openings(openings).seed(seed);
+	}
+
+	/**
+	 * A tws.keeper.maze in the same state as this one, played by another keeper
+	 * from now on. The grid is shared, never changed once generated, and so is
+	 * the last snapshot, so forking costs a few objects whatever the size of the
+	 * maze; the keys found are copied, O(keys), when the fork picks up the next
+	 * one. Moves on the fork do not change this maze and its listeners do not
+	 * hear of them. Safe to call from any thread while this maze is played.
+	 */
+	public Maze fork(Keeper keeper) {
+		return new Maze(this, snapshot, keeper);
 	}
 
 	/**
 	 * The width of the theMaze
 	 */
-	private int width() {
-		return theMaze[0].length;
+	int width() {
+		return theMaze.width();
 	}
 
 	/**
 	 * The height of the theMaze
 	 */
-	private int height() {
-		return theMaze.length;
+	int height() {
+		return theMaze.height();
+	}
+
+	/**
+	 * What carved the paths, null when loaded from a file
+	 */
+	MazeGenerator getGenerator() {
+		return generator;
+	}
+
+	long getOpenings() {
+		return openings;
+	}
+
+	/**
+	 * Whether the keeper is where it started with no key found, as if it had not
+	 * moved
+	 */
+	boolean isAtStart() {
+		return keeperPosition.equals(startPosition) && keysFound == 0;
+	}
+
+	/**
+	 * The keeper playing the maze
+	 */
+	public Keeper getKeeper() {
+		return theKeeper;
 	}
 
 	/**
@@ -87,11 +224,28 @@ public class Maze implements Observable {
 		return keysPositions;
 	}
 
+	/**
+	 * The seed this maze was generated from, the same seed and settings generate
+	 * the same maze
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Approximate bytes of memory held by this maze: the packed cells, on or off
+	 * the heap, and the positions of the objects
+	 */
+	public long getFootprintBytes() {
+		long cells = ((PackedWords) theMaze).wordCount() * Long.BYTES;
+		return cells + (keysPositions.size() + keysFound + 3) * POSITION_BYTES + MAZE_BYTES;
+	}
+
 	/**
 	 * The keys found position
 	 */
 	public List<Position> getKeysFoundPositions() {
-		return keysFoundPositions;
+		return snapshot.getKeysFoundPositions();
 	}
 
 	/**
@@ -99,7 +253,7 @@ public class Maze implements Observable {
 	 */
 	@Override
 	public Cell lookUp() {
-		return look(cellUp);
+		return look(-1, 0);
 	}
 
 	/**
@@ -107,7 +261,7 @@ public class Maze implements Observable {
 	 */
 	@Override
 	public Cell lookDown() {
-		return look(cellDown);
+		return look(1, 0);
 	}
 
 	/**
@@ -115,7 +269,7 @@ public class Maze implements Observable {
 	 */
 	@Override
 	public Cell lookLeft() {
-		return look(cellLeft);
+		return look(0, -1);
 	}
 
 	/**
@@ -123,7 +277,19 @@ public class Maze implements Observable {
 	 */
 	@Override
 	public Cell lookRight() {
-		return look(cellRight);
+		return look(0, 1);
+	}
+
+	/**
+	 * Contents of the four cells around, read straight from the grid
+	 */
+	@Override
+	public int lookAround() {
+		MazeSnapshot current = snapshot;
+		int vertical = keeperPosition.getVertical();
+		int horizontal = keeperPosition.getHorizontal();
+		return Surroundings.of(current.getCell(vertical - 1, horizontal), current.getCell(vertical + 1, horizontal),
+				current.getCell(vertical, horizontal - 1), current.getCell(vertical, horizontal + 1));
 	}
 
 	/**
@@ -151,172 +317,246 @@ public class Maze implements Observable {
 	}
 
 	/**
-	 * Request an action from the keeper
+	 * Request an action from the keeper, returns it if the keeper moved or DO_NOTHING otherwise
 	 */
-	public void makeKeeperAct() {
-		doAction(theKeeper.act(this));
+	public Action makeKeeperAct() {
+		Metrics.ACTS.increment();
+		if (++acts % ACT_SAMPLING != 0) {
+			return doAction(theKeeper.act(this));
+		}
+		long start = System.nanoTime();
+		Action action = doAction(theKeeper.act(this));
+		Metrics.ACT_NANOS.record(System.nanoTime() - start);
+		return action;
 	}
 
 	/**
-	 * Perform the action if possible
+	 * Make the moves of the trajectory without asking the keeper, as fast as the
+	 * grid can be read. The listeners are notified as usual.
+	 *
+	 * @throws IllegalStateException if a move cannot be made, the trajectory was
+	 *                               recorded on another maze
 	 */
-	private void doAction(Action action) {
-		if (!mazeCompleted) {
-			switch (action) {
-			case GO_UP:
-				walk(cellUp);
-				break;
-			case GO_DOWN:
-				walk(cellDown);
-				break;
-			case GO_LEFT:
-				walk(cellLeft);
-				break;
-			case GO_RIGHT:
-				walk(cellRight);
-				break;
+	public void replay(Trajectory trajectory) {
+		for (int i = 0; i < trajectory.getMoves(); i++) {
+			Action move = trajectory.get(i);
+			if (doAction(move) != move) {
+				throw new IllegalStateException(String.format(NOT_REPLAYABLE, i, keeperPosition));
 			}
 		}
 	}
 
 	/**
-	 * Generate a random path in the theMaze starting in this position
+	 * Perform the action without asking the keeper nor counting it in the
+	 * {@link Metrics}, as the lookahead of a keeper does on a fork. Returns it if
+	 * the keeper moved or DO_NOTHING otherwise.
 	 */
-	private void createRandomPath() {
-		Stack<Position> pendingPaths = new Stack<>();
-		pendingPaths.push(randomInternalPosition(Cell.WALL));
-		do {
-			Position pos = pendingPaths.pop();
-			if (canContinue(pos)) {
-				emptyCell(pos);
-				pendingPaths.addAll(getAdjacentWalls(pos));
-				Collections.shuffle(pendingPaths);
-			}
-		} while (!pendingPaths.isEmpty());
+	public Action move(Action action) {
+		return doAction(action);
 	}
 
 	/**
-	 * Get possible exits
+	 * Notify the listener of every change made by the keeper
 	 */
-	private boolean canContinue(Position position) {
-		return isWithinLimits(position) && isWall(position) && getAdjacentWalls(position).size() > 2;
+	public void addListener(MazeListener listener) {
+		listeners.add(listener);
 	}
 
 	/**
-	 * Returns value of cell at this position
+	 * Stop notifying the listener
 	 */
-	private Cell cellAt(Position position) {
-		return theMaze[position.getVertical()][position.getHorizontal()];
+	public void removeListener(MazeListener listener) {
+		listeners.remove(listener);
 	}
 
 	/**
-	 * Empties this cell
+	 * Perform the action if possible, returns it or DO_NOTHING when the keeper did not move
 	 */
-	private void emptyCell(Position position) {
-		setCell(position, Cell.PATH);
+	private Action doAction(Action action) {
+		boolean moved = false;
+		if (!mazeCompleted) {
+			switch (action) {
+			case GO_UP:
+				moved = walk(-1, 0);
+				break;
+			case GO_DOWN:
+				moved = walk(1, 0);
+				break;
+			case GO_LEFT:
+				moved = walk(0, -1);
+				break;
+			case GO_RIGHT:
+				moved = walk(0, 1);
+				break;
+			}
+		}
+		return moved ? action : Action.DO_NOTHING;
 	}
 
 	/**
 	 * Returns value of cell at this position
 	 */
-	private void setCell(Position position, Cell cell) {
-		theMaze[position.getVertical()][position.getHorizontal()] = cell;
+	private Cell cellAt(Position position) {
+		return snapshot.getCell(position.getVertical(), position.getHorizontal());
 	}
 
 	/**
-	 * Is this a wall
+	 * Look in a direction
 	 */
-	private boolean isWall(Position position) {
-		return cellAt(position).equals(Cell.WALL);
+	private Cell look(int vertical, int horizontal) {
+		return snapshot.getCell(keeperPosition.getVertical() + vertical, keeperPosition.getHorizontal() + horizontal);
 	}
 
 	/**
-	 * Is this a valid position
+	 * Move the keeperPosition, false when there is a wall in the way. The new
+	 * state is published before the listeners hear of it.
 	 */
-	private boolean isWithinLimits(Position position) {
-		return (position.getVertical() > 0) && (position.getVertical() < height() - 1) && (position.getHorizontal() > 0)
-				&& (position.getHorizontal() < width() - 1);
+	private boolean walk(int vertical, int horizontal) {
+		if (look(vertical, horizontal).equals(Cell.WALL)) {
+			return false;
+		}
+		keeperPosition = new Position(keeperPosition.getVertical() + vertical,
+				keeperPosition.getHorizontal() + horizontal);
+		Cell cell = cellAt(keeperPosition);
+		boolean keyFound = cell.equals(Cell.KEY);
+		if (keyFound) {
+			keysFound++;
+		}
+		mazeCompleted = cell.equals(Cell.DOOR) && (keysFound == getTotalNumberOfKeys());
+		snapshot = snapshot.moved(keeperPosition, keyFound, mazeCompleted);
+		listeners.forEach(listener -> listener.keeperMoved(keeperPosition));
+		if (keyFound) {
+			listeners.forEach(listener -> listener.keyFound(keeperPosition));
+		}
+		if (mazeCompleted) {
+			listeners.forEach(MazeListener::mazeCompleted);
+		}
+		return true;
 	}
 
 	/**
-	 * Return an random internal cell with specified value
+	 * The state of this tws.keeper.maze after the last step, safe to read from
+	 * any thread while the keeper plays
 	 */
-	private Position randomInternalPosition(Cell cellvalue) {
-		Position randomPosition;
-		do
-			randomPosition = new Position(1 + new Random().nextInt(height() - 2),
-					1 + new Random().nextInt(width() - 2));
-		while (!cellAt(randomPosition).equals(cellvalue));
-		return randomPosition;
+	public MazeSnapshot snapshot() {
+		return snapshot;
 	}
 
 	/**
-	 * Randomly place objects in the theMaze
+	 * Return a json representation of this tws.keeper.maze
 	 */
-	private Position switchRandomCell(Cell from, Cell to) {
-		Position randomPosition = randomInternalPosition(from);
-		setCell(randomPosition, to);
-		return randomPosition;
+	public String toJson() {
+		return snapshot.toJson();
 	}
 
 	/**
-	 * Adjacent cell functions
+	 * Stream the json representation of this tws.keeper.maze
 	 */
-	private static UnaryOperator<Position> cellUp = position -> new Position(position.getVertical() - 1,
-			position.getHorizontal());
-	private static UnaryOperator<Position> cellDown = position -> new Position(position.getVertical() + 1,
-			position.getHorizontal());
-	private static UnaryOperator<Position> cellLeft = position -> new Position(position.getVertical(),
-			position.getHorizontal() - 1);
-	private static UnaryOperator<Position> cellRight = position -> new Position(position.getVertical(),
-			position.getHorizontal() + 1);
+	public void writeJson(OutputStream out) throws IOException {
+		snapshot.writeJson(out);
+	}
 
 	/**
-	 * Adjacent walls
+	 * Stream the cells of this tws.keeper.maze as run-length encoded rows
 	 */
-	private List<Position> getAdjacentWalls(Position position) {
-		return Stream.of(cellRight, cellDown, cellLeft, cellUp).map((cell) -> cell.apply(position)).filter(this::isWall)
-				.collect(Collectors.toList());
+	public void writeRle(OutputStream out) throws IOException {
+		snapshot.writeRle(out);
 	}
 
 	/**
-	 * Look in a direction
+	 * Stream the cells of this tws.keeper.maze packed 2 bits per cell
 	 */
-	private Cell look(UnaryOperator<Position> where) {
-		return cellAt(where.apply(getKeeperPosition()));
+	public void writePacked(OutputStream out) throws IOException {
+		snapshot.writePacked(out);
 	}
 
 	/**
-	 * Move the keeperPosition
+	 * Start building a tws.keeper.maze, by default 40x40 7 keys
 	 */
-	private void walk(UnaryOperator<Position> where) {
-		if (!look(where).equals(Cell.WALL)) {
-			keeperPosition = where.apply(keeperPosition);
-			if (cellAt(keeperPosition).equals(Cell.KEY)) {
-				keysFoundPositions.add(keeperPosition);
-				setCell(keeperPosition, Cell.PATH);
-				keysFound++;
-			}
-			if (cellAt(keeperPosition).equals(Cell.DOOR) && (keysFound == getTotalNumberOfKeys()))
-				mazeCompleted = true;
-		}
+	public static Builder builder(Keeper keeper) {
+		return new Builder(keeper);
 	}
 
 	/**
-	 * Return a json representation of this tws.keeper.maze
+	 * Builder selecting the size, keys and generator of a new tws.keeper.maze
 	 */
-	public String toJson() {
-		return "{\n" + "\t\"height\":" + height() + ",\n" + "\t\"width\":" + width() + ",\n" + "\t\"cells\": [\n"
-				+ rowsToJson(theMaze) + "\n\t]\n" + "}" + "\n";
-	}
+	public static class Builder {
+
+		private static final String INVALID_SIZE = "A maze needs at least 3x3 cells: %dx%d";
+		private static final String INVALID_KEYS = "Invalid number of keys: %d";
+		private static final String INVALID_OPENINGS = "Invalid number of openings: %d";
+
+		private final Keeper keeper;
+		private int height = 40;
+		private int width = 40;
+		private int keys = 7;
+		private MazeGenerator generator = new RandomizedBacktrackerGenerator();
+		private Boolean offHeap;
+		private Long seed;
+		private Long openings;
+
+		private Builder(Keeper keeper) {
+			this.keeper = keeper;
+		}
 
-	private String rowsToJson(Cell[][] rows) {
-		return Arrays.stream(rows).map(row -> rowToJson(row)).collect(Collectors.joining(",\n"));
-	}
+		public Builder height(int height) {
+			this.height = height;
+			return this;
+		}
+
+		public Builder width(int width) {
+			this.width = width;
+			return this;
+		}
+
+		public Builder keys(int keys) {
+			this.keys = keys;
+			return this;
+		}
+
+		public Builder generator(MazeGenerator generator) {
+			this.generator = generator;
+			return this;
+		}
+
+		/**
+		 * Seed of the generation, by default a random one
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Force the grid on or off the heap, by default it depends on its size
+		 */
+		public Builder offHeap(boolean offHeap) {
+			this.offHeap = offHeap;
+			return this;
+		}
+
+		/**
+		 * Walls turned into paths after the generation, which opens loops and wide
+		 * areas. By default one per hundred cells.
+		 */
+		public Builder openings(long openings) {
+			this.openings = openings;
+			return this;
+		}
+
+		public Maze build() {
+			if (height < 3 || width < 3) {
+				throw new IllegalArgumentException(String.format(INVALID_SIZE, height, width));
+			}
+			if (keys < 0) {
+				throw new IllegalArgumentException(String.format(INVALID_KEYS, keys));
+			}
+			if (openings != null && openings < 0) {
+				throw new IllegalArgumentException(String.format(INVALID_OPENINGS, openings));
+			}
+			return new Maze(this);
+		}
 
-	private String rowToJson(Cell[] row) {
-		return "\t\t[" + Arrays.stream(row).map(cell -> "\"" + cell.toString() + "\"").collect(Collectors.joining(","))
-				+ "]";
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package tws.keeper.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming encodings of the cells of a maze. Everything is written through a
+ * small reusable buffer, so the memory used does not depend on the size of the
+ * maze.
+ */
+final class MazeEncoder {
+
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private static final byte[][] JSON_CELLS = new byte[Cell.values().length][];
+	private static final byte[] RLE_CELLS = new byte[Cell.values().length];
+
+	static {
+		for (Cell cell : Cell.values()) {
+			JSON_CELLS[cell.ordinal()] = ascii("\"" + cell + "\"");
+			RLE_CELLS[cell.ordinal()] = (byte) cell.toString().charAt(0);
+		}
+	}
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[BUFFER_BYTES];
+	private int count;
+	private long written;
+
+	private MazeEncoder(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * The json document also returned by {@link Maze#toJson()}, returns the bytes
+	 * written
+	 */
+	static long writeJson(CellGrid grid, OutputStream out) throws IOException {
+		MazeEncoder encoder = new MazeEncoder(out);
+		encoder.write("{\n\t\"height\":" + grid.height() + ",\n\t\"width\":" + grid.width() + ",\n\t\"cells\": [\n");
+		for (int vertical = 0; vertical < grid.height(); vertical++) {
+			encoder.write(vertical == 0 ? "\t\t[" : ",\n\t\t[");
+			for (int horizontal = 0; horizontal < grid.width(); horizontal++) {
+				if (horizontal > 0) {
+					encoder.write((byte) ',');
+				}
+				encoder.write(JSON_CELLS[grid.get(vertical, horizontal).ordinal()]);
+			}
+			encoder.write((byte) ']');
+		}
+		encoder.write("\n\t]\n}\n");
+		encoder.flush();
+		return encoder.written;
+	}
+
+	/**
+	 * Text with the height and width in the first line followed by a line per row.
+	 * Every row is a sequence of runs, a count followed by the first letter of the
+	 * cell: w(all), p(ath), k(ey), d(oor). For instance "3w1p1k5w".
+	 */
+	static void writeRle(CellGrid grid, OutputStream out) throws IOException {
+		MazeEncoder encoder = new MazeEncoder(out);
+		encoder.write(grid.height() + " " + grid.width() + "\n");
+		for (int vertical = 0; vertical < grid.height(); vertical++) {
+			Cell run = grid.get(vertical, 0);
+			int length = 0;
+			for (int horizontal = 0; horizontal < grid.width(); horizontal++) {
+				Cell cell = grid.get(vertical, horizontal);
+				if (cell != run) {
+					encoder.writeRun(length, run);
+					run = cell;
+					length = 0;
+				}
+				length++;
+			}
+			encoder.writeRun(length, run);
+			encoder.write((byte) '\n');
+		}
+		encoder.flush();
+	}
+
+	/**
+	 * Binary with the height and width as little-endian ints followed by the cells
+	 * packed as in {@link CellGrid}: cell i of the row-major order is in the bits
+	 * 2 * (i % 4) and 2 * (i % 4) + 1 of the byte i / 4. The body is padded with
+	 * walls to a multiple of 8 bytes.
+	 */
+	static void writePacked(CellGrid grid, OutputStream out) throws IOException {
+		MazeEncoder encoder = new MazeEncoder(out);
+		encoder.writeLong((grid.height() & 0xFFFFFFFFL) | ((long) grid.width() << 32));
+		if (grid instanceof PackedWords) {
+			PackedWords words = (PackedWords) grid;
+			for (long i = 0; i < words.wordCount(); i++) {
+				encoder.writeLong(words.word(i));
+			}
+		} else {
+			long cells = (long) grid.height() * grid.width();
+			long word = 0;
+			for (long i = 0; i < cells; i++) {
+				word |= (long) grid.get((int) (i / grid.width()), (int) (i % grid.width())).ordinal() << ((i & 31) << 1);
+				if ((i & 31) == 31) {
+					encoder.writeLong(word);
+					word = 0;
+				}
+			}
+			if ((cells & 31) != 0) {
+				encoder.writeLong(word);
+			}
+		}
+		encoder.flush();
+	}
+
+	private void writeRun(int length, Cell cell) throws IOException {
+		write(Integer.toString(length));
+		write(RLE_CELLS[cell.ordinal()]);
+	}
+
+	private void writeLong(long value) throws IOException {
+		for (int i = 0; i < Long.BYTES; i++) {
+			write((byte) (value >>> (8 * i)));
+		}
+	}
+
+	private void write(String text) throws IOException {
+		write(ascii(text));
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		if (count + bytes.length > buffer.length) {
+			flushBuffer();
+		}
+		System.arraycopy(bytes, 0, buffer, count, bytes.length);
+		count += bytes.length;
+	}
+
+	private void write(byte b) throws IOException {
+		if (count == buffer.length) {
+			flushBuffer();
+		}
+		buffer[count++] = b;
+	}
+
+	private void flushBuffer() throws IOException {
+		out.write(buffer, 0, count);
+		written += count;
+		count = 0;
+	}
+
+	private void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
@@ -0,0 +1,271 @@
+package tws.keeper.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import tws.keeper.model.generator.EllerGenerator;
+
+/**
+ * Binary maze file. All numbers are little-endian:
+ *
+ * <pre>
+ * int   magic ("KMAZ")
+ * int   version
+ * int   height, width
+ * long  seed
+ * int   keeper vertical, keeper horizontal
+ * int   door vertical, door horizontal
+ * int   number of keys
+ * int   vertical, horizontal of every key
+ *       padding up to a multiple of 8 bytes
+ * long  cells, packed 2 bits per cell in row-major order as in {@link CellGrid}
+ * </pre>
+ *
+ * The cells are memory-mapped, so a maze file opens without reading its body.
+ */
+public final class MazeFile {
+
+	static final int MAGIC = 0x5A414D4B; // "KMAZ" when read as little-endian bytes
+	static final int VERSION = 1;
+
+	private static final int FIXED_HEADER_BYTES = 44;
+	private static final int EXTRA_PATH_ONE_IN = 50; // about half the cells are walls
+
+	private static final String INVALID_SIZE = "A maze needs at least 3x3 cells: %dx%d";
+	private static final String INVALID_KEYS = "Invalid number of keys: %d";
+	private static final String NOT_A_MAZE = "Not a maze file: %s";
+	private static final String UNSUPPORTED_VERSION = "Unsupported maze file version %d: %s";
+	private static final String TRUNCATED = "Truncated maze file: %s";
+	private static final String NOT_ENOUGH_PATHS = "There are not enough paths for the door, the keeper and %d keys";
+
+	private MazeFile() {
+	}
+
+	/**
+	 * Generates a maze straight into a file with Eller's algorithm. Rows are
+	 * written to the mapped file as soon as they are carved and the door, the
+	 * keeper and the keys are chosen by reservoir sampling over the paths while
+	 * streaming, so the memory used depends on the width and the number of keys
+	 * but not on the height of the maze.
+	 */
+	public static void generate(Path file, int height, int width, int keys, long seed) throws IOException {
+		if (height < 3 || width < 3) {
+			throw new IllegalArgumentException(String.format(INVALID_SIZE, height, width));
+		}
+		if (keys < 0) {
+			throw new IllegalArgumentException(String.format(INVALID_KEYS, keys));
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedCellGrid grid = new MappedCellGrid(channel, MapMode.READ_WRITE, bodyOffset(keys), height, width);
+			SplittableRandom random = new SplittableRandom(seed);
+			RowSampler sampler = new RowSampler(grid, random, keys + 2);
+			new EllerGenerator().generate(grid, random, sampler);
+
+			List<Position> objects = sampler.sample();
+			Position door = objects.get(0);
+			Position keeper = objects.get(1);
+			List<Position> keysPositions = new ArrayList<>(objects.subList(2, objects.size()));
+			grid.set(door.getVertical(), door.getHorizontal(), Cell.DOOR);
+			keysPositions.forEach(key -> grid.set(key.getVertical(), key.getHorizontal(), Cell.KEY));
+			grid.force();
+
+			writeHeader(channel, new Header(height, width, seed, keeper, door, keysPositions));
+		}
+	}
+
+	/**
+	 * Writes a maze file with these cells and objects
+	 */
+	static void write(Path file, Header header, CellGrid cells) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedCellGrid body = new MappedCellGrid(channel, MapMode.READ_WRITE, bodyOffset(header.keys.size()),
+					header.height, header.width);
+			if (cells instanceof PackedWords) {
+				PackedWords words = (PackedWords) cells;
+				for (long i = 0; i < words.wordCount(); i++) {
+					body.setWord(i, words.word(i));
+				}
+			} else {
+				for (int vertical = 0; vertical < header.height; vertical++) {
+					for (int horizontal = 0; horizontal < header.width; horizontal++) {
+						body.set(vertical, horizontal, cells.get(vertical, horizontal));
+					}
+				}
+			}
+			header.keys.forEach(key -> body.set(key.getVertical(), key.getHorizontal(), Cell.KEY));
+			body.force();
+			writeHeader(channel, header);
+		}
+	}
+
+	/**
+	 * Byte offset of the cells in a file with this number of keys
+	 */
+	static long bodyOffset(int keys) {
+		return (FIXED_HEADER_BYTES + 8L * keys + 7) & ~7L;
+	}
+
+	/**
+	 * Size in bytes of the cells of a maze
+	 */
+	static long bodyBytes(int height, int width) {
+		return PagedCellGrid.wordsFor(height, width) * Long.BYTES;
+	}
+
+	static void writeHeader(FileChannel channel, Header header) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) bodyOffset(header.keys.size())).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(header.height).putInt(header.width).putLong(header.seed);
+		putPosition(buffer, header.keeper);
+		putPosition(buffer, header.door);
+		buffer.putInt(header.keys.size());
+		header.keys.forEach(key -> putPosition(buffer, key));
+		buffer.rewind();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, buffer.position());
+		}
+	}
+
+	static Header readHeader(FileChannel channel, Path file) throws IOException {
+		ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER_BYTES, file);
+		if (fixed.getInt() != MAGIC) {
+			throw new IOException(String.format(NOT_A_MAZE, file));
+		}
+		int version = fixed.getInt();
+		if (version != VERSION) {
+			throw new IOException(String.format(UNSUPPORTED_VERSION, version, file));
+		}
+		int height = fixed.getInt();
+		int width = fixed.getInt();
+		long seed = fixed.getLong();
+		Position keeper = getPosition(fixed);
+		Position door = getPosition(fixed);
+		int numberOfKeys = fixed.getInt();
+		if (height < 3 || width < 3 || numberOfKeys < 0
+				|| channel.size() < bodyOffset(numberOfKeys) + bodyBytes(height, width)) {
+			throw new IOException(String.format(TRUNCATED, file));
+		}
+
+		ByteBuffer keysBuffer = readFully(channel, FIXED_HEADER_BYTES, 8 * numberOfKeys, file);
+		List<Position> keys = new ArrayList<>(numberOfKeys);
+		for (int i = 0; i < numberOfKeys; i++) {
+			keys.add(getPosition(keysBuffer));
+		}
+		return new Header(height, width, seed, keeper, door, keys);
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int bytes, Path file)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException(String.format(TRUNCATED, file));
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void putPosition(ByteBuffer buffer, Position position) {
+		buffer.putInt(position.getVertical()).putInt(position.getHorizontal());
+	}
+
+	private static Position getPosition(ByteBuffer buffer) {
+		return new Position(buffer.getInt(), buffer.getInt());
+	}
+
+	/**
+	 * Everything in a maze file but the cells
+	 */
+	static final class Header {
+
+		final int height;
+		final int width;
+		final long seed;
+		final Position keeper;
+		final Position door;
+		final List<Position> keys;
+
+		Header(int height, int width, long seed, Position keeper, Position door, List<Position> keys) {
+			this.height = height;
+			this.width = width;
+			this.seed = seed;
+			this.keeper = keeper;
+			this.door = door;
+			this.keys = keys;
+		}
+
+	}
+
+	/**
+	 * Adds a few extra paths to every finished row and keeps a uniform sample of
+	 * all the paths seen so far (algorithm R)
+	 */
+	private static final class RowSampler implements IntConsumer {
+
+		private final CellGrid grid;
+		private final SplittableRandom random;
+		private final long[] reservoir;
+		private long paths;
+
+		RowSampler(CellGrid grid, SplittableRandom random, int size) {
+			this.grid = grid;
+			this.random = random;
+			this.reservoir = new long[size];
+		}
+
+		@Override
+		public void accept(int vertical) {
+			if (vertical == 0 || vertical == grid.height() - 1) {
+				return; // the border is never carved
+			}
+			for (int horizontal = 1; horizontal < grid.width() - 1; horizontal++) {
+				Cell cell = grid.get(vertical, horizontal);
+				if (cell == Cell.WALL && random.nextInt(EXTRA_PATH_ONE_IN) == 0) {
+					grid.set(vertical, horizontal, Cell.PATH);
+					cell = Cell.PATH;
+				}
+				if (cell == Cell.PATH) {
+					long index = (long) vertical * grid.width() + horizontal;
+					long slot = paths < reservoir.length ? paths : random.nextLong(paths + 1);
+					if (slot < reservoir.length) {
+						reservoir[(int) slot] = index;
+					}
+					paths++;
+				}
+			}
+		}
+
+		/**
+		 * The sampled paths in random order
+		 */
+		List<Position> sample() {
+			if (paths < reservoir.length) {
+				throw new IllegalStateException(String.format(NOT_ENOUGH_PATHS, reservoir.length - 2));
+			}
+			List<Position> sample = new ArrayList<>(reservoir.length);
+			for (long index : reservoir) {
+				sample.add(new Position((int) (index / grid.width()), (int) (index % grid.width())));
+			}
+			for (int i = sample.size() - 1; i > 0; i--) {
+				Collections.swap(sample, i, random.nextInt(i + 1));
+			}
+			return sample;
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package tws.keeper.model;
+
+/**
+ * Notified of the changes of a maze as the keeper acts
+ */
+public interface MazeListener {
+
+	/**
+	 * The keeper moved to this position
+	 */
+	default void keeperMoved(Position position) {
+	}
+
+	/**
+	 * The keeper picked up the key at this position
+	 */
+	default void keyFound(Position position) {
+	}
+
+	/**
+	 * The keeper opened the door with all the keys
+	 */
+	default void mazeCompleted() {
+	}
+
+}
@@ -0,0 +1,246 @@
+package tws.keeper.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import tws.keeper.metrics.Metrics;
+
+/**
+ * Immutable state of a {@link Maze} after a step, published by the maze through
+ * a volatile reference so it can be read from any thread without a lock. The
+ * grid is never changed once generated, the keys found are laid over it, so a
+ * snapshot shares the grid and the keys found with the previous one and
+ * publishing a move costs one small object.
+ */
+public final class MazeSnapshot {
+
+	private static final String READ_ONLY = "A snapshot cannot be changed";
+
+	private final Board board;
+	private final Position keeper;
+	private final long moves;
+	private final boolean completed;
+
+	private MazeSnapshot(Board board, Position keeper, long moves, boolean completed) {
+		this.board = board;
+		this.keeper = keeper;
+		this.moves = moves;
+		this.completed = completed;
+	}
+
+	/**
+	 * The state of a maze before the keeper moves
+	 */
+	static MazeSnapshot initial(CellGrid grid, long seed, Position keeper, Position door, List<Position> keys) {
+		return new MazeSnapshot(
+				new Board(grid, seed, door, Collections.unmodifiableList(new ArrayList<>(keys)), Collections.emptyList()),
+				keeper, 0, false);
+	}
+
+	/**
+	 * The state after the keeper moved to the position, picking up the key there
+	 * if keyFound
+	 */
+	MazeSnapshot moved(Position position, boolean keyFound, boolean mazeCompleted) {
+		return new MazeSnapshot(keyFound ? board.with(position) : board, position, moves + 1, mazeCompleted);
+	}
+
+	public int getHeight() {
+		return board.height();
+	}
+
+	public int getWidth() {
+		return board.width();
+	}
+
+	/**
+	 * Contents of the cell, a key found is a path
+	 */
+	public Cell getCell(int vertical, int horizontal) {
+		return board.get(vertical, horizontal);
+	}
+
+	public long getSeed() {
+		return board.seed;
+	}
+
+	public Position getKeeperPosition() {
+		return keeper;
+	}
+
+	public Position getDoorPosition() {
+		return board.door;
+	}
+
+	public List<Position> getKeysPositions() {
+		return board.keys;
+	}
+
+	/**
+	 * The keys picked up, in the order they were found
+	 */
+	public List<Position> getKeysFoundPositions() {
+		return board.found;
+	}
+
+	public int getTotalNumberOfKeys() {
+		return board.keys.size();
+	}
+
+	/**
+	 * Number of moves made by the keeper up to this snapshot
+	 */
+	public long getMoves() {
+		return moves;
+	}
+
+	public boolean isMazeCompleted() {
+		return completed;
+	}
+
+	/**
+	 * Positions of the keeper, door, keys and keys found, and whether the maze is
+	 * completed, in json
+	 */
+	public String toStatusJson() {
+		return "{\n" +
+				" \"keeper\":" + keeper.toJson() + ",\n" +
+				" \"door\":" + board.door.toJson() + ",\n" +
+				" \"keys\":[" + board.keys.stream().map(Position::toJson).collect(Collectors.joining(",")) + "],\n" +
+				" \"found\":[" + board.found.stream().map(Position::toJson).collect(Collectors.joining(",")) + "],\n" +
+				" \"complete\":" + completed +
+				"}\n";
+	}
+
+	/**
+	 * Return a json representation of the cells
+	 */
+	public String toJson() {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		try {
+			writeJson(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new String(json.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Stream the json representation of the cells
+	 */
+	public void writeJson(OutputStream out) throws IOException {
+		long start = System.nanoTime();
+		long bytes = MazeEncoder.writeJson(board, out);
+		Metrics.JSON_NANOS.record(System.nanoTime() - start);
+		Metrics.JSON_BYTES.record(bytes);
+	}
+
+	/**
+	 * Stream the cells as run-length encoded rows
+	 */
+	public void writeRle(OutputStream out) throws IOException {
+		MazeEncoder.writeRle(board, out);
+	}
+
+	/**
+	 * Stream the cells packed 2 bits per cell
+	 */
+	public void writePacked(OutputStream out) throws IOException {
+		MazeEncoder.writePacked(board, out);
+	}
+
+	/**
+	 * What does not change from a step to the next: the grid as generated, the
+	 * door, the keys and the keys found, which read as paths. Keys are few, the
+	 * cells of the keys found are kept sorted and looked up by binary search, so
+	 * whole words can still be copied with the keys found patched in.
+	 */
+	private static final class Board implements CellGrid, PackedWords {
+
+		private static final long CELL_MASK = 3;
+		private static final long CELLS_PER_WORD = 32;
+
+		private final CellGrid grid;
+		private final long seed;
+		private final Position door;
+		private final List<Position> keys;
+		private final List<Position> found;
+		private final long[] foundCells;
+
+		private Board(CellGrid grid, long seed, Position door, List<Position> keys, List<Position> found) {
+			this.grid = grid;
+			this.seed = seed;
+			this.door = door;
+			this.keys = keys;
+			this.found = found;
+			foundCells = new long[found.size()];
+			for (int i = 0; i < foundCells.length; i++) {
+				foundCells[i] = indexOf(found.get(i).getVertical(), found.get(i).getHorizontal());
+			}
+			Arrays.sort(foundCells);
+		}
+
+		/**
+		 * The same board with the key at the position found too
+		 */
+		Board with(Position key) {
+			List<Position> next = new ArrayList<>(found.size() + 1);
+			next.addAll(found);
+			next.add(key);
+			return new Board(grid, seed, door, keys, Collections.unmodifiableList(next));
+		}
+
+		@Override
+		public int height() {
+			return grid.height();
+		}
+
+		@Override
+		public int width() {
+			return grid.width();
+		}
+
+		@Override
+		public Cell get(int vertical, int horizontal) {
+			Cell cell = grid.get(vertical, horizontal);
+			return cell == Cell.KEY && Arrays.binarySearch(foundCells, indexOf(vertical, horizontal)) >= 0 ? Cell.PATH
+					: cell;
+		}
+
+		@Override
+		public void set(int vertical, int horizontal, Cell cell) {
+			throw new UnsupportedOperationException(READ_ONLY);
+		}
+
+		@Override
+		public long wordCount() {
+			return ((PackedWords) grid).wordCount();
+		}
+
+		@Override
+		public long word(long index) {
+			long word = ((PackedWords) grid).word(index);
+			long first = index * CELLS_PER_WORD;
+			int i = Arrays.binarySearch(foundCells, first);
+			for (i = i < 0 ? -i - 1 : i; i < foundCells.length && foundCells[i] < first + CELLS_PER_WORD; i++) {
+				int shift = (int) ((foundCells[i] - first) << 1);
+				word = word & ~(CELL_MASK << shift) | (long) Cell.PATH.ordinal() << shift;
+			}
+			return word;
+		}
+
+		private long indexOf(int vertical, int horizontal) {
+			return (long) vertical * grid.width() + horizontal;
+		}
+
+	}
+
+}
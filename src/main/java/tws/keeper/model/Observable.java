@@ -10,6 +10,13 @@ public interface Observable {
 
     Cell lookRight();
 
+    /**
+     * The four cells around the keeper in a single call, packed as described in {@link Surroundings}
+     */
+    default int lookAround() {
+        return Surroundings.of(lookUp(), lookDown(), lookLeft(), lookRight());
+    }
+
     int getKeysFound();
 
     int getTotalNumberOfKeys();
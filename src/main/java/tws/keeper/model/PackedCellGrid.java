@@ -0,0 +1,58 @@
+package tws.keeper.model;
+
+/**
+ * On heap grid packing 32 cells in every long
+ */
+class PackedCellGrid implements CellGrid, PackedWords {
+
+	private static final Cell[] CELLS = Cell.values();
+
+	private final int height;
+	private final int width;
+	private final long[] words;
+
+	PackedCellGrid(int height, int width) {
+		this.height = height;
+		this.width = width;
+		long cells = (long) height * width;
+		if (((cells + 31) >>> 5) > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("The board is too large to be stored on heap: " + height + "x" + width);
+		}
+		words = new long[(int) ((cells + 31) >>> 5)];
+	}
+
+	@Override
+	public int height() {
+		return height;
+	}
+
+	@Override
+	public int width() {
+		return width;
+	}
+
+	@Override
+	public long wordCount() {
+		return words.length;
+	}
+
+	@Override
+	public long word(long index) {
+		return words[(int) index];
+	}
+
+	@Override
+	public Cell get(int vertical, int horizontal) {
+		long index = (long) vertical * width + horizontal;
+		return CELLS[(int) (words[(int) (index >>> 5)] >>> ((index & 31) << 1)) & 3];
+	}
+
+	@Override
+	public void set(int vertical, int horizontal, Cell cell) {
+		long index = (long) vertical * width + horizontal;
+		int word = (int) (index >>> 5);
+		int shift = (int) ((index & 31) << 1);
+		words[word] = (words[word] & ~(3L << shift)) | ((long) cell.ordinal() << shift);
+	}
+
+}
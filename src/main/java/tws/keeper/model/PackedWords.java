@@ -0,0 +1,19 @@
+package tws.keeper.model;
+
+/**
+ * Grid exposing its packed words, 32 cells per long in row-major order, so it
+ * can be copied without decoding every cell
+ */
+interface PackedWords {
+
+	/**
+	 * Number of longs holding the cells
+	 */
+	long wordCount();
+
+	/**
+	 * The long holding the cells [32 * index, 32 * index + 32)
+	 */
+	long word(long index);
+
+}
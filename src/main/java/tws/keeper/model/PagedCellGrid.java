@@ -0,0 +1,89 @@
+package tws.keeper.model;
+
+import java.nio.LongBuffer;
+
+/**
+ * Grid packing 32 cells in every long and splitting the longs into buffer
+ * pages, so boards larger than a single buffer can be addressed
+ */
+abstract class PagedCellGrid implements CellGrid, PackedWords {
+
+	static final int PAGE_SHIFT = 24; // longs per page
+	static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+	static final long PAGE_BYTES = (long) PAGE_WORDS * Long.BYTES;
+
+	private static final Cell[] CELLS = Cell.values();
+
+	private final int height;
+	private final int width;
+
+	PagedCellGrid(int height, int width) {
+		this.height = height;
+		this.width = width;
+	}
+
+	/**
+	 * The buffer holding this page of words
+	 */
+	protected abstract LongBuffer page(int pageIndex);
+
+	/**
+	 * Number of longs needed to hold a board
+	 */
+	static long wordsFor(int height, int width) {
+		return ((long) height * width + 31) >>> 5;
+	}
+
+	/**
+	 * Number of pages needed to hold a board
+	 */
+	static int pagesFor(int height, int width) {
+		return (int) ((wordsFor(height, width) + PAGE_WORDS - 1) >>> PAGE_SHIFT);
+	}
+
+	@Override
+	public int height() {
+		return height;
+	}
+
+	@Override
+	public int width() {
+		return width;
+	}
+
+	@Override
+	public long wordCount() {
+		return wordsFor(height, width);
+	}
+
+	@Override
+	public long word(long index) {
+		return page((int) (index >>> PAGE_SHIFT)).get((int) (index & (PAGE_WORDS - 1)));
+	}
+
+	/**
+	 * Replaces the long holding the cells [32 * index, 32 * index + 32)
+	 */
+	void setWord(long index, long word) {
+		page((int) (index >>> PAGE_SHIFT)).put((int) (index & (PAGE_WORDS - 1)), word);
+	}
+
+	@Override
+	public Cell get(int vertical, int horizontal) {
+		long index = (long) vertical * width + horizontal;
+		long word = index >>> 5;
+		long bits = page((int) (word >>> PAGE_SHIFT)).get((int) (word & (PAGE_WORDS - 1)));
+		return CELLS[(int) (bits >>> ((index & 31) << 1)) & 3];
+	}
+
+	@Override
+	public void set(int vertical, int horizontal, Cell cell) {
+		long index = (long) vertical * width + horizontal;
+		long word = index >>> 5;
+		int shift = (int) ((index & 31) << 1);
+		LongBuffer page = page((int) (word >>> PAGE_SHIFT));
+		int offset = (int) (word & (PAGE_WORDS - 1));
+		page.put(offset, (page.get(offset) & ~(3L << shift)) | ((long) cell.ordinal() << shift));
+	}
+
+}
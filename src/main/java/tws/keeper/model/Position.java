@@ -32,6 +32,11 @@ public class Position {
                 ((Position) other).vertical && this.horizontal == ((Position) other).horizontal;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * vertical + horizontal;
+    }
+
     @Override
     public String toString() {
         return "Pos(" + vertical + "," + horizontal + ")";
@@ -0,0 +1,67 @@
+package tws.keeper.model;
+
+/**
+ * The four cells around the keeper packed in an int, as returned by
+ * {@link Observable#lookAround()}. The cell an action leads to takes two bits,
+ * its ordinal at bit 2 * the ordinal of the action. Sets of directions are
+ * masks with bit {@code action.ordinal()} set for each action in the set.
+ */
+public final class Surroundings {
+
+	private static final int CELL_BITS = 2;
+	private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+	private static final int DIRECTIONS = 4;
+	private static final Cell[] CELLS = Cell.values();
+	private static final String NO_DIRECTION = "The action does not lead anywhere: %s";
+
+	private Surroundings() {
+	}
+
+	/**
+	 * The surroundings with these cells up, down, left and right
+	 */
+	public static int of(Cell up, Cell down, Cell left, Cell right) {
+		return up.ordinal() << CELL_BITS * Action.GO_UP.ordinal()
+				| down.ordinal() << CELL_BITS * Action.GO_DOWN.ordinal()
+				| left.ordinal() << CELL_BITS * Action.GO_LEFT.ordinal()
+				| right.ordinal() << CELL_BITS * Action.GO_RIGHT.ordinal();
+	}
+
+	/**
+	 * The cell the action leads to
+	 */
+	public static Cell get(int surroundings, Action action) {
+		if (action.ordinal() >= DIRECTIONS) {
+			throw new IllegalArgumentException(String.format(NO_DIRECTION, action));
+		}
+		return CELLS[surroundings >>> CELL_BITS * action.ordinal() & CELL_MASK];
+	}
+
+	/**
+	 * The directions that lead to this kind of cell
+	 */
+	public static int directionsTo(int surroundings, Cell cell) {
+		int directions = 0;
+		for (int d = 0; d < DIRECTIONS; d++) {
+			if ((surroundings >>> CELL_BITS * d & CELL_MASK) == cell.ordinal()) {
+				directions |= 1 << d;
+			}
+		}
+		return directions;
+	}
+
+	/**
+	 * The directions that do not lead to a wall
+	 */
+	public static int free(int surroundings) {
+		return directionsTo(surroundings, Cell.WALL) ^ ((1 << DIRECTIONS) - 1);
+	}
+
+	/**
+	 * Whether the action is in the set of directions
+	 */
+	public static boolean contains(int directions, Action action) {
+		return (directions >>> action.ordinal() & 1) != 0;
+	}
+
+}
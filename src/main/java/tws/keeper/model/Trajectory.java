@@ -0,0 +1,95 @@
+package tws.keeper.model;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The moves of a keeper packed in 2 bits each: move i is in the bits 2 * (i % 4)
+ * and 2 * (i % 4) + 1 of the byte i / 4, with the ordinal of the {@link Action}.
+ * DO_NOTHING changes nothing in the maze, so it is only counted.
+ */
+public final class Trajectory {
+
+	private static final String NO_MOVE_AT = "There is no move at ";
+	private static final String INVALID_LENGTH = "Not enough bytes for the moves";
+	private static final Action[] MOVES = { Action.GO_UP, Action.GO_DOWN, Action.GO_LEFT, Action.GO_RIGHT };
+
+	private byte[] bytes = new byte[16];
+	private int moves;
+	private int idle;
+
+	/**
+	 * An empty trajectory
+	 */
+	public Trajectory() {
+	}
+
+	private Trajectory(byte[] bytes, int moves) {
+		this.bytes = bytes;
+		this.moves = moves;
+	}
+
+	/**
+	 * The trajectory with these moves, as returned by {@link #toByteArray()}
+	 */
+	public static Trajectory of(byte[] bytes, int moves) {
+		if (moves < 0 || bytes.length < (moves + 3) / 4) {
+			throw new IllegalArgumentException(INVALID_LENGTH);
+		}
+		return new Trajectory(Arrays.copyOf(bytes, Math.max(16, (moves + 3) / 4)), moves);
+	}
+
+	/**
+	 * Append a step
+	 */
+	public void add(Action action) {
+		if (action == Action.DO_NOTHING) {
+			idle++;
+			return;
+		}
+		if (moves >> 2 == bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		bytes[moves >> 2] |= action.ordinal() << ((moves & 3) << 1);
+		moves++;
+	}
+
+	/**
+	 * The move at this index
+	 */
+	public Action get(int index) {
+		if (index < 0 || index >= moves) {
+			throw new IndexOutOfBoundsException(NO_MOVE_AT + index);
+		}
+		return MOVES[(bytes[index >> 2] >> ((index & 3) << 1)) & 3];
+	}
+
+	/**
+	 * Number of moves
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Number of steps the keeper did nothing
+	 */
+	public int getIdleSteps() {
+		return idle;
+	}
+
+	/**
+	 * The packed moves, (moves + 3) / 4 bytes
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, (moves + 3) / 4);
+	}
+
+	/**
+	 * The packed moves in base64
+	 */
+	public String toBase64() {
+		return Base64.getEncoder().encodeToString(toByteArray());
+	}
+
+}
@@ -0,0 +1,323 @@
+package tws.keeper.model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import tws.keeper.model.generator.MazeGenerator;
+
+/**
+ * Binary file with the moves of a keeper on a generated maze, enough to play
+ * the game again without the keeper. All numbers are little-endian:
+ *
+ * <pre>
+ * int   magic ("KTRJ")
+ * int   version
+ * int   height, width, keys
+ * long  openings
+ * long  seed
+ * int   keeper vertical, keeper horizontal
+ * int   length of the class name of the generator, then its ASCII bytes
+ * and then chunks appended while the keeper plays:
+ * int   number of moves
+ *       the moves packed 2 bits each as in {@link Trajectory}, (moves + 3) / 4 bytes
+ * </pre>
+ *
+ * The file is only appended to, a chunk cut short by a crash is ignored when
+ * read.
+ */
+public final class TrajectoryFile {
+
+	static final int MAGIC = 0x4A52544B; // "KTRJ" when read as little-endian bytes
+	static final int VERSION = 1;
+
+	private static final int FIXED_HEADER_BYTES = 48;
+	private static final int CHUNK_MOVES = 1 << 14;
+	private static final int MAX_NAME_BYTES = 1024;
+
+	private static final String NOT_GENERATED = "The maze was loaded from a file, it cannot be generated again";
+	private static final String NOT_THE_SAME_MAZE = "The keeper starts at %s in the recording and at %s in the maze";
+	private static final String NOT_AT_START = "The keeper has already played, the recording would not start from the beginning";
+	private static final String NOT_A_TRAJECTORY = "Not a trajectory file: %s";
+	private static final String UNSUPPORTED_VERSION = "Unsupported trajectory file version %d: %s";
+	private static final String TRUNCATED = "Truncated trajectory file: %s";
+	private static final String UNKNOWN_GENERATOR = "Unknown generator %s: %s";
+
+	private TrajectoryFile() {
+	}
+
+	/**
+	 * Starts recording the moves of the keeper of a maze into a file, until the
+	 * recorder is closed. The maze must have been generated, not loaded, and the
+	 * keeper must not have played yet.
+	 *
+	 * @throws IllegalStateException if the maze was loaded from a file or the
+	 *                               keeper has already played
+	 */
+	public static Recorder record(Path file, Maze maze) throws IOException {
+		if (maze.getGenerator() == null) {
+			throw new IllegalStateException(NOT_GENERATED);
+		}
+		if (!maze.isAtStart()) {
+			throw new IllegalStateException(NOT_AT_START);
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		try {
+			byte[] name = maze.getGenerator().getClass().getName().getBytes(StandardCharsets.US_ASCII);
+			ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + name.length).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(maze.height()).putInt(maze.width())
+					.putInt(maze.getTotalNumberOfKeys()).putLong(maze.getOpenings()).putLong(maze.getSeed());
+			header.putInt(maze.getKeeperPosition().getVertical()).putInt(maze.getKeeperPosition().getHorizontal());
+			header.putInt(name.length).put(name);
+			header.flip();
+			writeFully(channel, header);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		Recorder recorder = new Recorder(channel, maze);
+		maze.addListener(recorder);
+		return recorder;
+	}
+
+	/**
+	 * Reads a recorded game, the chunks are read up to the last complete one
+	 */
+	public static Recording read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER_BYTES, file);
+			if (fixed.getInt() != MAGIC) {
+				throw new IOException(String.format(NOT_A_TRAJECTORY, file));
+			}
+			int version = fixed.getInt();
+			if (version != VERSION) {
+				throw new IOException(String.format(UNSUPPORTED_VERSION, version, file));
+			}
+			int height = fixed.getInt();
+			int width = fixed.getInt();
+			int keys = fixed.getInt();
+			long openings = fixed.getLong();
+			long seed = fixed.getLong();
+			Position start = new Position(fixed.getInt(), fixed.getInt());
+			int nameBytes = fixed.getInt();
+			if (nameBytes < 0 || nameBytes > MAX_NAME_BYTES) {
+				throw new IOException(String.format(TRUNCATED, file));
+			}
+			ByteBuffer name = readFully(channel, FIXED_HEADER_BYTES, nameBytes, file);
+			MazeGenerator generator = generator(new String(name.array(), StandardCharsets.US_ASCII), file);
+
+			Trajectory trajectory = new Trajectory();
+			long position = FIXED_HEADER_BYTES + nameBytes;
+			ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (position + Integer.BYTES <= channel.size()) {
+				count.clear();
+				readFully(channel, position, count, file);
+				int moves = count.getInt(0);
+				int bytes = (moves + 3) / 4;
+				if (moves < 0 || position + Integer.BYTES + bytes > channel.size()) {
+					break; // cut short while it was appended
+				}
+				ByteBuffer packed = readFully(channel, position + Integer.BYTES, bytes, file);
+				Trajectory chunk = Trajectory.of(packed.array(), moves);
+				for (int i = 0; i < moves; i++) {
+					trajectory.add(chunk.get(i));
+				}
+				position += Integer.BYTES + bytes;
+			}
+			return new Recording(height, width, keys, openings, seed, start, generator, trajectory);
+		}
+	}
+
+	/**
+	 * A new generator of the named class. The class is loaded without being
+	 * initialized, so that nothing named in a file runs unless it is a generator.
+	 */
+	private static MazeGenerator generator(String name, Path file) throws IOException {
+		try {
+			return Class.forName(name, false, MazeGenerator.class.getClassLoader()).asSubclass(MazeGenerator.class)
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IOException(String.format(UNKNOWN_GENERATOR, name, file), e);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int bytes, Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, position, buffer, file);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void readFully(FileChannel channel, long position, ByteBuffer buffer, Path file)
+			throws IOException {
+		int start = buffer.position();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position() - start) < 0) {
+				throw new EOFException(String.format(TRUNCATED, file));
+			}
+		}
+	}
+
+	/**
+	 * Appends the moves of the keeper to the file as it plays, a chunk at a time
+	 * and the last one when the maze is completed or the recorder closed. Only
+	 * moves are recorded, the steps the keeper did not move change nothing.
+	 */
+	public static final class Recorder implements MazeListener, Closeable {
+
+		private final FileChannel channel;
+		private final Maze maze;
+		private final ByteBuffer chunk = ByteBuffer.allocate(Integer.BYTES + CHUNK_MOVES / 4)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		private Position keeper;
+		private int moves;
+		private long recorded;
+
+		private Recorder(FileChannel channel, Maze maze) {
+			this.channel = channel;
+			this.maze = maze;
+			this.keeper = maze.getKeeperPosition();
+		}
+
+		@Override
+		public void keeperMoved(Position position) {
+			Action move = position.getVertical() < keeper.getVertical() ? Action.GO_UP
+					: position.getVertical() > keeper.getVertical() ? Action.GO_DOWN
+							: position.getHorizontal() < keeper.getHorizontal() ? Action.GO_LEFT : Action.GO_RIGHT;
+			keeper = position;
+			int index = Integer.BYTES + (moves >> 2);
+			chunk.put(index, (byte) (chunk.get(index) | move.ordinal() << ((moves & 3) << 1)));
+			moves++;
+			if (moves == CHUNK_MOVES) {
+				flush();
+			}
+		}
+
+		@Override
+		public void mazeCompleted() {
+			flush();
+		}
+
+		/**
+		 * Number of moves recorded
+		 */
+		public long getRecorded() {
+			return recorded + moves;
+		}
+
+		/**
+		 * Stops recording and appends the moves not written yet
+		 */
+		@Override
+		public void close() throws IOException {
+			maze.removeListener(this);
+			try {
+				flush();
+			} catch (UncheckedIOException e) {
+				channel.close();
+				throw e.getCause();
+			}
+			channel.close();
+		}
+
+		private void flush() {
+			if (moves == 0) {
+				return;
+			}
+			chunk.putInt(0, moves);
+			chunk.limit(Integer.BYTES + (moves + 3) / 4).position(0);
+			try {
+				writeFully(channel, chunk);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			chunk.clear();
+			Arrays.fill(chunk.array(), (byte) 0);
+			recorded += moves;
+			moves = 0;
+		}
+
+	}
+
+	/**
+	 * A recorded game: how to generate its maze and the moves of its keeper
+	 */
+	public static final class Recording {
+
+		private final int height;
+		private final int width;
+		private final int keys;
+		private final long openings;
+		private final long seed;
+		private final Position start;
+		private final MazeGenerator generator;
+		private final Trajectory trajectory;
+
+		private Recording(int height, int width, int keys, long openings, long seed, Position start,
+				MazeGenerator generator, Trajectory trajectory) {
+			this.height = height;
+			this.width = width;
+			this.keys = keys;
+			this.openings = openings;
+			this.seed = seed;
+			this.start = start;
+			this.generator = generator;
+			this.trajectory = trajectory;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		/**
+		 * Where the keeper started
+		 */
+		public Position getStart() {
+			return start;
+		}
+
+		public Trajectory getTrajectory() {
+			return trajectory;
+		}
+
+		/**
+		 * A builder of the maze the game was played on
+		 */
+		public Maze.Builder builder(Keeper keeper) {
+			return Maze.builder(keeper).height(height).width(width).keys(keys).generator(generator)
+					.openings(openings).seed(seed);
+		}
+
+		/**
+		 * The maze as the keeper left it, played again without the keeper
+		 *
+		 * @throws IllegalStateException if the maze generated is not the one
+		 *                               recorded
+		 */
+		public Maze replay() {
+			Maze maze = builder(observable -> Action.DO_NOTHING).build();
+			if (!maze.getKeeperPosition().equals(start)) {
+				throw new IllegalStateException(String.format(NOT_THE_SAME_MAZE, start, maze.getKeeperPosition()));
+			}
+			maze.replay(trajectory);
+			return maze;
+		}
+
+	}
+
+}
@@ -0,0 +1,135 @@
+package tws.keeper.model.generator;
+
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+import tws.keeper.model.Cell;
+import tws.keeper.model.CellGrid;
+
+/**
+ * Eller's algorithm. The maze is carved one row at a time keeping only the set
+ * each cell of the current row belongs to, so the working memory depends on the
+ * width of the maze but not on its height. Rows are finished in order, which
+ * allows streaming them to storage as soon as they are carved.
+ */
+public class EllerGenerator implements MazeGenerator {
+
+	private static final String TOO_SMALL = "A maze needs at least 3x3 cells: %dx%d";
+
+	@Override
+	public void generate(CellGrid grid, SplittableRandom random) {
+		generate(grid, random, row -> {
+		});
+	}
+
+	/**
+	 * Carve a perfect maze into the grid, notifying every row of the grid, in
+	 * order, as soon as it will not change anymore
+	 */
+	public void generate(CellGrid grid, SplittableRandom random, IntConsumer finishedRow) {
+		int rows = (grid.height() - 1) / 2;
+		int columns = (grid.width() - 1) / 2;
+		if (rows < 1 || columns < 1) {
+			throw new IllegalArgumentException(String.format(TOO_SMALL, grid.height(), grid.width()));
+		}
+
+		// Sets are labelled [0, columns) in every row and joined with a union-find
+		int[] labels = new int[columns];
+		int[] parent = new int[columns];
+		int[] remap = new int[columns];
+		int[] candidates = new int[columns];
+		int[] chosen = new int[columns];
+		boolean[] goesDown = new boolean[columns];
+		boolean[] hasDown = new boolean[columns];
+		for (int column = 0; column < columns; column++) {
+			labels[column] = column;
+		}
+
+		int finished = 0;
+		for (int row = 0; row < rows; row++) {
+			int vertical = 2 * row + 1;
+			boolean lastRow = row == rows - 1;
+			for (int label = 0; label < columns; label++) {
+				parent[label] = label;
+			}
+
+			// Cells of the row, randomly joined to the right when in different sets
+			for (int column = 0; column < columns; column++) {
+				grid.set(vertical, 2 * column + 1, Cell.PATH);
+			}
+			for (int column = 0; column < columns - 1; column++) {
+				int left = find(parent, labels[column]);
+				int right = find(parent, labels[column + 1]);
+				if (left != right && (lastRow || random.nextBoolean())) {
+					parent[left] = right;
+					grid.set(vertical, 2 * column + 2, Cell.PATH);
+				}
+			}
+
+			if (!lastRow) {
+				// Random passages down, at least one for every set
+				for (int column = 0; column < columns; column++) {
+					int root = find(parent, labels[column]);
+					hasDown[root] = false;
+					candidates[root] = 0;
+					remap[root] = -1;
+				}
+				for (int column = 0; column < columns; column++) {
+					int root = find(parent, labels[column]);
+					goesDown[column] = random.nextBoolean();
+					if (goesDown[column]) {
+						hasDown[root] = true;
+					} else if (random.nextInt(++candidates[root]) == 0) {
+						chosen[root] = column;
+					}
+				}
+				int nextLabel = 0;
+				for (int column = 0; column < columns; column++) {
+					int root = find(parent, labels[column]);
+					if (!hasDown[root] && chosen[root] == column) {
+						goesDown[column] = true;
+					}
+					if (goesDown[column]) {
+						grid.set(vertical + 1, 2 * column + 1, Cell.PATH);
+						if (remap[root] < 0) {
+							remap[root] = nextLabel++;
+						}
+					}
+				}
+
+				// Labels of the next row, cells not connected from above start a new set
+				for (int column = 0; column < columns; column++) {
+					labels[column] = goesDown[column] ? remap[find(parent, labels[column])] : -1;
+				}
+				for (int column = 0; column < columns; column++) {
+					if (labels[column] < 0) {
+						labels[column] = nextLabel++;
+					}
+				}
+			}
+
+			finished = finishRows(grid, finished, vertical + 1, finishedRow);
+		}
+		finishRows(grid, finished, grid.height() - 1, finishedRow);
+	}
+
+	/**
+	 * Notifies the rows from the first not notified up to the last one
+	 */
+	private static int finishRows(CellGrid grid, int first, int last, IntConsumer finishedRow) {
+		int row = first;
+		for (; row <= last && row < grid.height(); row++) {
+			finishedRow.accept(row);
+		}
+		return row;
+	}
+
+	private static int find(int[] parent, int label) {
+		while (parent[label] != label) {
+			parent[label] = parent[parent[label]];
+			label = parent[label];
+		}
+		return label;
+	}
+
+}
@@ -0,0 +1,85 @@
+package tws.keeper.model.generator;
+
+import tws.keeper.model.Cell;
+import tws.keeper.model.CellGrid;
+
+/**
+ * The cells of a grid with odd row and column. Generators connect these cells
+ * by carving the wall between two adjacent ones, so walls always sit on even
+ * rows or columns and the border stays intact.
+ */
+final class Lattice {
+
+	static final int NONE = -1;
+	static final int DIRECTIONS = 4;
+
+	private static final String TOO_SMALL = "A maze needs at least 3x3 cells: %dx%d";
+	private static final String TOO_LARGE = "The maze is too large to be generated in memory: %dx%d";
+
+	private final CellGrid grid;
+	private final int rows;
+	private final int columns;
+
+	Lattice(CellGrid grid) {
+		this.grid = grid;
+		rows = (grid.height() - 1) / 2;
+		columns = (grid.width() - 1) / 2;
+		if (rows < 1 || columns < 1) {
+			throw new IllegalArgumentException(String.format(TOO_SMALL, grid.height(), grid.width()));
+		}
+		if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException(String.format(TOO_LARGE, grid.height(), grid.width()));
+		}
+	}
+
+	/**
+	 * Number of lattice cells
+	 */
+	int size() {
+		return rows * columns;
+	}
+
+	/**
+	 * The lattice cell next to this one in a direction (up, down, left, right) or
+	 * {@link #NONE} at the edges
+	 */
+	int neighbour(int cell, int direction) {
+		int row = cell / columns;
+		int column = cell - row * columns;
+		switch (direction) {
+		case 0:
+			return row > 0 ? cell - columns : NONE;
+		case 1:
+			return row < rows - 1 ? cell + columns : NONE;
+		case 2:
+			return column > 0 ? cell - 1 : NONE;
+		default:
+			return column < columns - 1 ? cell + 1 : NONE;
+		}
+	}
+
+	boolean isCarved(int cell) {
+		return grid.get(vertical(cell), horizontal(cell)) != Cell.WALL;
+	}
+
+	void carve(int cell) {
+		grid.set(vertical(cell), horizontal(cell), Cell.PATH);
+	}
+
+	/**
+	 * Carves the wall between two adjacent cells and the cell we arrive to
+	 */
+	void carvePassage(int from, int to) {
+		grid.set(vertical(from) + vertical(to) >> 1, horizontal(from) + horizontal(to) >> 1, Cell.PATH);
+		carve(to);
+	}
+
+	private int vertical(int cell) {
+		return 2 * (cell / columns) + 1;
+	}
+
+	private int horizontal(int cell) {
+		return 2 * (cell % columns) + 1;
+	}
+
+}
@@ -0,0 +1,18 @@
+package tws.keeper.model.generator;
+
+import java.util.SplittableRandom;
+
+import tws.keeper.model.CellGrid;
+
+/**
+ * Strategy carving the paths of a maze into a grid full of walls. The border
+ * of the grid is never carved.
+ */
+public interface MazeGenerator {
+
+	/**
+	 * Carve a perfect maze into the grid
+	 */
+	void generate(CellGrid grid, SplittableRandom random);
+
+}
@@ -0,0 +1,62 @@
+package tws.keeper.model.generator;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import tws.keeper.model.CellGrid;
+
+/**
+ * Randomized Prim's algorithm. The maze grows from a random cell by connecting
+ * a random frontier cell to a random carved neighbour. The frontier is an array
+ * with swap-remove, so every step is O(1) and generation is linear in the area
+ * of the maze. Produces many short dead ends.
+ */
+public class PrimGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(CellGrid grid, SplittableRandom random) {
+		Lattice lattice = new Lattice(grid);
+		int[] frontier = new int[lattice.size()];
+		BitSet inFrontier = new BitSet(lattice.size());
+		int[] candidates = new int[Lattice.DIRECTIONS];
+		int size = 0;
+
+		int start = random.nextInt(lattice.size());
+		lattice.carve(start);
+		size = expandFrontier(lattice, start, frontier, size, inFrontier);
+
+		while (size > 0) {
+			// Taking a random cell out of the frontier
+			int slot = random.nextInt(size);
+			int current = frontier[slot];
+			frontier[slot] = frontier[--size];
+
+			// Connecting it to one of its carved neighbours
+			int count = 0;
+			for (int direction = 0; direction < Lattice.DIRECTIONS; direction++) {
+				int neighbour = lattice.neighbour(current, direction);
+				if (neighbour != Lattice.NONE && lattice.isCarved(neighbour)) {
+					candidates[count++] = neighbour;
+				}
+			}
+			lattice.carvePassage(candidates[random.nextInt(count)], current);
+
+			size = expandFrontier(lattice, current, frontier, size, inFrontier);
+		}
+	}
+
+	/**
+	 * Adds the uncarved neighbours of a cell not yet in the frontier
+	 */
+	private static int expandFrontier(Lattice lattice, int cell, int[] frontier, int size, BitSet inFrontier) {
+		for (int direction = 0; direction < Lattice.DIRECTIONS; direction++) {
+			int neighbour = lattice.neighbour(cell, direction);
+			if (neighbour != Lattice.NONE && !inFrontier.get(neighbour) && !lattice.isCarved(neighbour)) {
+				inFrontier.set(neighbour);
+				frontier[size++] = neighbour;
+			}
+		}
+		return size;
+	}
+
+}
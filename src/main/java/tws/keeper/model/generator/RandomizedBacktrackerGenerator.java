@@ -0,0 +1,48 @@
+package tws.keeper.model.generator;
+
+import java.util.SplittableRandom;
+
+import tws.keeper.model.CellGrid;
+
+/**
+ * Depth first search carving towards a random unvisited neighbour and
+ * backtracking when there is none. The path is kept in an explicit stack of
+ * cells, so each cell is pushed and popped once and generation is linear in
+ * the area of the maze. Produces long winding corridors.
+ */
+public class RandomizedBacktrackerGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(CellGrid grid, SplittableRandom random) {
+		Lattice lattice = new Lattice(grid);
+		int[] stack = new int[lattice.size()];
+		int[] candidates = new int[Lattice.DIRECTIONS];
+		int depth = 0;
+
+		int start = random.nextInt(lattice.size());
+		lattice.carve(start);
+		stack[depth++] = start;
+
+		while (depth > 0) {
+			int current = stack[depth - 1];
+
+			// Unvisited neighbours of the cell on top of the stack
+			int count = 0;
+			for (int direction = 0; direction < Lattice.DIRECTIONS; direction++) {
+				int neighbour = lattice.neighbour(current, direction);
+				if (neighbour != Lattice.NONE && !lattice.isCarved(neighbour)) {
+					candidates[count++] = neighbour;
+				}
+			}
+
+			if (count == 0) {
+				depth--; // dead end, going back
+			} else {
+				int next = candidates[random.nextInt(count)];
+				lattice.carvePassage(current, next);
+				stack[depth++] = next;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package tws.keeper.model.generator;
+
+import java.util.SplittableRandom;
+
+import tws.keeper.model.CellGrid;
+
+/**
+ * Wilson's algorithm. Starting from every cell not yet in the maze it performs
+ * a loop-erased random walk until it hits the maze, and then carves the walk.
+ * Loops are erased implicitly by remembering only the last direction taken from
+ * each cell. The result is a uniform spanning tree, that is an unbiased maze.
+ * The expected running time is proportional to the mean hitting time of the
+ * random walk, which stays close to linear in the area on grid mazes.
+ */
+public class WilsonGenerator implements MazeGenerator {
+
+	@Override
+	public void generate(CellGrid grid, SplittableRandom random) {
+		Lattice lattice = new Lattice(grid);
+		byte[] exit = new byte[lattice.size()];
+
+		lattice.carve(random.nextInt(lattice.size()));
+
+		for (int origin = 0; origin < lattice.size(); origin++) {
+			if (lattice.isCarved(origin)) {
+				continue;
+			}
+
+			// Random walk until we reach the maze, remembering the last exit of each cell
+			int current = origin;
+			while (!lattice.isCarved(current)) {
+				int direction;
+				int next;
+				do {
+					direction = random.nextInt(Lattice.DIRECTIONS);
+					next = lattice.neighbour(current, direction);
+				} while (next == Lattice.NONE);
+				exit[current] = (byte) direction;
+				current = next;
+			}
+
+			// Carving the loop-erased walk
+			lattice.carve(origin);
+			current = origin;
+			while (true) {
+				int next = lattice.neighbour(current, exit[current]);
+				boolean reachedMaze = lattice.isCarved(next);
+				lattice.carvePassage(current, next);
+				if (reachedMaze) {
+					break;
+				}
+				current = next;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,408 @@
+package tws.keeper.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.solution.KeeperAI;
+
+/**
+ * Plays a {@link KeeperAI} on many mazes in parallel without the web server. The
+ * mazes are generated from consecutive seeds or loaded from maze files, spread
+ * over a work-stealing pool and played to completion or to a step cap. A line
+ * is written per maze as soon as it is played, in csv or json lines, so the
+ * memory used does not depend on the number of mazes.
+ *
+ * <pre>
+ * java -cp target/classes tws.keeper.simulation.BatchSimulator --mazes 10000 --size 101x101 --keys 7 --out results.csv
+ * java -cp target/classes tws.keeper.simulation.BatchSimulator --format jsonl maze1.kmaz maze2.kmaz
+ * </pre>
+ */
+public class BatchSimulator {
+
+	private static final String INVALID_SETTINGS = "Invalid simulation: %d mazes, %d steps, %d threads, %d rollout tasks";
+	private static final String UNKNOWN_OPTION = "Unknown option: ";
+
+	/**
+	 * How the results are written
+	 */
+	public enum Format {
+		CSV, JSONL
+	}
+
+	private final int mazes;
+	private final int height;
+	private final int width;
+	private final int keys;
+	private final long seed;
+	private final List<Path> files;
+	private final int maxSteps;
+	private final int parallelism;
+	private final int rolloutTasks;
+	private final Format format;
+	private final KeeperAI.Mode mode;
+	private final KeeperAI.Homing homing;
+	private final Long openings;
+
+	private BatchSimulator(Builder builder) {
+		this.files = new ArrayList<>(builder.files);
+		this.mazes = files.isEmpty() ? builder.mazes : files.size();
+		this.height = builder.height;
+		this.width = builder.width;
+		this.keys = builder.keys;
+		this.seed = builder.seed;
+		this.maxSteps = builder.maxSteps;
+		this.parallelism = builder.parallelism;
+		this.rolloutTasks = builder.rolloutTasks;
+		this.format = builder.format;
+		this.mode = builder.mode;
+		this.homing = builder.homing;
+		this.openings = builder.openings;
+		if (mazes < 0 || maxSteps < 0 || parallelism < 1 || rolloutTasks < 1) {
+			throw new IllegalArgumentException(
+					String.format(INVALID_SETTINGS, mazes, maxSteps, parallelism, rolloutTasks));
+		}
+	}
+
+	/**
+	 * A simulation of 100 mazes 40x40 with 7 keys, capped at a million steps each,
+	 * on all the cores
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Play every maze and write a line per maze, in the order they finish, after a
+	 * header line for csv. Returns the number of mazes completed. The rollout
+	 * tasks but the one of the thread of each maze have a pool of their own, a
+	 * maze waiting for its rollouts must not leave its thread to another maze.
+	 */
+	public int run(Writer out) throws IOException {
+		AtomicInteger completed = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		ExecutorService rollouts = rolloutTasks > 1 ? Executors.newFixedThreadPool(parallelism * (rolloutTasks - 1))
+				: null;
+		try {
+			if (format == Format.CSV) {
+				out.write(SimulationResult.CSV_HEADER);
+				out.write('\n');
+			}
+			pool.invoke(new Batch(0, mazes, out, completed, rollouts != null ? rollouts : Runnable::run));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			if (rollouts != null) {
+				rollouts.shutdown();
+			}
+		}
+		out.flush();
+		return completed.get();
+	}
+
+	/**
+	 * Play the maze with this index, the rollout tasks of the keeper but one run
+	 * by the executor
+	 */
+	SimulationResult play(int index, Executor rolloutExecutor) {
+		KeeperAI keeper = new KeeperAI(mode, homing);
+		keeper.setSeed(seed + index);
+		keeper.setRolloutExecutor(rolloutExecutor, rolloutTasks);
+		String name;
+		Maze maze;
+		if (files.isEmpty()) {
+			name = Long.toString(seed + index);
+			Maze.Builder mazeBuilder = Maze.builder(keeper).height(height).width(width).keys(keys).seed(seed + index);
+			if (openings != null) {
+				mazeBuilder.openings(openings);
+			}
+			maze = mazeBuilder.build();
+		} else {
+			name = files.get(index).toString();
+			try {
+				maze = Maze.load(files.get(index), keeper);
+			} catch (IOException e) {
+				return new SimulationResult(name, 0, 0, 0, 0, false, 0, 0, e.toString());
+			}
+		}
+		int steps = 0;
+		int moves = 0;
+		String error = null;
+		long start = System.nanoTime();
+		try {
+			while (steps < maxSteps && !maze.isMazeCompleted()) {
+				steps++;
+				if (maze.makeKeeperAct() != Action.DO_NOTHING) {
+					moves++;
+				}
+			}
+		} catch (RuntimeException e) {
+			error = e.getMessage() == null ? e.toString() : e.getMessage();
+		}
+		long wallNanos = System.nanoTime() - start;
+		return new SimulationResult(name, steps, moves, maze.getKeysFoundPositions().size(),
+				maze.getTotalNumberOfKeys(), maze.isMazeCompleted(), keeper.getStarInvocations(), wallNanos, error);
+	}
+
+	/**
+	 * Plays a range of mazes, split in halves until a single maze is left so idle
+	 * workers can steal the other half
+	 */
+	private final class Batch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final transient Writer out;
+		private final transient AtomicInteger completed;
+		private final transient Executor rollouts;
+
+		private Batch(int from, int to, Writer out, AtomicInteger completed, Executor rollouts) {
+			this.from = from;
+			this.to = to;
+			this.out = out;
+			this.completed = completed;
+			this.rollouts = rollouts;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Batch(from, middle, out, completed, rollouts),
+						new Batch(middle, to, out, completed, rollouts));
+			} else if (to > from) {
+				SimulationResult result = play(from, rollouts);
+				if (result.isCompleted()) {
+					completed.incrementAndGet();
+				}
+				String line = format == Format.CSV ? result.toCsv() : result.toJson();
+				try {
+					synchronized (out) {
+						out.write(line);
+						out.write('\n');
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Settings of a simulation
+	 */
+	public static class Builder {
+
+		private int mazes = 100;
+		private int height = 40;
+		private int width = 40;
+		private int keys = 7;
+		private long seed = 0;
+		private final List<Path> files = new ArrayList<>();
+		private int maxSteps = 1_000_000;
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+		private int rolloutTasks = 1;
+		private Format format = Format.CSV;
+		private KeeperAI.Mode mode = KeeperAI.Mode.DEPTH_FIRST;
+		private KeeperAI.Homing homing = KeeperAI.Homing.STAR;
+		private Long openings;
+
+		private Builder() {
+		}
+
+		/**
+		 * Number of mazes generated, ignored when files are given
+		 */
+		public Builder mazes(int mazes) {
+			this.mazes = mazes;
+			return this;
+		}
+
+		public Builder height(int height) {
+			this.height = height;
+			return this;
+		}
+
+		public Builder width(int width) {
+			this.width = width;
+			return this;
+		}
+
+		public Builder keys(int keys) {
+			this.keys = keys;
+			return this;
+		}
+
+		/**
+		 * Seed of the first maze generated, the next ones use the following seeds.
+		 * The keeper of each maze makes its random choices from the same seed, so a
+		 * simulation gives the same results every time it runs.
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Play this maze file instead of generating mazes
+		 */
+		public Builder file(Path file) {
+			files.add(file);
+			return this;
+		}
+
+		/**
+		 * Steps after which a maze not completed is given up
+		 */
+		public Builder maxSteps(int maxSteps) {
+			this.maxSteps = maxSteps;
+			return this;
+		}
+
+		/**
+		 * Number of mazes played at the same time
+		 */
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Tasks the rollouts of a step are split among in
+		 * {@link KeeperAI.Mode#ROLLOUT}, one on the thread of the maze and the
+		 * others on rolloutTasks - 1 threads per maze played at the same time. By
+		 * default 1, each keeper plays its rollouts on the thread of its maze.
+		 */
+		public Builder rolloutTasks(int rolloutTasks) {
+			this.rolloutTasks = rolloutTasks;
+			return this;
+		}
+
+		public Builder format(Format format) {
+			this.format = format;
+			return this;
+		}
+
+		/**
+		 * How the keepers explore
+		 */
+		public Builder mode(KeeperAI.Mode mode) {
+			this.mode = mode;
+			return this;
+		}
+
+		/**
+		 * How the keepers go to the door
+		 */
+		public Builder homing(KeeperAI.Homing homing) {
+			this.homing = homing;
+			return this;
+		}
+
+		/**
+		 * Walls turned into paths in every maze generated, by default the ones of
+		 * {@link Maze.Builder}
+		 */
+		public Builder openings(long openings) {
+			this.openings = openings;
+			return this;
+		}
+
+		public BatchSimulator build() {
+			return new BatchSimulator(this);
+		}
+
+	}
+
+	/**
+	 * Options: --mazes N, --size HxW, --keys K, --seed S, --max-steps M, --threads T,
+	 * --openings N, --explorer depth_first|frontier|rollout, --rollout-tasks R,
+	 * --homing star|jump_point|d_star_lite|distance_field, --format csv|jsonl
+	 * and --out FILE (standard output by default). Any other argument is a maze
+	 * file to play.
+	 */
+	public static void main(String[] args) throws IOException {
+		Builder builder = builder();
+		Path outFile = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--mazes":
+				builder.mazes(Integer.parseInt(args[++i]));
+				break;
+			case "--size":
+				String[] size = args[++i].split("x");
+				builder.height(Integer.parseInt(size[0])).width(Integer.parseInt(size[1]));
+				break;
+			case "--keys":
+				builder.keys(Integer.parseInt(args[++i]));
+				break;
+			case "--seed":
+				builder.seed(Long.parseLong(args[++i]));
+				break;
+			case "--openings":
+				builder.openings(Long.parseLong(args[++i]));
+				break;
+			case "--max-steps":
+				builder.maxSteps(Integer.parseInt(args[++i]));
+				break;
+			case "--threads":
+				builder.parallelism(Integer.parseInt(args[++i]));
+				break;
+			case "--rollout-tasks":
+				builder.rolloutTasks(Integer.parseInt(args[++i]));
+				break;
+			case "--format":
+				builder.format(Format.valueOf(args[++i].toUpperCase()));
+				break;
+			case "--explorer":
+				builder.mode(KeeperAI.Mode.valueOf(args[++i].toUpperCase()));
+				break;
+			case "--homing":
+				builder.homing(KeeperAI.Homing.valueOf(args[++i].toUpperCase()));
+				break;
+			case "--out":
+				outFile = Paths.get(args[++i]);
+				break;
+			default:
+				if (args[i].startsWith("--")) {
+					throw new IllegalArgumentException(UNKNOWN_OPTION + args[i]);
+				}
+				builder.file(Paths.get(args[i]));
+			}
+		}
+		BatchSimulator simulator = builder.build();
+		long start = System.nanoTime();
+		int completed;
+		if (outFile == null) {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			completed = simulator.run(out);
+		} else {
+			try (Writer out = Files.newBufferedWriter(outFile, StandardCharsets.UTF_8)) {
+				completed = simulator.run(out);
+			}
+		}
+		System.err.printf("%d of %d mazes completed in %d ms%n", completed, simulator.mazes,
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+}
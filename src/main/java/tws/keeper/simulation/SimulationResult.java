@@ -0,0 +1,129 @@
+package tws.keeper.simulation;
+
+/**
+ * What happened when a keeper played one maze
+ */
+public final class SimulationResult {
+
+	static final String CSV_HEADER = "maze,steps,moves,keys_found,keys,completed,star_invocations,wall_micros,error";
+
+	private final String maze;
+	private final int steps;
+	private final int moves;
+	private final int keysFound;
+	private final int keys;
+	private final boolean completed;
+	private final int starInvocations;
+	private final long wallNanos;
+	private final String error;
+
+	SimulationResult(String maze, int steps, int moves, int keysFound, int keys, boolean completed,
+			int starInvocations, long wallNanos, String error) {
+		this.maze = maze;
+		this.steps = steps;
+		this.moves = moves;
+		this.keysFound = keysFound;
+		this.keys = keys;
+		this.completed = completed;
+		this.starInvocations = starInvocations;
+		this.wallNanos = wallNanos;
+		this.error = error;
+	}
+
+	/**
+	 * The seed of a generated maze or the file of a loaded one
+	 */
+	public String getMaze() {
+		return maze;
+	}
+
+	/**
+	 * Times the keeper was asked to act
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Steps in which the keeper moved
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Getter
+	 */
+	public int getKeysFound() {
+		return keysFound;
+	}
+
+	/**
+	 * Getter
+	 */
+	public int getKeys() {
+		return keys;
+	}
+
+	/**
+	 * The door was opened within the step cap
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	/**
+	 * Paths to the door computed with A*
+	 */
+	public int getStarInvocations() {
+		return starInvocations;
+	}
+
+	/**
+	 * Time spent by the keeper, generating or loading the maze excluded
+	 */
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Message of the exception that stopped the keeper, null if none
+	 */
+	public String getError() {
+		return error;
+	}
+
+	String toCsv() {
+		return quoteCsv(maze) + "," + steps + "," + moves + "," + keysFound + "," + keys + "," + completed + ","
+				+ starInvocations + "," + wallNanos / 1000 + "," + (error == null ? "" : quoteCsv(error));
+	}
+
+	String toJson() {
+		return "{\"maze\":" + quoteJson(maze) + ",\"steps\":" + steps + ",\"moves\":" + moves + ",\"keysFound\":"
+				+ keysFound + ",\"keys\":" + keys + ",\"completed\":" + completed + ",\"starInvocations\":"
+				+ starInvocations + ",\"wallMicros\":" + wallNanos / 1000 + ",\"error\":"
+				+ (error == null ? "null" : quoteJson(error)) + "}";
+	}
+
+	private static String quoteCsv(String text) {
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+			return text;
+		}
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String quoteJson(String text) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < ' ') {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+}
@@ -0,0 +1,47 @@
+package tws.keeper.solution;
+
+import tws.keeper.model.Position;
+
+/**
+ * Coordinates of a cell packed into a long, the vertical one in the high half
+ * and the horizontal one in the low half. The solution keeps packed
+ * coordinates in primitive collections and only creates a {@link Position} when
+ * one is handed out.
+ *
+ * @author pedro
+ *
+ */
+final class Coordinates {
+
+	private Coordinates() {
+	}
+
+	static long pack(int vertical, int horizontal) {
+		return ((long) vertical << 32) | (horizontal & 0xFFFFFFFFL);
+	}
+
+	static long pack(Position position) {
+		return pack(position.getVertical(), position.getHorizontal());
+	}
+
+	static int vertical(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	static int horizontal(long packed) {
+		return (int) packed;
+	}
+
+	static Position toPosition(long packed) {
+		return new Position(vertical(packed), horizontal(packed));
+	}
+
+	/**
+	 * Spreads the bits of both coordinates over the low bits, used as hash
+	 */
+	static int mix(long packed) {
+		long h = packed * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
@@ -0,0 +1,231 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+import java.util.List;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+
+/**
+ * Incremental planner to a fixed goal, D* Lite (Koenig and Likhachev, 2002).
+ * The graph is made of the cells known to be free, which only grows as the
+ * keeper explores. The search runs backwards from the goal and keeps its state
+ * between calls: when new cells are learned only the vertices whose distance
+ * they change are expanded again, and moving the keeper costs nothing thanks
+ * to the key modifier km instead of reordering the queue.
+ *
+ * @author pedro
+ *
+ */
+class DStarLite {
+
+	private static final int INFINITE = Integer.MAX_VALUE / 4;
+	private static final String NO_PATH_FOUND = "No path to the target was found";
+	private static final String UNKNOWN_START = "The keeper is not on a known cell";
+
+	private final List<Action> availableActions;
+	private final int[] verticalSteps;
+	private final int[] horizontalSteps;
+	private final PositionSet cells = new PositionSet();
+	private final IndexedMinHeap open = new IndexedMinHeap(64);
+	private int[] g = new int[64];
+	private int[] rhs = new int[64];
+	private final int goal;
+
+	// Where the keeper was when the keys were last computed
+	private int lastVertical;
+	private int lastHorizontal;
+	private int km;
+
+	// Known positions already in the graph
+	private int learned;
+
+	private long expansions;
+
+	/**
+	 * A planner to the goal, for a keeper now in start
+	 */
+	DStarLite(Position goal, Position start, List<Action> availableActions) {
+		this.availableActions = availableActions;
+		verticalSteps = new int[availableActions.size()];
+		horizontalSteps = new int[availableActions.size()];
+		for (int a = 0; a < verticalSteps.length; a++) {
+			Position next = MazeUtils.positionAfterAction(availableActions.get(a), new Position(0, 0));
+			verticalSteps[a] = next.getVertical();
+			horizontalSteps[a] = next.getHorizontal();
+		}
+		lastVertical = start.getVertical();
+		lastHorizontal = start.getHorizontal();
+		this.goal = add(goal.getVertical(), goal.getHorizontal());
+		rhs[this.goal] = 0;
+		open.push(this.goal, heuristic(this.goal), 0);
+	}
+
+	/**
+	 * Add to the graph the positions of the list not added yet. The list only
+	 * grows, so the positions from the previous call on are the new ones.
+	 */
+	void learn(List<Position> known, Position keeper) {
+		if (learned == known.size()) {
+			return;
+		}
+		moveTo(keeper);
+		for (; learned < known.size(); learned++) {
+			Position position = known.get(learned);
+			if (cells.indexOf(position.getVertical(), position.getHorizontal()) < 0) {
+				updateVertex(add(position.getVertical(), position.getHorizontal()));
+			}
+		}
+	}
+
+	/**
+	 * First action of a shortest path from the keeper to the goal over the known
+	 * cells, DO_NOTHING on the goal
+	 */
+	Action nextAction(Position keeper) {
+		int start = startOf(keeper);
+		if (start == goal) {
+			return Action.DO_NOTHING;
+		}
+		int best = -1;
+		int bestDistance = INFINITE;
+		for (int a = 0; a < verticalSteps.length; a++) {
+			int neighbour = neighbourOf(start, a);
+			if (neighbour >= 0 && g[neighbour] < bestDistance) {
+				best = a;
+				bestDistance = g[neighbour];
+			}
+		}
+		if (best < 0) {
+			throw new IllegalStateException(NO_PATH_FOUND);
+		}
+		return availableActions.get(best);
+	}
+
+	/**
+	 * Length of a shortest path from the keeper to the goal over the known cells,
+	 * -1 if there is none
+	 */
+	int distance(Position keeper) {
+		int start = startOf(keeper);
+		return g[start] >= INFINITE ? -1 : g[start];
+	}
+
+	/**
+	 * Vertices expanded since the planner was created
+	 */
+	long getExpansions() {
+		return expansions;
+	}
+
+	private int startOf(Position keeper) {
+		moveTo(keeper);
+		int start = cells.indexOf(keeper.getVertical(), keeper.getHorizontal());
+		if (start < 0) {
+			throw new IllegalStateException(UNKNOWN_START);
+		}
+		computeShortestPath(start);
+		return start;
+	}
+
+	/**
+	 * The keys depend on the distance to the keeper, instead of updating them all
+	 * when it moves km grows by the distance moved
+	 */
+	private void moveTo(Position keeper) {
+		km += Math.abs(keeper.getVertical() - lastVertical) + Math.abs(keeper.getHorizontal() - lastHorizontal);
+		lastVertical = keeper.getVertical();
+		lastHorizontal = keeper.getHorizontal();
+	}
+
+	private void computeShortestPath(int start) {
+		while (!open.isEmpty() && (topIsLower(start) || rhs[start] != g[start])) {
+			int u = open.peek();
+			int oldPrimary = open.primaryKey(u);
+			int oldSecondary = open.secondaryKey(u);
+			int newPrimary = primaryKey(u);
+			int newSecondary = secondaryKey(u);
+			expansions++;
+			if (oldPrimary < newPrimary || (oldPrimary == newPrimary && oldSecondary < newSecondary)) {
+				open.update(u, newPrimary, newSecondary);
+			} else if (g[u] > rhs[u]) {
+				g[u] = rhs[u];
+				open.remove(u);
+				updateNeighbours(u);
+			} else {
+				g[u] = INFINITE;
+				updateVertex(u);
+				updateNeighbours(u);
+			}
+		}
+	}
+
+	private boolean topIsLower(int start) {
+		int top = open.peek();
+		int primary = open.primaryKey(top);
+		int startPrimary = primaryKey(start);
+		return primary < startPrimary || (primary == startPrimary && open.secondaryKey(top) < secondaryKey(start));
+	}
+
+	private void updateNeighbours(int u) {
+		for (int a = 0; a < verticalSteps.length; a++) {
+			int neighbour = neighbourOf(u, a);
+			if (neighbour >= 0) {
+				updateVertex(neighbour);
+			}
+		}
+	}
+
+	private void updateVertex(int u) {
+		if (u != goal) {
+			int best = INFINITE;
+			for (int a = 0; a < verticalSteps.length; a++) {
+				int neighbour = neighbourOf(u, a);
+				if (neighbour >= 0) {
+					best = Math.min(best, g[neighbour] + 1);
+				}
+			}
+			rhs[u] = best;
+		}
+		boolean queued = open.contains(u);
+		if (g[u] != rhs[u]) {
+			if (queued) {
+				open.update(u, primaryKey(u), secondaryKey(u));
+			} else {
+				open.push(u, primaryKey(u), secondaryKey(u));
+			}
+		} else if (queued) {
+			open.remove(u);
+		}
+	}
+
+	private int primaryKey(int u) {
+		return Math.min(g[u], rhs[u]) + heuristic(u) + km;
+	}
+
+	private int secondaryKey(int u) {
+		return Math.min(g[u], rhs[u]);
+	}
+
+	private int heuristic(int u) {
+		return Math.abs(cells.vertical(u) - lastVertical) + Math.abs(cells.horizontal(u) - lastHorizontal);
+	}
+
+	private int neighbourOf(int u, int action) {
+		return cells.indexOf(cells.vertical(u) + verticalSteps[action], cells.horizontal(u) + horizontalSteps[action]);
+	}
+
+	private int add(int vertical, int horizontal) {
+		cells.add(vertical, horizontal);
+		int u = cells.size() - 1;
+		if (u == g.length) {
+			g = Arrays.copyOf(g, u * 2);
+			rhs = Arrays.copyOf(rhs, u * 2);
+		}
+		g[u] = INFINITE;
+		rhs[u] = INFINITE;
+		open.ensureCapacity(u + 1);
+		return u;
+	}
+
+}
@@ -0,0 +1,29 @@
+package tws.keeper.solution;
+
+/**
+ * Where the action of a {@link KeeperAI} step came from, as recorded by a
+ * {@link DecisionTracer}
+ *
+ * @author pedro
+ *
+ */
+public enum Decision {
+	/** A key or the door next to the keeper, see MazeUtils.highestProbableAction */
+	PROBABLE_ACTION,
+	/** One of the unvisited directions picked at random */
+	RANDOM,
+	/** Back to the previous position of the depth first stack */
+	BACKTRACK,
+	/** A step of the path to the nearest key or frontier cell */
+	FRONTIER,
+	/** The direction with the best rollouts on forks of the maze, see {@link RolloutExplorer} */
+	ROLLOUT,
+	/** A step of the path to the door planned with A* or Jump Point Search */
+	PLANNED_PATH,
+	/** A step of the path to the door kept up to date by D* Lite */
+	INCREMENTAL_PATH,
+	/** Down the gradient of the distances to the door */
+	GRADIENT,
+	/** No way to the door known, the keeper stays */
+	IDLE
+}
@@ -0,0 +1,201 @@
+package tws.keeper.solution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
+
+/**
+ * The last decisions of a {@link KeeperAI}, one record per step, kept in a ring
+ * buffer of primitive arrays allocated up front. Recording a step writes the
+ * slot and then publishes it with a lazy set of the step count, no lock and no
+ * allocation. The keeper is the only writer. Readers copy the slots and drop
+ * the ones the writer may have overwritten meanwhile, so they never block it.
+ *
+ * @author pedro
+ *
+ */
+public final class DecisionTracer {
+
+	private static final String INVALID_CAPACITY = "Invalid tracer capacity: %d";
+	private static final int MAX_CAPACITY = 1 << 24;
+	private static final long RECORD_BYTES = 23; // Position, nanos, depth, decision, candidates and action
+	private static final Decision[] DECISIONS = Decision.values();
+	private static final Action[] ACTIONS = Action.values();
+
+	private final int mask;
+	private final long[] positions;
+	private final long[] nanos;
+	private final int[] depths;
+	private final byte[] decisions;
+	private final byte[] candidates;
+	private final byte[] actions;
+	private final AtomicLong recorded = new AtomicLong();
+
+	/**
+	 * A tracer keeping the last capacity steps, rounded up to a power of two
+	 */
+	public DecisionTracer(int capacity) {
+		if (capacity < 1 || capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException(String.format(INVALID_CAPACITY, capacity));
+		}
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		size = Math.max(1, size);
+		mask = size - 1;
+		positions = new long[size];
+		nanos = new long[size];
+		depths = new int[size];
+		decisions = new byte[size];
+		candidates = new byte[size];
+		actions = new byte[size];
+	}
+
+	/**
+	 * Record a step taken from the position. The candidates are the directions
+	 * considered, as a {@link Surroundings} mask.
+	 */
+	void record(Position position, Decision decision, int directions, Action action, long elapsedNanos, int depth) {
+		long step = recorded.get();
+		int slot = (int) step & mask;
+		positions[slot] = Coordinates.pack(position);
+		nanos[slot] = elapsedNanos;
+		depths[slot] = depth;
+		decisions[slot] = (byte) decision.ordinal();
+		candidates[slot] = (byte) directions;
+		actions[slot] = (byte) action.ordinal();
+		recorded.lazySet(step + 1);
+	}
+
+	/**
+	 * Number of steps recorded since the tracer was created, the older ones are
+	 * overwritten
+	 */
+	public long getRecorded() {
+		return recorded.get();
+	}
+
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Bytes of the arrays, allocated up front
+	 */
+	public long getFootprintBytes() {
+		return getCapacity() * RECORD_BYTES;
+	}
+
+	/**
+	 * The last records, at most count of them, oldest first
+	 */
+	public List<Record> last(int count) {
+		long end = recorded.get();
+		long start = Math.max(0, end - Math.min(Math.max(count, 0), getCapacity()));
+		List<Record> records = new ArrayList<>((int) (end - start));
+		for (long step = start; step < end; step++) {
+			int slot = (int) step & mask;
+			records.add(new Record(step, Coordinates.toPosition(positions[slot]), DECISIONS[decisions[slot]],
+					candidates[slot], ACTIONS[actions[slot]], nanos[slot], depths[slot]));
+		}
+		// The slots of the steps recorded meanwhile, and of the one being written, may hold newer records
+		long overwritten = recorded.get() + 1 - getCapacity();
+		int stale = (int) Math.min(records.size(), Math.max(0, overwritten - start));
+		return Collections.unmodifiableList(records.subList(stale, records.size()));
+	}
+
+	/**
+	 * The last records as a json object, along with how many were recorded
+	 */
+	public String toJson(int count) {
+		return "{\"recorded\":" + getRecorded() + ",\"records\":["
+				+ last(count).stream().map(Record::toJson).collect(Collectors.joining(",")) + "]}";
+	}
+
+	/**
+	 * A step of the keeper and why it was taken
+	 */
+	public static final class Record {
+
+		private final long step;
+		private final Position position;
+		private final Decision decision;
+		private final int candidates;
+		private final Action action;
+		private final long nanos;
+		private final int depth;
+
+		private Record(long step, Position position, Decision decision, int candidates, Action action, long nanos,
+				int depth) {
+			this.step = step;
+			this.position = position;
+			this.decision = decision;
+			this.candidates = candidates;
+			this.action = action;
+			this.nanos = nanos;
+			this.depth = depth;
+		}
+
+		/**
+		 * Number of the step, from 0
+		 */
+		public long getStep() {
+			return step;
+		}
+
+		/**
+		 * Where the keeper was when it decided
+		 */
+		public Position getPosition() {
+			return position;
+		}
+
+		public Decision getDecision() {
+			return decision;
+		}
+
+		/**
+		 * The directions considered, as a {@link Surroundings} mask
+		 */
+		public int getCandidates() {
+			return candidates;
+		}
+
+		public Action getAction() {
+			return action;
+		}
+
+		/**
+		 * Time spent deciding, including what the keeper learned on the step
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+
+		/**
+		 * Positions in the depth first stack, steps left of the path being
+		 * followed, or rollouts played, 0 when there is none
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		public String toJson() {
+			StringBuilder directions = new StringBuilder();
+			for (Action candidate : ACTIONS) {
+				if (candidate != Action.DO_NOTHING && Surroundings.contains(candidates, candidate)) {
+					directions.append(directions.length() == 0 ? "\"" : ",\"").append(candidate).append('"');
+				}
+			}
+			return "{\"step\":" + step + ",\"keeper\":" + position.toJson() + ",\"decision\":\"" + decision
+					+ "\",\"candidates\":[" + directions + "],\"action\":\"" + action + "\",\"nanos\":" + nanos
+					+ ",\"depth\":" + depth + "}";
+		}
+
+	}
+
+}
@@ -0,0 +1,31 @@
+package tws.keeper.solution;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+
+/**
+ * Read only view of the distances to a goal over the known cells of a maze.
+ * Following its gradient costs O(1) per step and no planning. A field may be
+ * updated in place by the keeper that owns it, so the keepers that share it
+ * must be played on the thread that updates it.
+ *
+ * @author pedro
+ *
+ */
+public interface DistanceField {
+
+	/**
+	 * Steps of a shortest path from the position to the goal over the known cells,
+	 * -1 if the position is not known or not connected to the goal
+	 */
+	int distance(Position position);
+
+	/**
+	 * The action to a neighbour one step closer to the goal, DO_NOTHING on the
+	 * goal
+	 *
+	 * @throws IllegalStateException if the position is not connected to the goal
+	 */
+	Action nextAction(Position position);
+
+}
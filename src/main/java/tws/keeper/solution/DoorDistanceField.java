@@ -0,0 +1,194 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+import java.util.List;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+
+/**
+ * Breadth first distances from the door to every known cell, kept in a
+ * {@link LongIntMap} from packed {@link Coordinates}. The entry index of a cell
+ * is its id, so neighbours are hashed once and then read by index. The known
+ * cells only grow, so a new cell can only shorten distances: it takes the
+ * distance of its closest known neighbour plus one, and the cells it brings
+ * closer are relaxed from it in first in first out order. The work of an
+ * update is the cells whose distance changed, not the whole field.
+ * <p>
+ * The field is updated in place without synchronization, as the rest of the
+ * keeper that owns it. Other keepers read it through {@link #readOnly()},
+ * which only answers on the thread that last updated the field and throws on
+ * any other one, rather than racing with an update.
+ *
+ * @author pedro
+ *
+ */
+class DoorDistanceField implements DistanceField {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+	private static final String NOT_REACHED = "The position is not connected to the door: %s";
+	private static final String WRONG_THREAD = "The field is updated on %s, not on %s";
+
+	private final List<Action> availableActions;
+	private final int[] verticalSteps;
+	private final int[] horizontalSteps;
+	private final LongIntMap distances = new LongIntMap();
+	private final DistanceField readOnly = new ConfinedView();
+
+	// Thread of the last update, the only one the read only view answers on
+	private volatile Thread updater = Thread.currentThread();
+
+	// Cells whose distance decreased and whose neighbours are still to relax
+	private int[] queue = new int[64];
+	private int head;
+	private int tail;
+
+	// Known positions already in the field
+	private int learned;
+
+	DoorDistanceField(Position door, List<Action> availableActions) {
+		this.availableActions = availableActions;
+		verticalSteps = new int[availableActions.size()];
+		horizontalSteps = new int[availableActions.size()];
+		for (int a = 0; a < verticalSteps.length; a++) {
+			Position next = MazeUtils.positionAfterAction(availableActions.get(a), new Position(0, 0));
+			verticalSteps[a] = next.getVertical();
+			horizontalSteps[a] = next.getHorizontal();
+		}
+		distances.put(Coordinates.pack(door), 0);
+	}
+
+	/**
+	 * Add to the field the positions of the list not added yet. The list only
+	 * grows, so the positions from the previous call on are the new ones.
+	 */
+	void learn(List<Position> known) {
+		updater = Thread.currentThread();
+		for (; learned < known.size(); learned++) {
+			Position position = known.get(learned);
+			long packed = Coordinates.pack(position);
+			if (distances.containsKey(packed)) {
+				continue;
+			}
+			int cell = distances.put(packed, UNREACHED);
+			int distance = UNREACHED;
+			for (int a = 0; a < verticalSteps.length; a++) {
+				int neighbour = neighbourOf(cell, a);
+				if (neighbour >= 0 && distances.valueAt(neighbour) != UNREACHED) {
+					distance = Math.min(distance, distances.valueAt(neighbour) + 1);
+				}
+			}
+			if (distance != UNREACHED) {
+				distances.setValueAt(cell, distance);
+				enqueue(cell);
+			}
+		}
+		relax();
+	}
+
+	@Override
+	public int distance(Position position) {
+		int distance = distances.get(Coordinates.pack(position), UNREACHED);
+		return distance == UNREACHED ? -1 : distance;
+	}
+
+	@Override
+	public Action nextAction(Position position) {
+		int cell = distances.indexOf(Coordinates.pack(position));
+		if (cell < 0 || distances.valueAt(cell) == UNREACHED) {
+			throw new IllegalStateException(String.format(NOT_REACHED, position));
+		}
+		int distance = distances.valueAt(cell);
+		if (distance == 0) {
+			return Action.DO_NOTHING;
+		}
+		for (int a = 0; a < verticalSteps.length; a++) {
+			int neighbour = neighbourOf(cell, a);
+			if (neighbour >= 0 && distances.valueAt(neighbour) == distance - 1) {
+				return availableActions.get(a);
+			}
+		}
+		throw new IllegalStateException(String.format(NOT_REACHED, position));
+	}
+
+	/**
+	 * The field for keepers other than its owner, played on the thread of the
+	 * owner
+	 */
+	DistanceField readOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Number of cells in the field, reached or not
+	 */
+	int size() {
+		return distances.size();
+	}
+
+	/**
+	 * Propagate the decreased distances until no neighbour can be shortened
+	 */
+	private void relax() {
+		while (head != tail) {
+			int cell = queue[head++];
+			int next = distances.valueAt(cell) + 1;
+			for (int a = 0; a < verticalSteps.length; a++) {
+				int neighbour = neighbourOf(cell, a);
+				if (neighbour >= 0 && distances.valueAt(neighbour) > next) {
+					distances.setValueAt(neighbour, next);
+					enqueue(neighbour);
+				}
+			}
+		}
+		head = 0;
+		tail = 0;
+	}
+
+	private void enqueue(int cell) {
+		if (tail == queue.length) {
+			if (head > 0) {
+				System.arraycopy(queue, head, queue, 0, tail - head);
+				tail -= head;
+				head = 0;
+			} else {
+				queue = Arrays.copyOf(queue, queue.length * 2);
+			}
+		}
+		queue[tail++] = cell;
+	}
+
+	private int neighbourOf(int cell, int action) {
+		long packed = distances.keyAt(cell);
+		return distances.indexOf(Coordinates.pack(Coordinates.vertical(packed) + verticalSteps[action],
+				Coordinates.horizontal(packed) + horizontalSteps[action]));
+	}
+
+	/**
+	 * Reads of the field checked to happen on the thread that updates it
+	 */
+	private class ConfinedView implements DistanceField {
+
+		@Override
+		public int distance(Position position) {
+			checkThread();
+			return DoorDistanceField.this.distance(position);
+		}
+
+		@Override
+		public Action nextAction(Position position) {
+			checkThread();
+			return DoorDistanceField.this.nextAction(position);
+		}
+
+		private void checkThread() {
+			Thread owner = updater;
+			if (Thread.currentThread() != owner) {
+				throw new IllegalStateException(
+						String.format(WRONG_THREAD, owner.getName(), Thread.currentThread().getName()));
+			}
+		}
+
+	}
+
+}
@@ -1,31 +1,36 @@
 package tws.keeper.solution;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
 
+import tws.keeper.metrics.Metrics;
 import tws.keeper.model.Action;
 import tws.keeper.model.Observable;
 import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
 
 /**
  * This class contains the exploratory mode of the keeper. The implementation is
  * based on a stack that stores the current path and the way back to other
  * alternative paths. We know if a path was not visited storing the already
- * visited nodes in a separate list.
+ * visited nodes in a separate list. The surroundings are looked at once per
+ * step and handled as masks of directions, and the positions in the stack and
+ * the visited set are packed {@link Coordinates}, so a step allocates nothing
+ * once they have grown.
  * 
  * @author pedro
  *
  */
-public class ExploratoryAlgorithm {
+public class ExploratoryAlgorithm implements Explorer {
 
 	private Position doorPosition;
 	private Observable maze;
 	private List<Action> availableActions;
-	private List<Position> visitedPositions;
-	private Stack<Position> openPath;
+	private PositionSet visitedPositions;
+	private LongStack openPath;
+	private SplittableRandom random;
+	private Decision lastDecision;
+	private int lastCandidates;
 
 	private static final String MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED = "All the nodes have been visited. However, the game was not successful.";
 
@@ -35,11 +40,20 @@ public class ExploratoryAlgorithm {
 	}
 
 	public ExploratoryAlgorithm(Observable maze, List<Action> availableActions) {
+		this(maze, availableActions, new SplittableRandom());
+	}
+
+	/**
+	 * An explorer whose random choices come from this generator, the same seed
+	 * makes the same choices on the same maze
+	 */
+	public ExploratoryAlgorithm(Observable maze, List<Action> availableActions, SplittableRandom random) {
 		this();
-		this.visitedPositions = new ArrayList<>();
+		this.random = random;
+		this.visitedPositions = new PositionSet();
 		this.maze = maze;
 		this.availableActions = availableActions;
-		this.openPath = new Stack<>();
+		this.openPath = new LongStack();
 		this.doorPosition = null;
 	}
 
@@ -53,71 +67,134 @@ public class ExploratoryAlgorithm {
 	 * 
 	 * @return
 	 */
+	@Override
 	public Action getNextAction() {
-		// Checking if it is an already visited position
-		List<Position> possibleNextPositions = MazeUtils.possibleNextPositions(maze, availableActions, doorPosition);
-		possibleNextPositions.removeAll(visitedPositions);
+		Position keeperPosition = maze.getKeeperPosition();
+		int surroundings = maze.lookAround();
 
-		if (possibleNextPositions.isEmpty()) {
+		// Just taking into account those actions that were not visited yet
+		int unvisited = unvisitedDirections(keeperPosition, Surroundings.free(surroundings));
+
+		if (unvisited == 0) {
 			if (openPath.isEmpty()) {
 				throw new IllegalStateException(MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED);
 			}
 
 			// Going on step back in the stack
-			return MazeUtils.actionForGoing(maze.getKeeperPosition(), openPath.pop(), availableActions);
+			Metrics.BACKTRACK_STEPS.increment();
+			Action back = MazeUtils.actionForGoing(Coordinates.pack(keeperPosition), openPath.pop(), availableActions);
+			lastDecision = Decision.BACKTRACK;
+			lastCandidates = 1 << back.ordinal();
+			return back;
 		} else {
 			// Adding the position to the stack
-			openPath.push(maze.getKeeperPosition());
-
-			// @formatter:off 
-			// Just taking into account those actions that were not visited yet
-			List<Action> possibleActions = MazeUtils.possibleActions(maze, availableActions).stream()
-					.filter(action -> !visitedPositions.contains(MazeUtils.positionAfterAction(action, maze.getKeeperPosition())))
-					.collect(Collectors.toList());
-			// @formatter:on 
+			Metrics.FORWARD_STEPS.increment();
+			openPath.push(Coordinates.pack(keeperPosition));
 
 			// Storing door position if we can
 			if (!doorPositionIsKnown()) {
-				doorPosition = MazeUtils.getDoorPosition(maze, availableActions);
+				doorPosition = MazeUtils.getDoorPosition(surroundings, keeperPosition, availableActions);
 			}
 
 			// Getting highest probable action if any
-			Action highestProbableAction = MazeUtils.highestProbableAction(maze, availableActions, doorPosition);
+			Action highestProbableAction = MazeUtils.highestProbableAction(surroundings, !allKeysAreFound(),
+					availableActions, doorPosition);
+			lastCandidates = unvisited;
 			if (highestProbableAction != null) {
+				lastDecision = Decision.PROBABLE_ACTION;
 				return highestProbableAction;
 			}
 
 			// Choosing one action randomly
-			return possibleActions.get(ThreadLocalRandom.current().nextInt(possibleActions.size()));
+			lastDecision = Decision.RANDOM;
+			return nthAction(unvisited, random.nextInt(Integer.bitCount(unvisited)));
+		}
+	}
+
+	/**
+	 * The free directions that lead to a position not visited yet
+	 */
+	private int unvisitedDirections(Position keeperPosition, int free) {
+		int unvisited = 0;
+		for (int a = 0; a < availableActions.size(); a++) {
+			Action action = availableActions.get(a);
+			if (Surroundings.contains(free, action)
+					&& !visitedPositions.contains(keeperPosition.getVertical() + MazeUtils.verticalStep(action),
+							keeperPosition.getHorizontal() + MazeUtils.horizontalStep(action))) {
+				unvisited |= 1 << action.ordinal();
+			}
+		}
+		return unvisited;
+	}
+
+	/**
+	 * The available action in the set of directions that comes n-th in the order
+	 * of the available actions
+	 */
+	private Action nthAction(int directions, int n) {
+		for (int a = 0; a < availableActions.size(); a++) {
+			if (Surroundings.contains(directions, availableActions.get(a)) && n-- == 0) {
+				return availableActions.get(a);
+			}
 		}
+		throw new IllegalStateException(MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED);
 	}
 
+	@Override
 	public boolean doorPositionIsKnown() {
 		return doorPosition != null;
 	}
 
+	@Override
 	public boolean allKeysAreFound() {
 		return maze.getKeysFound() == maze.getTotalNumberOfKeys();
 	}
 
+	@Override
 	public void addVisitedPosition() {
 		visitedPositions.add(maze.getKeeperPosition());
 	}
 
+	@Override
 	public Observable getMaze() {
 		return maze;
 	}
 
+	@Override
 	public Position getDoorPosition() {
 		return doorPosition;
 	}
 
+	/**
+	 * The positions visited, each once in the order they were first visited. The
+	 * list is a read-only view.
+	 */
+	@Override
 	public List<Position> getVisitedPositions() {
-		return visitedPositions;
+		return visitedPositions.asList();
 	}
 
+	@Override
 	public List<Action> getAvailableActions() {
 		return availableActions;
 	}
 
+	@Override
+	public Decision getLastDecision() {
+		return lastDecision;
+	}
+
+	/**
+	 * The unvisited directions, or the way back when backtracking
+	 */
+	@Override
+	public int getLastCandidates() {
+		return lastCandidates;
+	}
+
+	@Override
+	public int getDepth() {
+		return openPath.size();
+	}
+
 }
@@ -0,0 +1,61 @@
+package tws.keeper.solution;
+
+import java.util.List;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Observable;
+import tws.keeper.model.Position;
+
+/**
+ * How the keeper looks for the keys and the door. It learns from the maze at
+ * every step and tells what is known to {@link StarAlgorithm} once it is time
+ * to go to the door.
+ *
+ * @author pedro
+ *
+ */
+public interface Explorer {
+
+	/**
+	 * Learn from the current keeper position, called once per step
+	 */
+	void addVisitedPosition();
+
+	/**
+	 * The next action to find the remaining keys and the door
+	 */
+	Action getNextAction();
+
+	boolean doorPositionIsKnown();
+
+	boolean allKeysAreFound();
+
+	Observable getMaze();
+
+	Position getDoorPosition();
+
+	/**
+	 * Positions known to be free, the paths to the door are made of them
+	 */
+	List<Position> getVisitedPositions();
+
+	List<Action> getAvailableActions();
+
+	/**
+	 * Where the last action of {@link #getNextAction()} came from
+	 */
+	Decision getLastDecision();
+
+	/**
+	 * The directions the last action was chosen among, as a
+	 * {@link tws.keeper.model.Surroundings} mask
+	 */
+	int getLastCandidates();
+
+	/**
+	 * Positions in the depth first stack, steps left of the path being followed,
+	 * or rollouts played for the last action
+	 */
+	int getDepth();
+
+}
@@ -0,0 +1,229 @@
+package tws.keeper.solution;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Cell;
+import tws.keeper.model.Observable;
+import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
+
+/**
+ * Exploration towards the nearest frontier. Every cell seen around the keeper
+ * is recorded in a {@link KnowledgeMap}; the frontier are the free cells seen
+ * but not stood on yet, whose surroundings are unknown. A breadth first search
+ * over the known free cells finds the nearest key not picked up or, if none is
+ * known, the nearest frontier cell. The path found is followed until something
+ * new is seen, so the search runs when the keeper reaches the unknown and not
+ * while it crosses known ground.
+ *
+ * @author pedro
+ *
+ */
+public class FrontierExplorationAlgorithm implements Explorer {
+
+	private static final String MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED = "All the nodes have been visited. However, the game was not successful.";
+	private static final int NOT_REACHED = -1;
+	private static final int START = -2;
+
+	private final Observable maze;
+	private final List<Action> availableActions;
+	private final KnowledgeMap knowledge;
+	private final Deque<Action> plan = new ArrayDeque<>();
+	private Position doorPosition;
+	private boolean learned;
+	private int free;
+
+	// Breadth first search, sized for the knowledge map. A cell was reached in
+	// the current search if its mark is the current one, so nothing is cleared.
+	private int[] queue = new int[0];
+	private int[] reachedBy = new int[0];
+	private int[] marks = new int[0];
+	private int mark;
+
+	public FrontierExplorationAlgorithm(Observable maze, List<Action> availableActions) {
+		this.maze = maze;
+		this.availableActions = availableActions;
+		this.knowledge = new KnowledgeMap(maze.getKeeperPosition());
+	}
+
+	/**
+	 * Record the keeper position and the four cells around it
+	 */
+	@Override
+	public void addVisitedPosition() {
+		Position keeper = maze.getKeeperPosition();
+		knowledge.visit(keeper);
+		int surroundings = maze.lookAround();
+		free = Surroundings.free(surroundings);
+		for (int a = 0; a < availableActions.size(); a++) {
+			Action action = availableActions.get(a);
+			int vertical = keeper.getVertical() + MazeUtils.verticalStep(action);
+			int horizontal = keeper.getHorizontal() + MazeUtils.horizontalStep(action);
+			Cell cell = Surroundings.get(surroundings, action);
+			if (knowledge.learn(vertical, horizontal, cell)) {
+				learned = true;
+				if (cell == Cell.DOOR) {
+					doorPosition = new Position(vertical, horizontal);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The next step of the path to the nearest key or frontier cell, searched again
+	 * when the path is over or something new was seen
+	 */
+	@Override
+	public Action getNextAction() {
+		if (plan.isEmpty() || learned) {
+			plan.clear();
+			planToNearestTarget();
+			learned = false;
+		}
+		if (plan.isEmpty()) {
+			throw new IllegalStateException(MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED);
+		}
+		return plan.poll();
+	}
+
+	@Override
+	public boolean doorPositionIsKnown() {
+		return doorPosition != null;
+	}
+
+	@Override
+	public boolean allKeysAreFound() {
+		return maze.getKeysFound() == maze.getTotalNumberOfKeys();
+	}
+
+	@Override
+	public Observable getMaze() {
+		return maze;
+	}
+
+	@Override
+	public Position getDoorPosition() {
+		return doorPosition;
+	}
+
+	/**
+	 * Every free cell seen, stood on or not. The door is among them once seen.
+	 */
+	@Override
+	public List<Position> getVisitedPositions() {
+		return knowledge.freePositions();
+	}
+
+	@Override
+	public List<Action> getAvailableActions() {
+		return availableActions;
+	}
+
+	@Override
+	public Decision getLastDecision() {
+		return Decision.FRONTIER;
+	}
+
+	/**
+	 * The directions that do not lead to a wall
+	 */
+	@Override
+	public int getLastCandidates() {
+		return free;
+	}
+
+	/**
+	 * Steps left of the path to the nearest key or frontier cell
+	 */
+	@Override
+	public int getDepth() {
+		return plan.size();
+	}
+
+	/**
+	 * Number of cells seen
+	 */
+	public int getKnownCells() {
+		return knowledge.known();
+	}
+
+	/**
+	 * Breadth first search from the keeper over the known free cells. Stops at the
+	 * first key found, otherwise goes to the first frontier cell found. Keys are
+	 * only looked for when one was seen and not picked up, so the search usually
+	 * ends at the nearest frontier cell.
+	 */
+	private void planToNearestTarget() {
+		int start = knowledge.indexOf(maze.getKeeperPosition());
+		int cells = knowledge.height() * knowledge.width();
+		if (marks.length != cells) {
+			// The map grew, indexes changed
+			queue = new int[cells];
+			reachedBy = new int[cells];
+			marks = new int[cells];
+			mark = 0;
+		}
+		if (++mark == 0) {
+			Arrays.fill(marks, 0);
+			mark = 1;
+		}
+		int[] steps = steps();
+		boolean keysLeft = !allKeysAreFound() && knowledge.keysToVisit() > 0;
+
+		int head = 0;
+		int tail = 0;
+		int frontier = NOT_REACHED;
+		int target = NOT_REACHED;
+		queue[tail++] = start;
+		marks[start] = mark;
+		reachedBy[start] = START;
+		while (head < tail) {
+			int cell = queue[head++];
+			if (cell != start && !knowledge.isVisited(cell)) {
+				if (keysLeft && knowledge.kind(cell) == KnowledgeMap.KEY) {
+					target = cell;
+					break;
+				}
+				if (frontier == NOT_REACHED) {
+					frontier = cell;
+					if (!keysLeft) {
+						break;
+					}
+				}
+				// The surroundings of a frontier cell are unknown, nothing to expand
+				continue;
+			}
+			for (int a = 0; a < steps.length; a++) {
+				int next = cell + steps[a];
+				if (marks[next] != mark && knowledge.isFree(next)) {
+					marks[next] = mark;
+					reachedBy[next] = a;
+					queue[tail++] = next;
+				}
+			}
+		}
+		if (target == NOT_REACHED) {
+			target = frontier;
+		}
+		for (int cell = target; cell != NOT_REACHED && reachedBy[cell] != START; cell -= steps[reachedBy[cell]]) {
+			plan.push(availableActions.get(reachedBy[cell]));
+		}
+	}
+
+	/**
+	 * Index offset of each available action in the knowledge map
+	 */
+	private int[] steps() {
+		int[] steps = new int[availableActions.size()];
+		for (int a = 0; a < steps.length; a++) {
+			Position next = MazeUtils.positionAfterAction(availableActions.get(a), new Position(0, 0));
+			steps[a] = next.getVertical() * knowledge.width() + next.getHorizontal();
+		}
+		return steps;
+	}
+
+}
@@ -0,0 +1,204 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over integer elements in the range [0, capacity). Every
+ * element is ordered by a primary key, then by a secondary key and finally by
+ * insertion order, so elements with equal keys are polled in the same order
+ * they were pushed. The position of each element in the heap is indexed, which
+ * gives O(1) membership checks and O(log n) key updates and removals.
+ *
+ * @author pedro
+ *
+ */
+class IndexedMinHeap {
+
+	private static final int ABSENT = -1;
+
+	private int[] heap;
+	private int[] heapIndex;
+	private int[] primary;
+	private int[] secondary;
+	private long[] order;
+	private long pushes;
+	private int size;
+
+	IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		heapIndex = new int[capacity];
+		primary = new int[capacity];
+		secondary = new int[capacity];
+		order = new long[capacity];
+		Arrays.fill(heapIndex, ABSENT);
+	}
+
+	/**
+	 * Makes room for the elements up to capacity - 1
+	 *
+	 * @param capacity
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity > heapIndex.length) {
+			int previous = heapIndex.length;
+			int grown = Math.max(capacity, previous * 2);
+			heap = Arrays.copyOf(heap, grown);
+			heapIndex = Arrays.copyOf(heapIndex, grown);
+			primary = Arrays.copyOf(primary, grown);
+			secondary = Arrays.copyOf(secondary, grown);
+			order = Arrays.copyOf(order, grown);
+			Arrays.fill(heapIndex, previous, grown, ABSENT);
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int element) {
+		return heapIndex[element] != ABSENT;
+	}
+
+	/**
+	 * Adds an element that is not yet in the heap
+	 *
+	 * @param element
+	 * @param primaryKey
+	 * @param secondaryKey
+	 */
+	void push(int element, int primaryKey, int secondaryKey) {
+		primary[element] = primaryKey;
+		secondary[element] = secondaryKey;
+		order[element] = pushes++;
+		heap[size] = element;
+		heapIndex[element] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lowers the keys of an element already in the heap. The element keeps its
+	 * original insertion order for tie breaking
+	 *
+	 * @param element
+	 * @param primaryKey
+	 * @param secondaryKey
+	 */
+	void decrease(int element, int primaryKey, int secondaryKey) {
+		primary[element] = primaryKey;
+		secondary[element] = secondaryKey;
+		siftUp(heapIndex[element]);
+	}
+
+	/**
+	 * Changes the keys of an element already in the heap, up or down. The element
+	 * keeps its original insertion order for tie breaking
+	 *
+	 * @param element
+	 * @param primaryKey
+	 * @param secondaryKey
+	 */
+	void update(int element, int primaryKey, int secondaryKey) {
+		primary[element] = primaryKey;
+		secondary[element] = secondaryKey;
+		siftUp(heapIndex[element]);
+		siftDown(heapIndex[element]);
+	}
+
+	/**
+	 * The element with the lowest keys, the heap must not be empty
+	 *
+	 * @return
+	 */
+	int peek() {
+		return heap[0];
+	}
+
+	int primaryKey(int element) {
+		return primary[element];
+	}
+
+	int secondaryKey(int element) {
+		return secondary[element];
+	}
+
+	/**
+	 * Removes and returns the element with the lowest keys
+	 *
+	 * @return
+	 */
+	int poll() {
+		int lowest = heap[0];
+		remove(lowest);
+		return lowest;
+	}
+
+	/**
+	 * Removes an element already in the heap
+	 *
+	 * @param element
+	 */
+	void remove(int element) {
+		int index = heapIndex[element];
+		heapIndex[element] = ABSENT;
+		if (--size > index) {
+			int moved = heap[size];
+			heap[index] = moved;
+			heapIndex[moved] = index;
+			siftUp(index);
+			siftDown(heapIndex[moved]);
+		}
+	}
+
+	private void siftUp(int index) {
+		int element = heap[index];
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			int parent = heap[parentIndex];
+			if (!lower(element, parent)) {
+				break;
+			}
+			heap[index] = parent;
+			heapIndex[parent] = index;
+			index = parentIndex;
+		}
+		heap[index] = element;
+		heapIndex[element] = index;
+	}
+
+	private void siftDown(int index) {
+		int element = heap[index];
+		int half = size >>> 1;
+		while (index < half) {
+			int childIndex = 2 * index + 1;
+			int child = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && lower(heap[rightIndex], child)) {
+				childIndex = rightIndex;
+				child = heap[childIndex];
+			}
+			if (!lower(child, element)) {
+				break;
+			}
+			heap[index] = child;
+			heapIndex[child] = index;
+			index = childIndex;
+		}
+		heap[index] = element;
+		heapIndex[element] = index;
+	}
+
+	private boolean lower(int a, int b) {
+		if (primary[a] != primary[b]) {
+			return primary[a] < primary[b];
+		}
+		if (secondary[a] != secondary[b]) {
+			return secondary[a] < secondary[b];
+		}
+		return order[a] < order[b];
+	}
+
+}
@@ -0,0 +1,226 @@
+package tws.keeper.solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+
+/**
+ * Jump Point Search (Harabor and Grastien, 2011) for grids where the keeper
+ * only moves in four directions. It is A* over the same {@link KnownArea} as
+ * {@link StarAlgorithm}, but instead of pushing every neighbour it scans in a
+ * straight line until a cell where a shortest path may turn: one with a free
+ * side cell whose cell behind is blocked, or the target. Only those jump points
+ * enter the open set, so the symmetric paths of open areas are not expanded
+ * one by one. The scans of a vertical move also look sideways, which is what
+ * keeps the search complete without diagonal moves.
+ *
+ * The paths are shortest ones, as long as the ones of {@link StarAlgorithm},
+ * though not always the same actions.
+ *
+ * @author pedro
+ *
+ */
+public class JumpPointSearch {
+
+	private static final int NO_PARENT = -1;
+	private static final String NO_PATH_FOUND = "No path to the target was found";
+	private static final int[] EVERY_DIRECTION = { 1, 0, 0, -1, 0, 1, -1, 0 };
+
+	private final Explorer observableUtils;
+	private final int[] directions = new int[8];
+
+	private long expansions;
+
+	// State of the current search
+	private KnownArea area;
+	private int targetVertical;
+	private int targetHorizontal;
+
+	public JumpPointSearch(Explorer mazeUtils) {
+		this.observableUtils = mazeUtils;
+	}
+
+	/**
+	 * A shortest list of actions from the keeper to the door over the known cells
+	 */
+	public List<Action> createPath() {
+		Position startPosition = observableUtils.getMaze().getKeeperPosition();
+		Position targetPosition = observableUtils.getDoorPosition();
+		area = new KnownArea(observableUtils.getVisitedPositions(), startPosition, targetPosition);
+		int cells = area.cells();
+		targetVertical = targetPosition.getVertical();
+		targetHorizontal = targetPosition.getHorizontal();
+
+		int start = area.cellOf(startPosition);
+		int target = area.cellOf(targetPosition);
+
+		// Per jump point data, the parent is the previous jump point in line with it
+		int[] gCost = new int[cells];
+		int[] parent = new int[cells];
+		Arrays.fill(parent, NO_PARENT);
+		BitSet closed = new BitSet(cells);
+		IndexedMinHeap open = new IndexedMinHeap(cells);
+		int startH = StarAlgorithm.distance(startPosition.getVertical(), startPosition.getHorizontal(), targetVertical,
+				targetHorizontal);
+		open.push(start, startH, startH);
+
+		while (!open.isEmpty()) {
+			int current = open.poll();
+			expansions++;
+			closed.set(current);
+
+			if (current == target) {
+				return extractPath(start, target, parent);
+			}
+
+			int vertical = area.verticalOf(current);
+			int horizontal = area.horizontalOf(current);
+			int scans = directionsFrom(vertical, horizontal, parent[current]);
+			for (int d = 0; d < scans; d += 2) {
+				int jumpPoint = jump(vertical, horizontal, directions[d], directions[d + 1]);
+				if (jumpPoint == KnownArea.NO_CELL || closed.get(jumpPoint)) {
+					continue;
+				}
+
+				int jumpVertical = area.verticalOf(jumpPoint);
+				int jumpHorizontal = area.horizontalOf(jumpPoint);
+				int jumpG = gCost[current]
+						+ StarAlgorithm.distance(vertical, horizontal, jumpVertical, jumpHorizontal);
+				boolean reached = open.contains(jumpPoint);
+				if (reached && jumpG >= gCost[jumpPoint]) {
+					continue;
+				}
+
+				gCost[jumpPoint] = jumpG;
+				parent[jumpPoint] = current;
+				int hCost = StarAlgorithm.distance(jumpVertical, jumpHorizontal, targetVertical, targetHorizontal);
+				if (reached) {
+					open.decrease(jumpPoint, jumpG + hCost, hCost);
+				} else {
+					open.push(jumpPoint, jumpG + hCost, hCost);
+				}
+			}
+		}
+
+		throw new IllegalStateException(NO_PATH_FOUND);
+	}
+
+	/**
+	 * Jump points taken out of the open set by the searches of this instance
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/**
+	 * The directions worth scanning from a jump point, as pairs of vertical and
+	 * horizontal steps. From the start every free neighbour; otherwise straight
+	 * on and both sides of the direction it was reached from, the cell behind is
+	 * reached better through the parent. They are left in {@link #directions},
+	 * the number of steps written is returned.
+	 */
+	private int directionsFrom(int vertical, int horizontal, int parent) {
+		if (parent == NO_PARENT) {
+			System.arraycopy(EVERY_DIRECTION, 0, directions, 0, EVERY_DIRECTION.length);
+			return EVERY_DIRECTION.length;
+		}
+		int verticalStep = Integer.signum(vertical - area.verticalOf(parent));
+		int horizontalStep = Integer.signum(horizontal - area.horizontalOf(parent));
+		directions[0] = verticalStep;
+		directions[1] = horizontalStep;
+		for (int side = 0, sense = -1; side < 2; side++, sense += 2) {
+			directions[2 + 2 * side] = horizontalStep != 0 ? sense : 0;
+			directions[3 + 2 * side] = horizontalStep != 0 ? 0 : sense;
+		}
+		return 6;
+	}
+
+	/**
+	 * Scan from a cell in a direction, the first jump point found or
+	 * {@link KnownArea#NO_CELL} when the scan hits a blocked cell first
+	 */
+	private int jump(int vertical, int horizontal, int verticalStep, int horizontalStep) {
+		while (true) {
+			vertical += verticalStep;
+			horizontal += horizontalStep;
+			if (!area.isTraversable(vertical, horizontal)) {
+				return KnownArea.NO_CELL;
+			}
+			if (isTarget(vertical, horizontal)) {
+				return area.cellOf(vertical, horizontal);
+			}
+			if (horizontalStep != 0) {
+				if (hasForcedNeighbour(vertical, horizontal, 1, 0, -horizontalStep)) {
+					return area.cellOf(vertical, horizontal);
+				}
+			} else if (hasForcedNeighbour(vertical, horizontal, 0, 1, -verticalStep)
+					|| reachesJumpPointSideways(vertical, horizontal, 1)
+					|| reachesJumpPointSideways(vertical, horizontal, -1)) {
+				return area.cellOf(vertical, horizontal);
+			}
+		}
+	}
+
+	/**
+	 * Whether a side of a cell, along (sideVertical, sideHorizontal) in both
+	 * senses, is free while the cell behind that side cell is blocked. A shortest
+	 * path may turn into such a side cell here, so the scan has to stop.
+	 */
+	private boolean hasForcedNeighbour(int vertical, int horizontal, int sideVertical, int sideHorizontal, int back) {
+		int backVertical = sideHorizontal * back;
+		int backHorizontal = sideVertical * back;
+		for (int sense = -1; sense <= 1; sense += 2) {
+			int v = vertical + sense * sideVertical;
+			int h = horizontal + sense * sideHorizontal;
+			if (area.isTraversable(v, h) && !area.isTraversable(v + backVertical, h + backHorizontal)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether a horizontal scan from a cell finds a jump point
+	 */
+	private boolean reachesJumpPointSideways(int vertical, int horizontal, int horizontalStep) {
+		while (true) {
+			horizontal += horizontalStep;
+			if (!area.isTraversable(vertical, horizontal)) {
+				return false;
+			}
+			if (isTarget(vertical, horizontal) || hasForcedNeighbour(vertical, horizontal, 1, 0, -horizontalStep)) {
+				return true;
+			}
+		}
+	}
+
+	private boolean isTarget(int vertical, int horizontal) {
+		return vertical == targetVertical && horizontal == targetHorizontal;
+	}
+
+	/**
+	 * The actions from the start to the target, each jump point is in line with
+	 * its parent so the segments between them are straight
+	 */
+	private List<Action> extractPath(int start, int target, int[] parent) {
+		List<Action> path = new ArrayList<>();
+		for (int current = target; current != start; current = parent[current]) {
+			int previous = parent[current];
+			int verticalMoves = area.verticalOf(current) - area.verticalOf(previous);
+			int horizontalMoves = area.horizontalOf(current) - area.horizontalOf(previous);
+			Action action = verticalMoves > 0 ? Action.GO_DOWN
+					: verticalMoves < 0 ? Action.GO_UP : horizontalMoves > 0 ? Action.GO_RIGHT : Action.GO_LEFT;
+			for (int i = Math.abs(verticalMoves) + Math.abs(horizontalMoves); i > 0; i--) {
+				path.add(action);
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+}
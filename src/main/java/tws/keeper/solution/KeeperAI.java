@@ -5,26 +5,103 @@ import static tws.keeper.model.Action.GO_LEFT;
 import static tws.keeper.model.Action.GO_RIGHT;
 import static tws.keeper.model.Action.GO_UP;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import tws.keeper.model.Action;
 import tws.keeper.model.Keeper;
+import tws.keeper.model.Maze;
 import tws.keeper.model.Observable;
 import tws.keeper.model.Position;
 
 public class KeeperAI implements Keeper {
 
 	private static final List<Action> availableActions = Arrays.asList(GO_DOWN, GO_LEFT, GO_RIGHT, GO_UP);
+	private static final String NOT_FORKABLE = "Rollouts are played on forks of a Maze, not on %s";
+	private static final int ROLLOUTS = 32; // Per direction and step
+	private static final int ROLLOUT_DEPTH = 48; // Steps of a rollout
+	private static final long ROLLOUT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+	private static final long KEEPER_BYTES = 512; // The keeper, its explorer and their empty tables
+	private static final long KNOWN_POSITION_BYTES = 40; // A packed position, its hash slots and stack or list entry
+	private static final long PLANNER_POSITION_BYTES = 32; // A cell of D* Lite or of the distances from the door
 
-	ExploratoryAlgorithm observableUtils;
+	/**
+	 * How the keeper explores the maze
+	 */
+	public enum Mode {
+		/** Randomized depth first search, see {@link ExploratoryAlgorithm} */
+		DEPTH_FIRST,
+		/** Nearest frontier first, see {@link FrontierExplorationAlgorithm} */
+		FRONTIER,
+		/** Rollouts on forks of the maze, see {@link RolloutExplorer} */
+		ROLLOUT
+	}
+
+	/**
+	 * How the keeper goes to the door once it has every key
+	 */
+	public enum Homing {
+		/** A path planned once with {@link StarAlgorithm} */
+		STAR,
+		/** A path planned once with {@link JumpPointSearch}, as long as the A* one */
+		JUMP_POINT,
+		/** A path kept up to date while exploring with {@link DStarLite} */
+		D_STAR_LITE,
+		/** Down the gradient of a {@link DoorDistanceField} kept up to date while exploring */
+		DISTANCE_FIELD
+	}
+
+	private final Mode mode;
+	private final Homing homing;
+	Explorer observableUtils;
+	DStarLite incrementalPlanner;
+	DoorDistanceField doorDistances;
+	private final KeeperAI guide;
 	List<Position> openPositions;
-	List<Action> pathToDoor;
+	Deque<Action> pathToDoor;
+	int starInvocations;
+	private DecisionTracer tracer;
+	private Long seed;
+	private long rolloutBudgetNanos = ROLLOUT_BUDGET_NANOS;
+	private Executor rolloutExecutor = Runnable::run;
+	private int rolloutParallelism = 1;
+	private Decision decision;
 
 	public KeeperAI() {
+		this(Mode.DEPTH_FIRST);
+	}
+
+	public KeeperAI(Mode mode) {
+		this(mode, Homing.STAR);
+	}
+
+	public KeeperAI(Mode mode, Homing homing) {
+		this(mode, homing, null);
+	}
+
+	/**
+	 * A keeper that goes to the door down the distances of a guide keeper on the
+	 * same maze, read only, from wherever the guide knows the way. Elsewhere it
+	 * plans its own path with A*. The guide updates its distances in place, so
+	 * both keepers must be played on the same thread; reading them on another one
+	 * throws {@link IllegalStateException}.
+	 */
+	public KeeperAI(Mode mode, KeeperAI guide) {
+		this(mode, Homing.DISTANCE_FIELD, guide);
+	}
+
+	private KeeperAI(Mode mode, Homing homing, KeeperAI guide) {
+		this.mode = mode;
+		this.homing = homing;
+		this.guide = guide;
 		openPositions = new ArrayList<>();
-		pathToDoor = new ArrayList<>();
+		pathToDoor = new ArrayDeque<>();
 	}
 
 	/**
@@ -34,28 +111,203 @@ public class KeeperAI implements Keeper {
 	 * @return
 	 */
 	public Action act(Observable maze) {
+		if (tracer == null) {
+			return decide(maze);
+		}
+		Position position = maze.getKeeperPosition();
+		long start = System.nanoTime();
+		Action action = decide(maze);
+		long elapsed = System.nanoTime() - start;
+		tracer.record(position, decision, candidates(action), action, elapsed, depth(position));
+		return action;
+	}
+
+	/**
+	 * Seed of the random choices, so the keeper plays the same game every time on
+	 * the same maze. By default a random one. Only taken into account before the
+	 * first act.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Time the rollouts of a step may take at most in {@link Mode#ROLLOUT}, 2 ms
+	 * by default. Only taken into account before the first act.
+	 */
+	public void setRolloutBudget(long budgetNanos) {
+		this.rolloutBudgetNanos = budgetNanos;
+	}
+
+	/**
+	 * Split the rollouts of a step in {@link Mode#ROLLOUT} among parallelism
+	 * tasks, one run by the thread that acts and the others by the executor. By
+	 * default they are all played by the thread that acts. Only taken into
+	 * account before the first act.
+	 */
+	public void setRolloutExecutor(Executor executor, int parallelism) {
+		this.rolloutExecutor = executor;
+		this.rolloutParallelism = parallelism;
+	}
+
+	/**
+	 * Record every step from now on in the tracer, or stop recording with null
+	 */
+	public void setTracer(DecisionTracer tracer) {
+		this.tracer = tracer;
+	}
+
+	/**
+	 * The tracer recording the steps, null when they are not traced
+	 */
+	public DecisionTracer getTracer() {
+		return tracer;
+	}
+
+	private Action decide(Observable maze) {
 		if (observableUtils == null) {
-			observableUtils = new ExploratoryAlgorithm(maze, availableActions);
+			observableUtils = explorer(maze);
 		}
 
 		// Storing the keeper position
 		observableUtils.addVisitedPosition();
 
+		// Keeping the incremental planner up to date with what was learned since the door was seen
+		if (homing == Homing.D_STAR_LITE && observableUtils.doorPositionIsKnown()) {
+			if (incrementalPlanner == null) {
+				incrementalPlanner = new DStarLite(observableUtils.getDoorPosition(), maze.getKeeperPosition(),
+						availableActions);
+			}
+			incrementalPlanner.learn(observableUtils.getVisitedPositions(), maze.getKeeperPosition());
+		}
+
+		// Same for the distances from the door, unless they are read from the guide
+		if (homing == Homing.DISTANCE_FIELD && guide == null && observableUtils.doorPositionIsKnown()) {
+			if (doorDistances == null) {
+				doorDistances = new DoorDistanceField(observableUtils.getDoorPosition(), availableActions);
+			}
+			doorDistances.learn(observableUtils.getVisitedPositions());
+		}
+
 		// Going direct to the door if door position is known and keys were found
 		if (observableUtils.doorPositionIsKnown() && observableUtils.allKeysAreFound()) {
+			if (incrementalPlanner != null) {
+				decision = Decision.INCREMENTAL_PATH;
+				return incrementalPlanner.nextAction(maze.getKeeperPosition());
+			}
+
+			DistanceField distances = getDoorDistances();
+			if (distances != null && distances.distance(maze.getKeeperPosition()) >= 0) {
+				decision = Decision.GRADIENT;
+				return distances.nextAction(maze.getKeeperPosition());
+			}
+
 			if (pathToDoor.isEmpty()) {
-				pathToDoor = (new StarAlgorithm(observableUtils)).createPath();
+				starInvocations++;
+				pathToDoor = new ArrayDeque<>(homing == Homing.JUMP_POINT
+						? new JumpPointSearch(observableUtils).createPath()
+						: (new StarAlgorithm(observableUtils)).createPath());
 			}
 
 			if (pathToDoor.isEmpty()) {
+				decision = Decision.IDLE;
 				return Action.DO_NOTHING;
 			}
 
-			return pathToDoor.remove(0);
+			decision = Decision.PLANNED_PATH;
+			return pathToDoor.poll();
 		}
 
 		// Getting the next action based on current knowledge
-		return observableUtils.getNextAction();
+		Action action = observableUtils.getNextAction();
+		decision = observableUtils.getLastDecision();
+		return action;
+	}
+
+	private Explorer explorer(Observable maze) {
+		SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+		switch (mode) {
+		case FRONTIER:
+			return new FrontierExplorationAlgorithm(maze, availableActions);
+		case ROLLOUT:
+			if (!(maze instanceof Maze)) {
+				throw new IllegalArgumentException(String.format(NOT_FORKABLE, maze.getClass().getName()));
+			}
+			return new RolloutExplorer((Maze) maze, availableActions, random, ROLLOUTS, ROLLOUT_DEPTH,
+					rolloutParallelism, rolloutBudgetNanos, rolloutExecutor);
+		default:
+			return new ExploratoryAlgorithm(maze, availableActions, random);
+		}
+	}
+
+	/**
+	 * The directions the action was chosen among, only the action itself on the
+	 * way to the door
+	 */
+	private int candidates(Action action) {
+		switch (decision) {
+		case PROBABLE_ACTION:
+		case RANDOM:
+		case BACKTRACK:
+		case FRONTIER:
+		case ROLLOUT:
+			return observableUtils.getLastCandidates();
+		case IDLE:
+			return 0;
+		default:
+			return 1 << action.ordinal();
+		}
+	}
+
+	/**
+	 * How deep the explorer is, or how far the door is on the way to it
+	 */
+	private int depth(Position position) {
+		switch (decision) {
+		case PLANNED_PATH:
+			return pathToDoor.size();
+		case GRADIENT:
+			return getDoorDistances().distance(position);
+		case INCREMENTAL_PATH:
+		case IDLE:
+			return 0;
+		default:
+			return observableUtils.getDepth();
+		}
+	}
+
+	/**
+	 * The distances to the door this keeper goes down, its own or a read only view
+	 * of its guide's. Null until the door is seen or when the keeper homes
+	 * otherwise.
+	 */
+	public DistanceField getDoorDistances() {
+		if (guide == null) {
+			return doorDistances;
+		}
+		DistanceField shared = guide.getDoorDistances();
+		return shared instanceof DoorDistanceField ? ((DoorDistanceField) shared).readOnly() : shared;
+	}
+
+	/**
+	 * Approximate bytes held by the keeper: what it knows of the maze, which
+	 * grows as it explores, its planner towards the door and its tracer. Cheap
+	 * enough to be called after every act.
+	 */
+	public long getFootprintBytes() {
+		long known = observableUtils == null ? 0 : observableUtils.getVisitedPositions().size();
+		long bytes = KEEPER_BYTES + known * KNOWN_POSITION_BYTES;
+		if (incrementalPlanner != null || doorDistances != null) {
+			bytes += known * PLANNER_POSITION_BYTES;
+		}
+		return tracer == null ? bytes : bytes + tracer.getFootprintBytes();
+	}
+
+	/**
+	 * Number of paths to the door planned at once, with A* or Jump Point Search
+	 */
+	public int getStarInvocations() {
+		return starInvocations;
 	}
 
 }
\ No newline at end of file
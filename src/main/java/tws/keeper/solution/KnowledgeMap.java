@@ -0,0 +1,246 @@
+package tws.keeper.solution;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import tws.keeper.model.Cell;
+import tws.keeper.model.Position;
+
+/**
+ * What the keeper has learned of the maze: a grid of the cells seen, unknown
+ * everywhere else, and whether they were stood on. The keeper does not know
+ * the size of the maze, so the grid starts around the first position and
+ * doubles towards wherever it goes.
+ *
+ * @author pedro
+ *
+ */
+class KnowledgeMap {
+
+	static final byte UNKNOWN = 0;
+	static final byte WALL = 1;
+	static final byte PATH = 2;
+	static final byte KEY = 3;
+	static final byte DOOR = 4;
+
+	private static final byte KIND = 7;
+	private static final byte VISITED = 8;
+	private static final int INITIAL_SIDE = 64;
+	private static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+	private static final String MAP_TOO_LARGE = "The known area is too large to be indexed";
+
+	private int top;
+	private int left;
+	private int height;
+	private int width;
+	private byte[] cells;
+	private int known;
+	private int keysToVisit;
+	private int[] free = new int[64];
+	private int freeCount;
+
+	KnowledgeMap(Position start) {
+		top = start.getVertical() - INITIAL_SIDE / 2;
+		left = start.getHorizontal() - INITIAL_SIDE / 2;
+		height = INITIAL_SIDE;
+		width = INITIAL_SIDE;
+		cells = new byte[height * width];
+	}
+
+	/**
+	 * Record what was seen in this position, true if it was unknown
+	 */
+	boolean learn(Position position, Cell cell) {
+		return learn(position.getVertical(), position.getHorizontal(), cell);
+	}
+
+	/**
+	 * Record what was seen in these coordinates, true if it was unknown
+	 */
+	boolean learn(int vertical, int horizontal, Cell cell) {
+		int index = indexOf(vertical, horizontal);
+		if (cells[index] != UNKNOWN) {
+			return false;
+		}
+		cells[index] = kindOf(cell);
+		known++;
+		if (cells[index] == KEY) {
+			keysToVisit++;
+		}
+		if (cells[index] != WALL) {
+			addFree(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Record that the keeper stood on this position, true the first time
+	 */
+	boolean visit(Position position) {
+		int index = indexOf(position);
+		if ((cells[index] & VISITED) != 0) {
+			return false;
+		}
+		if (cells[index] == UNKNOWN) {
+			known++;
+			cells[index] = PATH;
+			addFree(index);
+		}
+		if (cells[index] == KEY) {
+			keysToVisit--;
+		}
+		cells[index] |= VISITED;
+		return true;
+	}
+
+	/**
+	 * Number of cells seen
+	 */
+	int known() {
+		return known;
+	}
+
+	/**
+	 * Number of keys seen and not stood on
+	 */
+	int keysToVisit() {
+		return keysToVisit;
+	}
+
+	/**
+	 * The free cells seen, read-only and in the order they were first seen
+	 */
+	List<Position> freePositions() {
+		return new AbstractList<Position>() {
+			@Override
+			public Position get(int index) {
+				if (index < 0 || index >= freeCount) {
+					throw new IndexOutOfBoundsException(Integer.toString(index));
+				}
+				return positionOf(free[index]);
+			}
+
+			@Override
+			public int size() {
+				return freeCount;
+			}
+		};
+	}
+
+	// Cell indexes, valid until the map grows
+
+	int height() {
+		return height;
+	}
+
+	int width() {
+		return width;
+	}
+
+	/**
+	 * Index of this position, growing the map so the position and its neighbours
+	 * are inside
+	 */
+	int indexOf(Position position) {
+		return indexOf(position.getVertical(), position.getHorizontal());
+	}
+
+	/**
+	 * Index of these coordinates, growing the map so they and their neighbours are
+	 * inside
+	 */
+	int indexOf(int vertical, int horizontal) {
+		if (vertical - 1 < top || vertical + 1 >= top + height || horizontal - 1 < left
+				|| horizontal + 1 >= left + width) {
+			grow(vertical, horizontal);
+		}
+		return (vertical - top) * width + (horizontal - left);
+	}
+
+	Position positionOf(int index) {
+		return new Position(top + index / width, left + index % width);
+	}
+
+	/**
+	 * The kind of the cell: UNKNOWN, WALL, PATH, KEY or DOOR
+	 */
+	byte kind(int index) {
+		return (byte) (cells[index] & KIND);
+	}
+
+	boolean isVisited(int index) {
+		return (cells[index] & VISITED) != 0;
+	}
+
+	/**
+	 * Known and not a wall
+	 */
+	boolean isFree(int index) {
+		byte kind = kind(index);
+		return kind != UNKNOWN && kind != WALL;
+	}
+
+	private void addFree(int index) {
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, freeCount * 2);
+		}
+		free[freeCount++] = index;
+	}
+
+	/**
+	 * Double the sides that fall short of the position, with a margin of a cell
+	 */
+	private void grow(int vertical, int horizontal) {
+		int newTop = top;
+		int newLeft = left;
+		int newHeight = height;
+		int newWidth = width;
+		while (vertical - 1 < newTop) {
+			newTop -= newHeight;
+			newHeight *= 2;
+		}
+		while (vertical + 1 >= newTop + newHeight) {
+			newHeight *= 2;
+		}
+		while (horizontal - 1 < newLeft) {
+			newLeft -= newWidth;
+			newWidth *= 2;
+		}
+		while (horizontal + 1 >= newLeft + newWidth) {
+			newWidth *= 2;
+		}
+		if ((long) newHeight * newWidth > MAX_CELLS) {
+			throw new IllegalStateException(MAP_TOO_LARGE);
+		}
+		byte[] newCells = new byte[newHeight * newWidth];
+		for (int row = 0; row < height; row++) {
+			System.arraycopy(cells, row * width, newCells, (row + top - newTop) * newWidth + (left - newLeft), width);
+		}
+		for (int i = 0; i < freeCount; i++) {
+			int row = free[i] / width;
+			int column = free[i] % width;
+			free[i] = (row + top - newTop) * newWidth + (column + left - newLeft);
+		}
+		top = newTop;
+		left = newLeft;
+		height = newHeight;
+		width = newWidth;
+		cells = newCells;
+	}
+
+	private static byte kindOf(Cell cell) {
+		switch (cell) {
+		case WALL:
+			return WALL;
+		case KEY:
+			return KEY;
+		case DOOR:
+			return DOOR;
+		default:
+		case PATH:
+			return PATH;
+		}
+	}
+
+}
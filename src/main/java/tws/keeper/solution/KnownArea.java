@@ -0,0 +1,99 @@
+package tws.keeper.solution;
+
+import java.util.BitSet;
+import java.util.List;
+
+import tws.keeper.model.Position;
+
+/**
+ * The known cells of the maze mapped into the cells of their bounding box, so
+ * the per node data of a search lives in primitive arrays indexed by cell. The
+ * start and the target are always traversable: the keeper stands on the first
+ * and the door is only seen, never visited, before the keeper walks into it.
+ *
+ * @author pedro
+ *
+ */
+class KnownArea {
+
+	static final int NO_CELL = -1;
+
+	private static final String NO_NODES_VISITED = "None visited nodes";
+	private static final String MAP_TOO_LARGE = "The visited area is too large to be indexed";
+
+	private final int top;
+	private final int left;
+	private final int height;
+	private final int width;
+	private final BitSet traversable;
+
+	KnownArea(List<Position> visitedPositions, Position start, Position target) {
+		if (visitedPositions == null) {
+			throw new IllegalStateException(NO_NODES_VISITED);
+		}
+		int minVertical = Math.min(start.getVertical(), target.getVertical());
+		int minHorizontal = Math.min(start.getHorizontal(), target.getHorizontal());
+		int maxVertical = Math.max(start.getVertical(), target.getVertical());
+		int maxHorizontal = Math.max(start.getHorizontal(), target.getHorizontal());
+		for (Position position : visitedPositions) {
+			minVertical = Math.min(minVertical, position.getVertical());
+			minHorizontal = Math.min(minHorizontal, position.getHorizontal());
+			maxVertical = Math.max(maxVertical, position.getVertical());
+			maxHorizontal = Math.max(maxHorizontal, position.getHorizontal());
+		}
+		top = minVertical;
+		left = minHorizontal;
+		height = maxVertical - minVertical + 1;
+		width = maxHorizontal - minHorizontal + 1;
+		if ((long) height * width > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException(MAP_TOO_LARGE);
+		}
+
+		traversable = new BitSet(height * width);
+		visitedPositions.forEach(position -> traversable.set(cellOf(position)));
+		traversable.set(cellOf(start));
+		traversable.set(cellOf(target));
+	}
+
+	/**
+	 * Number of cells of the bounding box
+	 */
+	int cells() {
+		return height * width;
+	}
+
+	int cellOf(Position position) {
+		return cellOf(position.getVertical(), position.getHorizontal());
+	}
+
+	int cellOf(int vertical, int horizontal) {
+		return (vertical - top) * width + (horizontal - left);
+	}
+
+	int verticalOf(int cell) {
+		return top + cell / width;
+	}
+
+	int horizontalOf(int cell) {
+		return left + cell % width;
+	}
+
+	/**
+	 * Whether the cell in these coordinates is known to be free, false outside
+	 * the bounding box
+	 */
+	boolean isTraversable(int vertical, int horizontal) {
+		int row = vertical - top;
+		int column = horizontal - left;
+		return row >= 0 && row < height && column >= 0 && column < width && traversable.get(row * width + column);
+	}
+
+	/**
+	 * The cell in these coordinates if it is traversable, otherwise
+	 * {@link #NO_CELL}
+	 */
+	int traversableCell(int vertical, int horizontal) {
+		return isTraversable(vertical, horizontal) ? cellOf(vertical, horizontal) : NO_CELL;
+	}
+
+}
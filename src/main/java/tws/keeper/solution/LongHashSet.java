@@ -0,0 +1,102 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+
+/**
+ * Set of longs kept in insertion order. An open addressing table with linear
+ * probing holds the index of every element, so adding and looking up are O(1)
+ * and each element gets a dense index other structures can use to keep data
+ * about it in arrays.
+ *
+ * @author pedro
+ *
+ */
+class LongHashSet {
+
+	static final int ABSENT = -1;
+
+	private static final int MAX_CAPACITY = 1 << 29;
+	private static final String SET_TOO_LARGE = "Too many elements for a set";
+
+	private long[] elements = new long[16];
+	private int[] slots = newSlots(32);
+	private int size;
+
+	/**
+	 * Add the element, false if it was already there
+	 */
+	boolean add(long element) {
+		int slot = slotOf(element);
+		if (slots[slot] != ABSENT) {
+			return false;
+		}
+		if (size == elements.length) {
+			if (size == MAX_CAPACITY) {
+				throw new IllegalStateException(SET_TOO_LARGE);
+			}
+			elements = Arrays.copyOf(elements, size * 2);
+		}
+		elements[size] = element;
+		slots[slot] = size++;
+		if (size * 2 > slots.length) {
+			rehash(slots.length * 2);
+		}
+		return true;
+	}
+
+	boolean contains(long element) {
+		return slots[slotOf(element)] != ABSENT;
+	}
+
+	/**
+	 * The insertion order of this element, {@link #ABSENT} if it is not in the set
+	 */
+	int indexOf(long element) {
+		return slots[slotOf(element)];
+	}
+
+	/**
+	 * The element added in this order
+	 */
+	long get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return elements[index];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * The slot holding this element or else the empty slot where it goes
+	 */
+	private int slotOf(long element) {
+		int mask = slots.length - 1;
+		int slot = Coordinates.mix(element) & mask;
+		while (slots[slot] != ABSENT && elements[slots[slot]] != element) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(int capacity) {
+		slots = newSlots(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < size; i++) {
+			int slot = Coordinates.mix(elements[i]) & mask;
+			while (slots[slot] != ABSENT) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = i;
+		}
+	}
+
+	private static int[] newSlots(int capacity) {
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, ABSENT);
+		return slots;
+	}
+
+}
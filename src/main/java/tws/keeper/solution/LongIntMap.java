@@ -0,0 +1,76 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+
+/**
+ * Map from longs to ints without boxing. The keys are a {@link LongHashSet}
+ * and the values live in an array at the index of their key, so an entry can
+ * be read and updated by key or, without hashing again, by index.
+ *
+ * @author pedro
+ *
+ */
+class LongIntMap {
+
+	private final LongHashSet keys = new LongHashSet();
+	private int[] values = new int[16];
+
+	/**
+	 * Set the value of the key, returns the index of its entry
+	 */
+	int put(long key, int value) {
+		int index = keys.indexOf(key);
+		if (index == LongHashSet.ABSENT) {
+			keys.add(key);
+			index = keys.size() - 1;
+			if (index == values.length) {
+				values = Arrays.copyOf(values, index * 2);
+			}
+		}
+		values[index] = value;
+		return index;
+	}
+
+	/**
+	 * The value of the key, or the default one if it is not in the map
+	 */
+	int get(long key, int defaultValue) {
+		int index = keys.indexOf(key);
+		return index == LongHashSet.ABSENT ? defaultValue : values[index];
+	}
+
+	boolean containsKey(long key) {
+		return keys.contains(key);
+	}
+
+	/**
+	 * The index of the entry of the key, {@link LongHashSet#ABSENT} if it is not
+	 * in the map. Entries are indexed in insertion order.
+	 */
+	int indexOf(long key) {
+		return keys.indexOf(key);
+	}
+
+	long keyAt(int index) {
+		return keys.get(index);
+	}
+
+	int valueAt(int index) {
+		if (index < 0 || index >= keys.size()) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return values[index];
+	}
+
+	void setValueAt(int index, int value) {
+		if (index < 0 || index >= keys.size()) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		values[index] = value;
+	}
+
+	int size() {
+		return keys.size();
+	}
+
+}
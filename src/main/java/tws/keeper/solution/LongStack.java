@@ -0,0 +1,47 @@
+package tws.keeper.solution;
+
+import java.util.Arrays;
+
+/**
+ * Stack of longs without boxing, growing as needed
+ *
+ * @author pedro
+ *
+ */
+class LongStack {
+
+	private static final String EMPTY_STACK = "The stack is empty";
+
+	private long[] elements = new long[16];
+	private int size;
+
+	void push(long element) {
+		if (size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+		}
+		elements[size++] = element;
+	}
+
+	long pop() {
+		if (size == 0) {
+			throw new IllegalStateException(EMPTY_STACK);
+		}
+		return elements[--size];
+	}
+
+	long peek() {
+		if (size == 0) {
+			throw new IllegalStateException(EMPTY_STACK);
+		}
+		return elements[size - 1];
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+}
@@ -7,6 +7,7 @@ import tws.keeper.model.Action;
 import tws.keeper.model.Cell;
 import tws.keeper.model.Observable;
 import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
 
 /**
  * This class contains general purpose methods that could be used for different
@@ -30,13 +31,30 @@ public class MazeUtils {
 	 * @return
 	 */
 	public static Action actionForGoing(Position from, Position to, List<Action> availableActions) {
-		for (Action action : availableActions) {
-			if (positionAfterAction(action, from).equals(to)) {
+		return actionForGoing(Coordinates.pack(from), Coordinates.pack(to), availableActions);
+	}
+
+	/**
+	 * Same as {@link #actionForGoing(Position, Position, List)} between packed
+	 * {@link Coordinates}
+	 * 
+	 * @param from
+	 * @param to
+	 * @param availableActions
+	 * @return
+	 */
+	static Action actionForGoing(long from, long to, List<Action> availableActions) {
+		int vertical = Coordinates.vertical(to) - Coordinates.vertical(from);
+		int horizontal = Coordinates.horizontal(to) - Coordinates.horizontal(from);
+		for (int a = 0; a < availableActions.size(); a++) {
+			Action action = availableActions.get(a);
+			if (verticalStep(action) == vertical && horizontalStep(action) == horizontal) {
 				return action;
 			}
 		}
 
-		throw new IllegalStateException(String.format(IMPOSSIBLE_MOVEMENT, from, to));
+		throw new IllegalStateException(
+				String.format(IMPOSSIBLE_MOVEMENT, Coordinates.toPosition(from), Coordinates.toPosition(to)));
 	}
 
 	/**
@@ -47,18 +65,44 @@ public class MazeUtils {
 	 * @return
 	 */
 	public static Position positionAfterAction(Action action, Position keeperPosition) {
+		if (action == Action.DO_NOTHING) {
+			return keeperPosition;
+		}
+		return new Position(keeperPosition.getVertical() + verticalStep(action),
+				keeperPosition.getHorizontal() + horizontalStep(action));
+	}
+
+	/**
+	 * Rows moved by the action, down is positive
+	 * 
+	 * @param action
+	 * @return
+	 */
+	public static int verticalStep(Action action) {
 		switch (action) {
 		case GO_DOWN:
-			return new Position(keeperPosition.getVertical() + 1, keeperPosition.getHorizontal());
+			return 1;
 		case GO_UP:
-			return new Position(keeperPosition.getVertical() - 1, keeperPosition.getHorizontal());
-		case GO_LEFT:
-			return new Position(keeperPosition.getVertical(), keeperPosition.getHorizontal() - 1);
+			return -1;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Columns moved by the action, right is positive
+	 * 
+	 * @param action
+	 * @return
+	 */
+	public static int horizontalStep(Action action) {
+		switch (action) {
 		case GO_RIGHT:
-			return new Position(keeperPosition.getVertical(), keeperPosition.getHorizontal() + 1);
+			return 1;
+		case GO_LEFT:
+			return -1;
 		default:
-		case DO_NOTHING:
-			return keeperPosition;
+			return 0;
 		}
 	}
 
@@ -71,23 +115,36 @@ public class MazeUtils {
 	 * @return
 	 */
 	public static Action highestProbableAction(Observable maze, List<Action> availableActions, Position doorPosition) {
-		// @formatter:off
-		List<Action> possibleActions = possibleActions(maze, availableActions);
-		
+		boolean keysLeft = maze.getKeysFound() != maze.getTotalNumberOfKeys();
+		return highestProbableAction(maze.lookAround(), keysLeft, availableActions, doorPosition);
+	}
+
+	/**
+	 * Same as {@link #highestProbableAction(Observable, List, Position)} over
+	 * surroundings already looked at, null if no action is more probable
+	 * 
+	 * @param surroundings
+	 * @param keysLeft
+	 * @param availableActions
+	 * @param doorPosition
+	 * @return
+	 */
+	static Action highestProbableAction(int surroundings, boolean keysLeft, List<Action> availableActions,
+			Position doorPosition) {
 		// Checking if there is a door beside the keeper and the door position is not known
-		Action highestProbableAction = possibleActions.stream()
-				.filter(action -> actionLeadsTo(maze, action, Cell.DOOR) && doorPosition == null)
-				.findFirst().orElse(null);
+		if (doorPosition == null) {
+			Action towardsDoor = firstAction(Surroundings.directionsTo(surroundings, Cell.DOOR), availableActions);
+			if (towardsDoor != null) {
+				return towardsDoor;
+			}
+		}
 
 		// Checking if there is a key beside the keeper
-		if (highestProbableAction == null && maze.getKeysFound() != maze.getTotalNumberOfKeys()) {
-			return possibleActions.stream()
-					.filter(action -> actionLeadsTo(maze, action, Cell.KEY))
-					.findFirst().orElse(null);
+		if (keysLeft) {
+			return firstAction(Surroundings.directionsTo(surroundings, Cell.KEY), availableActions);
 		}
-		
-		return highestProbableAction;
-		// @formatter:on
+
+		return null;
 	}
 
 	/**
@@ -97,19 +154,16 @@ public class MazeUtils {
 	 * @return
 	 */
 	public static List<Action> possibleActions(Observable maze, List<Action> availableActions) {
-		// @formatter:off
+		int free = Surroundings.free(maze.lookAround());
 		List<Action> actions = new ArrayList<>();
 
 		for (Action action : availableActions) {
-			if (actionLeadsTo(maze, action, Cell.DOOR) 
-					|| actionLeadsTo(maze, action, Cell.KEY)
-					|| actionLeadsTo(maze, action, Cell.PATH)) {
+			if (Surroundings.contains(free, action)) {
 				actions.add(action);
 			}
 		}
 
 		return actions;
-		// @formatter:on
 	}
 
 	/**
@@ -119,13 +173,21 @@ public class MazeUtils {
 	 * @return
 	 */
 	public static Position getDoorPosition(Observable maze, List<Action> availableActions) {
-		for (Action action : availableActions) {
-			if (actionLeadsTo(maze, action, Cell.DOOR)) {
-				return positionAfterAction(action, maze.getKeeperPosition());
-			}
-		}
+		return getDoorPosition(maze.lookAround(), maze.getKeeperPosition(), availableActions);
+	}
 
-		return null;
+	/**
+	 * Same as {@link #getDoorPosition(Observable, List)} over surroundings already
+	 * looked at from the keeper position
+	 * 
+	 * @param surroundings
+	 * @param keeperPosition
+	 * @param availableActions
+	 * @return
+	 */
+	static Position getDoorPosition(int surroundings, Position keeperPosition, List<Action> availableActions) {
+		Action towardsDoor = firstAction(Surroundings.directionsTo(surroundings, Cell.DOOR), availableActions);
+		return towardsDoor == null ? null : positionAfterAction(towardsDoor, keeperPosition);
 	}
 
 	/**
@@ -142,25 +204,21 @@ public class MazeUtils {
 	}
 
 	/**
-	 * Returns if the action leads to the cell type specified
+	 * The first available action in the set of directions, null if there is none
 	 * 
-	 * @param maze
-	 * @param action
-	 * @param cell
+	 * @param directions
+	 * @param availableActions
 	 * @return
 	 */
-	private static boolean actionLeadsTo(Observable maze, Action action, Cell cell) {
-		switch (action) {
-		case GO_DOWN:
-			return cell.equals(maze.lookDown());
-		case GO_UP:
-			return cell.equals(maze.lookUp());
-		case GO_LEFT:
-			return cell.equals(maze.lookLeft());
-		default:
-		case GO_RIGHT:
-			return cell.equals(maze.lookRight());
+	static Action firstAction(int directions, List<Action> availableActions) {
+		if (directions != 0) {
+			for (int a = 0; a < availableActions.size(); a++) {
+				if (Surroundings.contains(directions, availableActions.get(a))) {
+					return availableActions.get(a);
+				}
+			}
 		}
+		return null;
 	}
 
 }
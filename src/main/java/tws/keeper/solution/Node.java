@@ -19,8 +19,8 @@ public class Node {
 	// A* specific variables
 	private final Position position;
 	private Node parent;
-	private Double gCost = 0.0; // Cost from starting node to current node
-	private Double hCost = 0.0; // Cost from this node to final node
+	private int gCost = 0; // Cost from starting node to current node
+	private int hCost = 0; // Cost from this node to final node
 
 	public Node(Position position, Action actionAssociated) {
 		this.position = position;
@@ -43,19 +43,19 @@ public class Node {
 		this.parent = parent;
 	}
 
-	public Double getgCost() {
+	public int getgCost() {
 		return gCost;
 	}
 
-	public void setgCost(Double gCost) {
+	public void setgCost(int gCost) {
 		this.gCost = gCost;
 	}
 
-	public Double gethCost() {
+	public int gethCost() {
 		return hCost;
 	}
 
-	public void sethCost(Double hCost) {
+	public void sethCost(int hCost) {
 		this.hCost = hCost;
 	}
 
@@ -63,7 +63,7 @@ public class Node {
 		return position;
 	}
 
-	public Double getfCost() {
+	public int getfCost() {
 		return gCost + hCost;
 	}
 
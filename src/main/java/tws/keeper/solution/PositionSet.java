@@ -0,0 +1,91 @@
+package tws.keeper.solution;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import tws.keeper.model.Position;
+
+/**
+ * Set of positions kept as packed {@link Coordinates} in a {@link LongHashSet},
+ * so adding and looking up are O(1) and no Position is kept. Positions are
+ * created only when read through {@link #get(int)} or {@link #asList()}.
+ *
+ * @author pedro
+ *
+ */
+class PositionSet {
+
+	private final LongHashSet positions = new LongHashSet();
+
+	/**
+	 * Add the position, false if it was already there
+	 */
+	boolean add(Position position) {
+		return positions.add(Coordinates.pack(position));
+	}
+
+	/**
+	 * Add the position with these coordinates, false if it was already there
+	 */
+	boolean add(int vertical, int horizontal) {
+		return positions.add(Coordinates.pack(vertical, horizontal));
+	}
+
+	boolean contains(Position position) {
+		return positions.contains(Coordinates.pack(position));
+	}
+
+	boolean contains(int vertical, int horizontal) {
+		return positions.contains(Coordinates.pack(vertical, horizontal));
+	}
+
+	/**
+	 * The insertion order of this position, -1 if it is not in the set
+	 */
+	int indexOf(int vertical, int horizontal) {
+		return positions.indexOf(Coordinates.pack(vertical, horizontal));
+	}
+
+	int vertical(int index) {
+		return Coordinates.vertical(positions.get(index));
+	}
+
+	int horizontal(int index) {
+		return Coordinates.horizontal(positions.get(index));
+	}
+
+	int size() {
+		return positions.size();
+	}
+
+	/**
+	 * The position added in this order
+	 */
+	Position get(int index) {
+		return Coordinates.toPosition(positions.get(index));
+	}
+
+	/**
+	 * Read-only list of the positions in insertion order. Its elements are created
+	 * when read and contains is O(1).
+	 */
+	List<Position> asList() {
+		return new AbstractList<Position>() {
+			@Override
+			public Position get(int index) {
+				return PositionSet.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return positions.size();
+			}
+
+			@Override
+			public boolean contains(Object other) {
+				return other instanceof Position && PositionSet.this.contains((Position) other);
+			}
+		};
+	}
+
+}
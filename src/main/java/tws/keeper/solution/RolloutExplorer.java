@@ -0,0 +1,341 @@
+package tws.keeper.solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Cell;
+import tws.keeper.model.Keeper;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Observable;
+import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
+
+/**
+ * Monte Carlo lookahead. At every step with a choice, each free direction is
+ * tried on {@link Maze#fork(Keeper) forks} of the maze followed by a short
+ * random walk that prefers keys, the door once the keys are found, and cells
+ * the keeper has not stood on. A walk scores the steps left when it reaches a
+ * new cell, and that many full walks for a key or the door, so the sooner the
+ * better. The direction with the best average is taken, ties at random. When
+ * no walk finds anything new the keeper backtracks along its path, as the
+ * depth first explorer does, so it never wanders in explored ground. The walks
+ * are split among parallel tasks, the calling thread running one of them,
+ * until every direction has had its rollouts or the time budget is spent,
+ * but each direction has one at least.
+ *
+ * Unlike the other explorers this one looks into cells it has not seen, the
+ * forks being the real maze: it is a planner for a maze that is given, a bound
+ * of what exploring could achieve. Every walk draws its random choices from
+ * the step and its own number, so the choices are the same for the same seed
+ * whatever the number of tasks, unless the budget cuts the rollouts short.
+ *
+ * @author pedro
+ *
+ */
+public class RolloutExplorer implements Explorer {
+
+	private static final String INVALID_SETTINGS = "Invalid rollout settings: %d rollouts of %d steps, %d tasks, %d ns";
+	private static final String MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED = "All the nodes have been visited. However, the game was not successful.";
+	private static final Keeper NO_KEEPER = observable -> Action.DO_NOTHING;
+	private static final long WALK_SEED_STEP = 0xBF58476D1CE4E5B9L; // Apart from the gamma of SplittableRandom
+
+	private final Maze maze;
+	private final List<Action> availableActions;
+	private final SplittableRandom random;
+	private final int rollouts;
+	private final int depth;
+	private final int parallelism;
+	private final long budgetNanos;
+	private final Executor executor;
+	private final PositionSet visitedPositions = new PositionSet();
+	private final LongStack openPath = new LongStack();
+	private Position doorPosition;
+	private Decision lastDecision;
+	private int lastCandidates;
+	private int lastRollouts;
+
+	/**
+	 * An explorer playing up to rollouts walks of depth steps per direction and
+	 * step, in parallelism tasks run by the executor and the calling thread, for
+	 * at most budgetNanos
+	 */
+	public RolloutExplorer(Maze maze, List<Action> availableActions, SplittableRandom random, int rollouts, int depth,
+			int parallelism, long budgetNanos, Executor executor) {
+		if (rollouts < 1 || depth < 1 || parallelism < 1 || budgetNanos < 1) {
+			throw new IllegalArgumentException(
+					String.format(INVALID_SETTINGS, rollouts, depth, parallelism, budgetNanos));
+		}
+		this.maze = maze;
+		this.availableActions = availableActions;
+		this.random = random;
+		this.rollouts = rollouts;
+		this.depth = depth;
+		this.parallelism = parallelism;
+		this.budgetNanos = budgetNanos;
+		this.executor = executor;
+	}
+
+	@Override
+	public void addVisitedPosition() {
+		visitedPositions.add(maze.getKeeperPosition());
+	}
+
+	/**
+	 * A key or the door next to the keeper, the only free direction, the
+	 * direction with the best rollouts, or back when none finds anything new
+	 */
+	@Override
+	public Action getNextAction() {
+		Position keeperPosition = maze.getKeeperPosition();
+		int surroundings = maze.lookAround();
+		if (!doorPositionIsKnown()) {
+			doorPosition = MazeUtils.getDoorPosition(surroundings, keeperPosition, availableActions);
+		}
+		int free = Surroundings.free(surroundings);
+		lastCandidates = free;
+		lastRollouts = 0;
+
+		Action action = MazeUtils.highestProbableAction(surroundings, !allKeysAreFound(), availableActions,
+				doorPosition);
+		if (action != null) {
+			lastDecision = Decision.PROBABLE_ACTION;
+		} else {
+			lastDecision = Decision.ROLLOUT;
+			List<Action> candidates = new ArrayList<>(Integer.bitCount(free));
+			for (Action candidate : availableActions) {
+				if (Surroundings.contains(free, candidate)) {
+					candidates.add(candidate);
+				}
+			}
+			// A single way on to a cell not stood on needs no rollouts
+			action = candidates.size() == 1
+					&& !visitedPositions.contains(MazeUtils.positionAfterAction(candidates.get(0), keeperPosition))
+							? candidates.get(0)
+							: bestOf(candidates);
+		}
+
+		if (action == null) {
+			if (openPath.isEmpty()) {
+				throw new IllegalStateException(MAP_COMPLETELY_EXPLORED_BUT_NOT_SUCCEED);
+			}
+			Action back = MazeUtils.actionForGoing(Coordinates.pack(keeperPosition), openPath.pop(), availableActions);
+			lastDecision = Decision.BACKTRACK;
+			lastCandidates = 1 << back.ordinal();
+			return back;
+		}
+		openPath.push(Coordinates.pack(keeperPosition));
+		return action;
+	}
+
+	/**
+	 * The candidate with the best average score, after the rollouts of every task,
+	 * null if none found anything new
+	 */
+	private Action bestOf(List<Action> candidates) {
+		long deadline = System.nanoTime() + budgetNanos;
+		long stepSeed = random.nextLong();
+		Maze start = maze.fork(NO_KEEPER);
+		List<CompletableFuture<long[]>> tasks = new ArrayList<>(parallelism - 1);
+		for (int t = 1; t < parallelism; t++) {
+			Rollouts task = new Rollouts(start, candidates, t, stepSeed, deadline);
+			tasks.add(CompletableFuture.supplyAsync(task::play, executor));
+		}
+		Rollouts own = new Rollouts(start, candidates, 0, stepSeed, deadline);
+		long[] scores = own.play();
+		for (CompletableFuture<long[]> task : tasks) {
+			long[] other = task.join();
+			for (int i = 0; i < scores.length; i++) {
+				scores[i] += other[i];
+			}
+		}
+
+		// Scores then counts of each candidate, compared as averages without dividing. Every candidate gets a
+		// rollout whatever the budget, a way to a cell not stood on always scores.
+		int size = candidates.size();
+		for (int c = 0; c < size; c++) {
+			if (scores[size + c] == 0) {
+				scores[c] += own.walk(c);
+				scores[size + c]++;
+			}
+		}
+		int best = -1;
+		int ties = 0;
+		for (int c = 0; c < size; c++) {
+			lastRollouts += scores[size + c];
+			if (scores[c] == 0) {
+				continue;
+			}
+			long comparison = best < 0 ? 1 : scores[c] * scores[size + best] - scores[best] * scores[size + c];
+			if (comparison > 0) {
+				best = c;
+				ties = 1;
+			} else if (comparison == 0 && random.nextInt(++ties) == 0) {
+				best = c;
+			}
+		}
+		return best >= 0 ? candidates.get(best) : null;
+	}
+
+	@Override
+	public boolean doorPositionIsKnown() {
+		return doorPosition != null;
+	}
+
+	@Override
+	public boolean allKeysAreFound() {
+		return maze.getKeysFound() == maze.getTotalNumberOfKeys();
+	}
+
+	@Override
+	public Observable getMaze() {
+		return maze;
+	}
+
+	@Override
+	public Position getDoorPosition() {
+		return doorPosition;
+	}
+
+	/**
+	 * The positions stood on, each once in the order they were first visited.
+	 * The list is a read-only view.
+	 */
+	@Override
+	public List<Position> getVisitedPositions() {
+		return visitedPositions.asList();
+	}
+
+	@Override
+	public List<Action> getAvailableActions() {
+		return availableActions;
+	}
+
+	@Override
+	public Decision getLastDecision() {
+		return lastDecision;
+	}
+
+	/**
+	 * The free directions
+	 */
+	@Override
+	public int getLastCandidates() {
+		return lastCandidates;
+	}
+
+	/**
+	 * Rollouts played for the last action, 0 when there was no choice
+	 */
+	@Override
+	public int getDepth() {
+		return lastRollouts;
+	}
+
+	/**
+	 * The rollouts of one task: the task-th of every parallelism ones, each on a
+	 * fork of its own. The visited positions of the keeper are only read, the
+	 * keeper waits for the tasks before it moves again.
+	 */
+	private final class Rollouts {
+
+		private final Maze start;
+		private final List<Action> candidates;
+		private final int first;
+		private final long stepSeed;
+		private final long deadline;
+
+		private Rollouts(Maze start, List<Action> candidates, int first, long stepSeed, long deadline) {
+			this.start = start;
+			this.candidates = candidates;
+			this.first = first;
+			this.stepSeed = stepSeed;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * The total score of every candidate followed by the rollouts played
+		 */
+		long[] play() {
+			int size = candidates.size();
+			long[] scores = new long[size * 2];
+			for (int i = first; i < rollouts * size && System.nanoTime() - deadline < 0; i += parallelism) {
+				int candidate = i % size;
+				scores[candidate] += walk(i);
+				scores[size + candidate]++;
+			}
+			return scores;
+		}
+
+		/**
+		 * The score of the rollout with this number, a walk starting with the
+		 * candidate of the number modulo the candidates
+		 */
+		private long walk(int rollout) {
+			Action action = candidates.get(rollout % candidates.size());
+			SplittableRandom walkRandom = new SplittableRandom(stepSeed + rollout * WALK_SEED_STEP);
+			Maze fork = start.fork(NO_KEEPER);
+			LongHashSet seen = new LongHashSet();
+			int keysFound = fork.getKeysFound();
+			long score = 0;
+			for (int step = 0; step < depth && !fork.isMazeCompleted(); step++) {
+				fork.move(step == 0 ? action : next(fork, seen, walkRandom));
+				Position position = fork.getKeeperPosition();
+				if (seen.add(Coordinates.pack(position)) && !visitedPositions.contains(position)) {
+					score += depth - step;
+				}
+				if (fork.getKeysFound() > keysFound || fork.isMazeCompleted()) {
+					keysFound = fork.getKeysFound();
+					score += (long) depth * (depth - step);
+				}
+			}
+			return score;
+		}
+
+		/**
+		 * A key or the door when every key is found, else a random direction
+		 * towards a cell not stood on, else a random free one
+		 */
+		private Action next(Maze fork, LongHashSet seen, SplittableRandom random) {
+			int surroundings = fork.lookAround();
+			int goals = Surroundings.directionsTo(surroundings, Cell.KEY);
+			if (fork.getKeysFound() == fork.getTotalNumberOfKeys()) {
+				goals |= Surroundings.directionsTo(surroundings, Cell.DOOR);
+			}
+			if (goals != 0) {
+				return MazeUtils.firstAction(goals, availableActions);
+			}
+			int free = Surroundings.free(surroundings);
+			Position position = fork.getKeeperPosition();
+			int fresh = 0;
+			for (int a = 0; a < availableActions.size(); a++) {
+				Action action = availableActions.get(a);
+				int vertical = position.getVertical() + MazeUtils.verticalStep(action);
+				int horizontal = position.getHorizontal() + MazeUtils.horizontalStep(action);
+				if (Surroundings.contains(free, action) && !seen.contains(Coordinates.pack(vertical, horizontal))
+						&& !visitedPositions.contains(vertical, horizontal)) {
+					fresh |= 1 << action.ordinal();
+				}
+			}
+			int directions = fresh != 0 ? fresh : free;
+			if (directions == 0) {
+				return Action.DO_NOTHING;
+			}
+			return nthAction(directions, random.nextInt(Integer.bitCount(directions)));
+		}
+
+		private Action nthAction(int directions, int n) {
+			for (int a = 0; a < availableActions.size(); a++) {
+				if (Surroundings.contains(directions, availableActions.get(a)) && n-- == 0) {
+					return availableActions.get(a);
+				}
+			}
+			return Action.DO_NOTHING;
+		}
+
+	}
+
+}
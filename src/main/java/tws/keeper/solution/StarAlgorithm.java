@@ -1,30 +1,40 @@
 package tws.keeper.solution;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import tws.keeper.metrics.Metrics;
 import tws.keeper.model.Action;
 import tws.keeper.model.Position;
 
 /**
- * Implementation of the well-known pathfinding A* algorithm
- * 
+ * Implementation of the well-known pathfinding A* algorithm. The positions
+ * visited by the keeper are mapped into the cells of their bounding box by a
+ * {@link KnownArea} so every per node data (G cost, parent, closed) lives in
+ * primitive arrays indexed by cell, and the open set is an indexed binary heap
+ * ordered by F cost, then H cost, then insertion order. A node reached again
+ * through a cheaper path while still open is re-parented, so the paths are
+ * always shortest ones. Every search records its duration, expansions and
+ * peak open set size in {@link Metrics}.
+ *
  * @author pedro
  *
  */
 public class StarAlgorithm {
 
-	private List<Node> visitedNodes;
-	private List<Node> open;
-	private List<Node> closed;
-	private ExploratoryAlgorithm observableUtils;
+	private static final int NO_PARENT = -1;
+
+	private Explorer observableUtils;
+
+	private long expansions;
+	private int peakOpen;
 
 	private static final String NO_PATH_FOUND = "No path to the target was found";
-	private static final String NO_NODES_VISITED = "None visited nodes";
 
-	public StarAlgorithm(ExploratoryAlgorithm mazeUtils) {
+	public StarAlgorithm(Explorer mazeUtils) {
 		this.observableUtils = mazeUtils;
 	}
 
@@ -32,93 +42,126 @@ public class StarAlgorithm {
 	 * Given the current keeper position, the door position and the positions
 	 * already visited in the map. We create a list of actions for reaching the door
 	 * position with the current knowledge of the map
-	 * 
-	 * @param keeperPosition
-	 * @param pheromoneTrack
-	 * @param doorPosition
+	 *
 	 * @return
 	 */
 	public List<Action> createPath() {
-		// Start node
-		Node startNode = new Node(observableUtils.getMaze().getKeeperPosition(), Action.DO_NOTHING);
+		long start = System.nanoTime();
+		long expanded = expansions;
+		peakOpen = 0;
+		try {
+			return search();
+		} finally {
+			Metrics.PATH_NANOS.record(System.nanoTime() - start);
+			Metrics.PATH_EXPANSIONS.record(expansions - expanded);
+			Metrics.PATH_PEAK_OPEN.record(peakOpen);
+		}
+	}
 
-		// Target node
-		Node targetNode = new Node(observableUtils.getDoorPosition(), Action.DO_NOTHING);
+	private List<Action> search() {
+		Position startPosition = observableUtils.getMaze().getKeeperPosition();
+		Position targetPosition = observableUtils.getDoorPosition();
+		List<Action> availableActions = observableUtils.getAvailableActions();
 
-		// Converting pheromoneTrack into a list of Node objects
-		visitedNodes = observableUtils.getVisitedPositions().stream()
-				.map(position -> new Node(position, Action.DO_NOTHING)).collect(Collectors.toList());
+		// Indexing the known cells
+		KnownArea area = new KnownArea(observableUtils.getVisitedPositions(), startPosition, targetPosition);
+		int cells = area.cells();
 
-		// The set of nodes to be evaluated
-		open = new ArrayList<Node>();
+		int start = area.cellOf(startPosition);
+		int target = area.cellOf(targetPosition);
+		int targetVertical = targetPosition.getVertical();
+		int targetHorizontal = targetPosition.getHorizontal();
 
-		// Initially only the start point is the one that can be evaluated
-		open.add(startNode);
+		// Per cell A* data
+		int[] gCost = new int[cells];
+		int[] parent = new int[cells];
+		Action[] actionAssociated = new Action[cells];
+		Arrays.fill(parent, NO_PARENT);
 
 		// The set of nodes already evaluated
-		closed = new ArrayList<Node>();
+		BitSet closed = new BitSet(cells);
+
+		// The set of nodes to be evaluated, initially only the start point
+		IndexedMinHeap open = new IndexedMinHeap(cells);
+		int startH = distance(startPosition.getVertical(), startPosition.getHorizontal(), targetVertical,
+				targetHorizontal);
+		open.push(start, startH, startH);
+		peakOpen = 1;
 
 		// Starting the search
 		while (!open.isEmpty()) {
 			// current = node in OPEN with the lowest f_cost && remove current from OPEN
-			final Node currentNode;
-			currentNode = pollLowestHeuristicNode();
+			int current = open.poll();
+			expansions++;
 
 			// add current to CLOSED
-			closed.add(currentNode);
+			closed.set(current);
 
-			if (currentNode.equals(targetNode)) {
+			if (current == target) {
 				// Path has been found
-				return extractPath(startNode, currentNode);
+				return extractPath(start, current, parent, actionAssociated);
 			}
 
+			int currentVertical = area.verticalOf(current);
+			int currentHorizontal = area.horizontalOf(current);
+
 			// Get current' neighbours
-			List<Node> nodes = possibleActions(currentNode, observableUtils.getAvailableActions());
+			for (Action action : availableActions) {
+				int neighbour = neighbourOf(currentVertical, currentHorizontal, action, area);
 
-			nodes.stream().forEach(neighbourNode -> {
 				// Go to next if neighbour is not traversal or is in the closed list
-				// All the possible neighbour in our case are traversal since we only
-				// take into consideration nodes that the keeper already visited
-				if (closed.contains(neighbourNode)) {
-					return;
+				if (neighbour == KnownArea.NO_CELL || closed.get(neighbour)) {
+					continue;
+				}
+
+				// Go to next if the neighbour was already reached through a path as cheap
+				int neighbourG = gCost[current] + 1;
+				boolean reached = open.contains(neighbour);
+				if (reached && neighbourG >= gCost[neighbour]) {
+					continue;
 				}
 
-				// Calculating new G cost for going to the neighbour node
-				double newMovementCostToNeighbour = currentNode.getgCost()
-						+ calculateDistance(currentNode, neighbourNode);
-				if (!open.contains(neighbourNode)) {
-					// Calculate costs
-					neighbourNode.setgCost(newMovementCostToNeighbour);
-					neighbourNode.sethCost(calculateDistance(neighbourNode, targetNode));
-
-					// Set parent to node
-					neighbourNode.setParent(currentNode);
-
-					// If neighbour is not in open, add it
-					if (!open.contains(neighbourNode)) {
-						open.add(neighbourNode);
-					}
+				// Calculate costs, set parent to node and add it to open
+				gCost[neighbour] = neighbourG;
+				parent[neighbour] = current;
+				actionAssociated[neighbour] = action;
+				int hCost = distance(area.verticalOf(neighbour), area.horizontalOf(neighbour), targetVertical,
+						targetHorizontal);
+				if (reached) {
+					open.decrease(neighbour, neighbourG + hCost, hCost);
+				} else {
+					open.push(neighbour, neighbourG + hCost, hCost);
+					peakOpen = Math.max(peakOpen, open.size());
 				}
-			});
+			}
 		}
 
 		throw new IllegalStateException(NO_PATH_FOUND);
 	}
 
+	/**
+	 * Nodes taken out of the open set by the searches of this instance
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
 	/**
 	 * Return the actions to reach the target no from the start node
-	 * 
-	 * @param startNode
-	 * @param targetNode
+	 *
+	 * @param start
+	 * @param target
+	 * @param parent
+	 * @param actionAssociated
 	 * @return
 	 */
-	private List<Action> extractPath(Node startNode, Node targetNode) {
+	private List<Action> extractPath(int start, int target, int[] parent, Action[] actionAssociated) {
 		List<Action> actionsToGetToTargetNode = new ArrayList<>();
-		Node currentNode = targetNode;
+		int current = target;
 
-		while (!currentNode.equals(startNode)) {
-			actionsToGetToTargetNode.add(currentNode.getActionAssociated());
-			currentNode = currentNode.getParent();
+		while (current != start) {
+			actionsToGetToTargetNode.add(actionAssociated[current]);
+			current = parent[current];
 		}
 
 		Collections.reverse(actionsToGetToTargetNode);
@@ -126,73 +169,42 @@ public class StarAlgorithm {
 	}
 
 	/**
-	 * Given the current node and the already known visited nodes we return those
-	 * nodes that we can get to with the possible actions (RIGHT, LEFT, UP, DOWN)
-	 * 
-	 * @param current
-	 * @return
-	 */
-	private List<Node> possibleActions(Node current, List<Action> availableActions) {
-		if (visitedNodes == null) {
-			throw new IllegalStateException(NO_NODES_VISITED);
-		}
-
-		List<Node> possibleActions = new ArrayList<Node>();
-
-		availableActions.stream().forEach(action -> updatePossibleActions(current, possibleActions, action));
-
-		return possibleActions;
-	}
-
-	/**
-	 * Update the list of possible actions to be
-	 * 
-	 * @param current
-	 * @param possibleActions
+	 * Given a cell, the cell we get to with the action if it is traversable.
+	 * Otherwise {@link KnownArea#NO_CELL}
+	 *
+	 * @param vertical
+	 * @param horizontal
 	 * @param action
-	 */
-	private void updatePossibleActions(Node current, List<Node> possibleActions, Action action) {
-		Position positionAfterAction = MazeUtils.positionAfterAction(action, current.getPosition());
-		boolean positionAfterActionVisited = visitedNodes.stream().map(Node::getPosition)
-				.anyMatch(positionAfterAction::equals);
-		if (positionAfterActionVisited) {
-			possibleActions.add(new Node(positionAfterAction, action));
-		}
-	}
-
-	/**
-	 * Each time you poll a node in this method, the list will be re-ordered
-	 * 
+	 * @param area
 	 * @return
 	 */
-	private Node pollLowestHeuristicNode() {
-		Node current;
-		open = open.stream().sorted((a, b) -> {
-			int compareWithF = a.getfCost().compareTo(b.getfCost());
-
-			if (compareWithF == 0) {
-				return a.gethCost().compareTo(b.gethCost());
-			}
-
-			return compareWithF;
-		}).collect(Collectors.toList());
-		current = open.get(0);
-		open.remove(0);
-		return current;
+	private static int neighbourOf(int vertical, int horizontal, Action action, KnownArea area) {
+		switch (action) {
+		case GO_DOWN:
+			vertical++;
+			break;
+		case GO_UP:
+			vertical--;
+			break;
+		case GO_LEFT:
+			horizontal--;
+			break;
+		case GO_RIGHT:
+			horizontal++;
+			break;
+		default:
+			return KnownArea.NO_CELL;
+		}
+		return area.traversableCell(vertical, horizontal);
 	}
 
 	/**
 	 * Distance from a to b
-	 * 
-	 * @param a
-	 * @param b
+	 *
 	 * @return
 	 */
-	private double calculateDistance(Node a, Node b) {
-		double distX = Math.abs(a.getPosition().getHorizontal() - b.getPosition().getHorizontal());
-		double distY = Math.abs(a.getPosition().getVertical() - b.getPosition().getVertical());
-
-		return distX + distY;
+	static int distance(int verticalA, int horizontalA, int verticalB, int horizontalB) {
+		return Math.abs(horizontalA - horizontalB) + Math.abs(verticalA - verticalB);
 	}
 
 }
@@ -0,0 +1,187 @@
+package tws.keeper.springboot;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import tws.keeper.model.MazeListener;
+import tws.keeper.model.MazeSnapshot;
+import tws.keeper.model.Position;
+
+/**
+ * Pushes the changes of a maze to its subscribers as server-sent events: first "status" with the whole state when
+ * the stream opens, as {@link MazeSnapshot#toStatusJson()}, then "move" with the new keeper position, "key" with
+ * the position of a key picked up and "complete" when the door is opened. When the keeper fails instead, "failed"
+ * with the message of the failure ends the stream. Events are sent from an executor and never block the keeper.
+ * When a subscriber cannot keep up its pending moves are coalesced into the latest position, keys, completion and
+ * failure are never dropped.
+ */
+class MazeEventStream implements MazeListener {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final Executor executor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    MazeEventStream(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * A new subscriber receiving the current state and then the changes from it on. The keeper must not act
+     * meanwhile, the session lock must be held, so no change falls between the state and the first change sent.
+     */
+    SseEmitter subscribe(MazeSnapshot current) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, current);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Ends every subscription, clients reconnect to the stream of the next maze
+     */
+    void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    @Override
+    public void keeperMoved(Position position) {
+        subscribers.forEach(subscriber -> {
+            subscriber.pendingMove.set(position);
+            subscriber.schedule();
+        });
+    }
+
+    @Override
+    public void keyFound(Position position) {
+        subscribers.forEach(subscriber -> {
+            subscriber.pendingKeys.add(position);
+            subscriber.schedule();
+        });
+    }
+
+    @Override
+    public void mazeCompleted() {
+        subscribers.forEach(subscriber -> {
+            subscriber.pendingComplete = true;
+            subscriber.schedule();
+        });
+    }
+
+    /**
+     * The keeper threw and stopped playing, the subscribers get the message after the changes before it and then
+     * their streams end
+     */
+    void keeperFailed(String message) {
+        subscribers.forEach(subscriber -> {
+            subscriber.pendingFailure.compareAndSet(null, message);
+            subscriber.schedule();
+        });
+    }
+
+    private static String quoteJson(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Events not yet sent to a client, drained by a single task at a time
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicReference<MazeSnapshot> pendingStatus;
+        private final AtomicReference<Position> pendingMove = new AtomicReference<>();
+        private final Queue<Position> pendingKeys = new ConcurrentLinkedQueue<>();
+        private volatile boolean pendingComplete;
+        private final AtomicReference<String> pendingFailure = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, MazeSnapshot status) {
+            this.emitter = emitter;
+            this.pendingStatus = new AtomicReference<>(status);
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    MazeSnapshot status = pendingStatus.getAndSet(null);
+                    if (status != null) {
+                        emitter.send(SseEmitter.event().name("status").data(status.toStatusJson()));
+                        if (status.isMazeCompleted()) {
+                            finish();
+                            return;
+                        }
+                    }
+                    for (Position key = pendingKeys.poll(); key != null; key = pendingKeys.poll()) {
+                        emitter.send(SseEmitter.event().name("key").data(key.toJson()));
+                    }
+                    Position move = pendingMove.getAndSet(null);
+                    if (move != null) {
+                        emitter.send(SseEmitter.event().name("move").data(move.toJson()));
+                    }
+                    if (pendingComplete) {
+                        emitter.send(SseEmitter.event().name("complete").data("{}"));
+                        finish();
+                        return;
+                    }
+                    String failure = pendingFailure.get();
+                    if (failure != null) {
+                        emitter.send(SseEmitter.event().name("failed")
+                                .data("{\"message\":" + quoteJson(failure) + "}"));
+                        finish();
+                        return;
+                    }
+                    draining.set(false);
+                } while (hasPending() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * The maze is completed or the keeper failed, nothing else will be sent
+         */
+        private void finish() {
+            emitter.complete();
+            subscribers.remove(this);
+        }
+
+        private boolean hasPending() {
+            return pendingStatus.get() != null || pendingMove.get() != null || !pendingKeys.isEmpty() || pendingComplete
+                    || pendingFailure.get() != null;
+        }
+
+    }
+
+}
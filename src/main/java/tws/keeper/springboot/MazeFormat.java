@@ -0,0 +1,88 @@
+package tws.keeper.springboot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import tws.keeper.model.MazeSnapshot;
+
+/**
+ * Encodings served by /api/maze
+ */
+enum MazeFormat {
+
+    JSON("json", MediaType.APPLICATION_JSON_VALUE) {
+        @Override
+        void write(MazeSnapshot maze, OutputStream out) throws IOException {
+            maze.writeJson(out);
+        }
+    },
+    RLE("rle", "text/vnd.keeper.maze-rle") {
+        @Override
+        void write(MazeSnapshot maze, OutputStream out) throws IOException {
+            maze.writeRle(out);
+        }
+    },
+    PACKED("packed", "application/vnd.keeper.maze-packed") {
+        @Override
+        void write(MazeSnapshot maze, OutputStream out) throws IOException {
+            maze.writePacked(out);
+        }
+    };
+
+    private static final String UNKNOWN_FORMAT = "Unknown maze format: %s";
+
+    private final String name;
+    private final MediaType mediaType;
+
+    MazeFormat(String name, String mediaType) {
+        this.name = name;
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    abstract void write(MazeSnapshot maze, OutputStream out) throws IOException;
+
+    MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The format named in the request or else the first one accepted, json by default and when the Accept header
+     * cannot be parsed
+     *
+     * @throws IllegalArgumentException if the name is not one of the formats
+     */
+    static MazeFormat of(String name, String accept) {
+        if (name != null && !name.isEmpty()) {
+            for (MazeFormat format : values()) {
+                if (format.name.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException(String.format(UNKNOWN_FORMAT, name));
+        }
+        if (accept != null) {
+            for (MediaType accepted : acceptedTypes(accept)) {
+                for (MazeFormat format : values()) {
+                    if (!accepted.isWildcardType() && accepted.includes(format.mediaType)) {
+                        return format;
+                    }
+                }
+            }
+        }
+        return JSON;
+    }
+
+    private static List<MediaType> acceptedTypes(String accept) {
+        try {
+            return MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return Collections.emptyList();
+        }
+    }
+
+}
@@ -1,59 +1,181 @@
 package tws.keeper.springboot;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import tws.keeper.solution.KeeperAI;
-import tws.keeper.model.Maze;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tws.keeper.model.Keeper;
-import tws.keeper.model.Position;
+import tws.keeper.model.Maze;
+import tws.keeper.model.MazeSnapshot;
+import tws.keeper.model.Trajectory;
+import tws.keeper.solution.DecisionTracer;
+import tws.keeper.solution.KeeperAI;
 
-import java.util.stream.Collectors;
+import javax.servlet.http.HttpSession;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Every player plays its own maze, kept in the {@link MazeSessionRegistry} under the id of its http session
+ */
 @RestController
 @RequestMapping("/api")
 public class MazeRestApi {
 
-    private Maze maze;
-    private Keeper keeper;
+    private static final String DEFAULT_TRACE_RECORDS = "100";
+    private static final String INVALID_RUN_LIMITS = "Invalid run limits: %d steps, %d ms";
 
-    {
-        reset();
+    private final MazeSessionRegistry sessions;
+    private final int maxRunSteps;
+    private final long maxRunMillis;
+
+    /**
+     * A run holds a request thread and the lock of its session, so it is limited to maxRunSteps steps and
+     * maxRunMillis
+     */
+    MazeRestApi(MazeSessionRegistry sessions,
+                @Value("${keeper.run.max-steps:100000}") int maxRunSteps,
+                @Value("${keeper.run.max-budget-ms:10000}") long maxRunMillis) {
+        if (maxRunSteps < 1 || maxRunMillis < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_RUN_LIMITS, maxRunSteps, maxRunMillis));
+        }
+        this.sessions = sessions;
+        this.maxRunSteps = maxRunSteps;
+        this.maxRunMillis = maxRunMillis;
     }
 
+    /**
+     * The maze streamed as json, run-length encoded rows (format=rle) or packed cells (format=packed).
+     * The format can also be chosen with the Accept header. Bad request for a format that is not one of these
+     */
     @RequestMapping(value = "/maze", method = RequestMethod.GET)
-    public ResponseEntity<String> maze() {
-        return new ResponseEntity(maze.toJson(), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> maze(@RequestParam(value = "format", required = false) String format,
+                                                      @RequestHeader(value = "Accept", required = false) String accept,
+                                                      HttpSession httpSession) {
+        MazeFormat mazeFormat;
+        try {
+            mazeFormat = MazeFormat.of(format, accept);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // Written from the snapshot without the lock, so a slow client does not hold back its keeper
+        MazeSnapshot current = sessions.peek(httpSession.getId(), MazeSession::getSnapshot);
+        return ResponseEntity.ok().contentType(mazeFormat.getMediaType()).body(out -> mazeFormat.write(current, out));
     }
 
     @RequestMapping(value = "/status", method = RequestMethod.GET)
-    public ResponseEntity<String> status() {
-        return new ResponseEntity(getStatusJson(), HttpStatus.OK);
+    public ResponseEntity<String> status(HttpSession httpSession) {
+        String json = sessions.peek(httpSession.getId(), MazeSession::getSnapshot).toStatusJson();
+        return new ResponseEntity<>(json, HttpStatus.OK);
     }
 
     @RequestMapping(value = "/reset", method = RequestMethod.GET)
-    public ResponseEntity reset() {
-        keeper = new KeeperAI();
-        maze = new Maze(keeper);
-        return new ResponseEntity(HttpStatus.OK);
+    public ResponseEntity<String> reset(HttpSession httpSession) {
+        sessions.reset(httpSession.getId());
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Server-sent events with the state of the maze and then its changes: keeper moves, keys found and completion
+     */
+    @RequestMapping(value = "/events", method = RequestMethod.GET)
+    public SseEmitter events(HttpSession httpSession) {
+        return sessions.withSession(httpSession.getId(),
+                session -> session.getEvents().subscribe(session.getSnapshot()));
+    }
+
+    /**
+     * Let the server make the keeper act at the rate of the {@link TickScheduler}, until the maze is completed or
+     * the game stopped. The moves arrive through /events.
+     */
+    @RequestMapping(value = "/start", method = RequestMethod.GET)
+    public ResponseEntity<String> start(HttpSession httpSession) {
+        sessions.withSession(httpSession.getId(), session -> {
+            session.setRunning(true);
+            return session;
+        });
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @RequestMapping(value = "/stop", method = RequestMethod.GET)
+    public ResponseEntity<String> stop(HttpSession httpSession) {
+        sessions.withSession(httpSession.getId(), session -> {
+            session.setRunning(false);
+            return session;
+        });
+        return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @RequestMapping(value = "/act", method = RequestMethod.GET)
-    public ResponseEntity<String> act() {
-        maze.makeKeeperAct();
-        return new ResponseEntity(HttpStatus.OK);
+    public ResponseEntity<String> act(HttpSession httpSession) {
+        sessions.withSession(httpSession.getId(), session -> session.getMaze().makeKeeperAct());
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Make the keeper act up to steps times, until the maze is completed or the time budget runs out. Both are
+     * the configured maximums by default and cannot exceed them, keeper.run.max-steps and keeper.run.max-budget-ms.
+     * Responds with the moves made, packed 2 bits each in base64 (see {@link Trajectory}), and the final status
+     */
+    @RequestMapping(value = "/run", method = RequestMethod.GET)
+    public ResponseEntity<String> run(@RequestParam(value = "steps", required = false) Integer stepsParam,
+                                      @RequestParam(value = "budgetMs", required = false) Long budgetParam,
+                                      HttpSession httpSession) {
+        int steps = stepsParam != null ? stepsParam : maxRunSteps;
+        long budgetMs = budgetParam != null ? budgetParam : maxRunMillis;
+        if (steps < 0 || steps > maxRunSteps || budgetMs <= 0 || budgetMs > maxRunMillis) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        String json = sessions.withSession(httpSession.getId(), session -> {
+            Maze maze = session.getMaze();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+            Trajectory trajectory = new Trajectory();
+            int step = 0;
+            while (step < steps && !maze.isMazeCompleted() && System.nanoTime() - deadline < 0) {
+                trajectory.add(maze.makeKeeperAct());
+                step++;
+            }
+            return getRunJson(maze.snapshot(), step, trajectory);
+        });
+        return new ResponseEntity<>(json, HttpStatus.OK);
+    }
+
+    /**
+     * The last decisions of the keeper, oldest first, see {@link DecisionTracer}. Not found unless the keepers are
+     * traced, with keeper.trace.capacity
+     */
+    @RequestMapping(value = "/trace", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> trace(@RequestParam(value = "last", defaultValue = DEFAULT_TRACE_RECORDS) int last,
+                                        HttpSession httpSession) {
+        if (last < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        DecisionTracer tracer = sessions.withSession(httpSession.getId(), session -> {
+            Keeper keeper = session.getMaze().getKeeper();
+            return keeper instanceof KeeperAI ? ((KeeperAI) keeper).getTracer() : null;
+        });
+        if (tracer == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // Read without the lock, the tracer drops the records the keeper overwrites meanwhile
+        String json = tracer.toJson(last);
+        return new ResponseEntity<>(json, HttpStatus.OK);
     }
 
-    private String getStatusJson() {
+    private String getRunJson(MazeSnapshot maze, int steps, Trajectory trajectory) {
         return "{\n" +
-                " \"keeper\":" + maze.getKeeperPosition().toJson() + ",\n" +
-                " \"door\":" + maze.getDoorPosition().toJson() + ",\n" +
-                " \"keys\":[" + maze.getKeysPositions().stream().map(Position::toJson).collect(Collectors.joining(",")) + "],\n" +
-                " \"found\":[" + maze.getKeysFoundPositions().stream().map(Position::toJson).collect(Collectors.joining(",")) + "],\n" +
-                " \"complete\":" + maze.isMazeCompleted() +
+                " \"steps\":" + steps + ",\n" +
+                " \"moves\":" + trajectory.getMoves() + ",\n" +
+                " \"idle\":" + trajectory.getIdleSteps() + ",\n" +
+                " \"trajectory\":\"" + trajectory.toBase64() + "\",\n" +
+                " \"status\":" + maze.toStatusJson() +
                 "}\n";
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package tws.keeper.springboot;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import tws.keeper.model.Maze;
+import tws.keeper.model.MazeSnapshot;
+import tws.keeper.solution.KeeperAI;
+
+/**
+ * The game of one player: a maze, its keeper and the stream of its changes. Every access goes through
+ * {@link #lock()}, so the actions of a player are applied one at a time, except reading its snapshot.
+ */
+class MazeSession {
+
+    private final String id;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MazeEventStream events;
+    private volatile Maze maze;
+    private long footprintBytes;
+    private volatile long lastAccess;
+    private volatile boolean closed;
+    private volatile boolean running;
+
+    MazeSession(String id, MazeEventStream events, long now) {
+        this.id = id;
+        this.events = events;
+        this.lastAccess = now;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Held while the maze is read or the keeper acts
+     */
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * The maze being played, the lock must be held
+     */
+    Maze getMaze() {
+        return maze;
+    }
+
+    /**
+     * The state of the maze after its last step, readable without the lock
+     */
+    MazeSnapshot getSnapshot() {
+        return maze.snapshot();
+    }
+
+    MazeEventStream getEvents() {
+        return events;
+    }
+
+    /**
+     * Replace the maze with a new one and return how many bytes the footprint grew, the lock must be held
+     */
+    long reset(Supplier<Maze> mazes) {
+        if (maze != null) {
+            maze.removeListener(events);
+            events.close();
+        }
+        running = false;
+        maze = mazes.get();
+        maze.addListener(events);
+        return measure();
+    }
+
+    /**
+     * Count again the bytes held by the maze and its keeper, which grow as the keeper learns, and return how many
+     * bytes the footprint grew. The lock must be held.
+     */
+    long measure() {
+        long previous = footprintBytes;
+        footprintBytes = maze.getFootprintBytes();
+        if (maze.getKeeper() instanceof KeeperAI) {
+            footprintBytes += ((KeeperAI) maze.getKeeper()).getFootprintBytes();
+        }
+        return footprintBytes - previous;
+    }
+
+    long getFootprintBytes() {
+        return footprintBytes;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    /**
+     * Whether the {@link TickScheduler} makes the keeper act
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    /**
+     * Evicted sessions are closed, the players holding them get a new one on their next request
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        events.close();
+    }
+
+}
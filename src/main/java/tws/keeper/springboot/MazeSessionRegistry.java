@@ -0,0 +1,296 @@
+package tws.keeper.springboot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tws.keeper.model.Maze;
+import tws.keeper.solution.DecisionTracer;
+import tws.keeper.solution.KeeperAI;
+
+/**
+ * The games being played, one per session id. Sessions are created on first use and evicted when they have been
+ * idle too long, or least recently used first when there are too many of them or they take too much memory: their
+ * mazes and what their keepers learned, measured after every action. A session busy with a request or a step is
+ * never waited for, it is left for a later eviction.
+ */
+@Component
+class MazeSessionRegistry {
+
+    private static final String INVALID_LIMITS = "Invalid session limits: %d sessions, %d bytes, %d ms idle";
+
+    private final Map<String, MazeSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong footprintBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private final int maxSessions;
+    private final long maxFootprintBytes;
+    private final long idleNanos;
+    private final Supplier<Maze> mazes;
+    private final LongSupplier clock;
+    private final ExecutorService eventExecutor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "maze-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "maze-sessions-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * When a maze file is configured every reset loads it, otherwise a new random maze is generated
+     */
+    @Autowired
+    MazeSessionRegistry(@Value("${keeper.sessions.max:1000}") int maxSessions,
+                        @Value("${keeper.sessions.max-bytes:268435456}") long maxFootprintBytes,
+                        @Value("${keeper.sessions.idle-minutes:30}") long idleMinutes,
+                        @Value("${keeper.maze.file:}") String mazeFile,
+                        @Value("${keeper.explorer:depth_first}") String explorer,
+                        @Value("${keeper.homing:star}") String homing,
+                        @Value("${keeper.trace.capacity:0}") int traceCapacity,
+                        @Value("${keeper.rollout.budget-micros:2000}") long rolloutBudgetMicros) {
+        this(maxSessions, maxFootprintBytes, TimeUnit.MINUTES.toMillis(idleMinutes),
+                mazes(mazeFile, keepers(KeeperAI.Mode.valueOf(explorer.toUpperCase()),
+                        KeeperAI.Homing.valueOf(homing.toUpperCase()), traceCapacity,
+                        TimeUnit.MICROSECONDS.toNanos(rolloutBudgetMicros))),
+                System::nanoTime);
+        long sweepMillis = Math.max(1, Math.min(TimeUnit.MINUTES.toMillis(1), TimeUnit.NANOSECONDS.toMillis(idleNanos)));
+        sweeper.scheduleWithFixedDelay(() -> {
+            evictIdle();
+            evictExcess();
+        }, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    MazeSessionRegistry(int maxSessions, long maxFootprintBytes, long idleMillis, Supplier<Maze> mazes,
+                        LongSupplier clock) {
+        if (maxSessions < 1 || maxFootprintBytes < 1 || idleMillis < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_LIMITS, maxSessions, maxFootprintBytes, idleMillis));
+        }
+        this.maxSessions = maxSessions;
+        this.maxFootprintBytes = maxFootprintBytes;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.mazes = mazes;
+        this.clock = clock;
+    }
+
+    /**
+     * Apply the action to the session with this id, creating it if needed. The actions on a session are applied
+     * one at a time, actions on different sessions run concurrently.
+     */
+    <T> T withSession(String id, Function<MazeSession, T> action) {
+        while (true) {
+            MazeSession session = sessions.get(id);
+            if (session == null) {
+                session = create(id);
+            }
+            session.lock().lock();
+            try {
+                if (!session.isClosed()) {
+                    session.touch(clock.getAsLong());
+                    try {
+                        return action.apply(session);
+                    } finally {
+                        footprintBytes.addAndGet(session.measure());
+                    }
+                }
+            } finally {
+                session.lock().unlock();
+            }
+            // Evicted meanwhile, the next round finds or creates its replacement
+        }
+    }
+
+    /**
+     * Read from the session with this id without its lock, creating it if needed. The reader must only use what is
+     * safe to read while the keeper acts, like {@link MazeSession#getSnapshot()}.
+     */
+    <T> T peek(String id, Function<MazeSession, T> reader) {
+        MazeSession session = sessions.get(id);
+        if (session == null || session.isClosed()) {
+            return withSession(id, reader);
+        }
+        session.touch(clock.getAsLong());
+        return reader.apply(session);
+    }
+
+    /**
+     * Start a new maze in the session with this id
+     */
+    void reset(String id) {
+        withSession(id, session -> footprintBytes.addAndGet(session.reset(mazes)));
+        evictExcess();
+    }
+
+    /**
+     * Number of live sessions
+     */
+    int size() {
+        return sessions.size();
+    }
+
+    /**
+     * The live sessions, a view that follows the sessions created and evicted. Their lock must be held to use them.
+     */
+    Collection<MazeSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * Count again the bytes held by the session after its keeper acted, its lock must be held
+     */
+    void measure(MazeSession session) {
+        footprintBytes.addAndGet(session.measure());
+    }
+
+    /**
+     * Approximate bytes held by the mazes and keepers of the live sessions
+     */
+    long getFootprintBytes() {
+        return footprintBytes.get();
+    }
+
+    /**
+     * Close the sessions that have not been used within the idle time, but the busy ones
+     */
+    void evictIdle() {
+        long now = clock.getAsLong();
+        for (MazeSession session : sessions.values()) {
+            if (now - session.getLastAccess() > idleNanos) {
+                tryEvict(session);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+        for (MazeSession session : sessions.values()) {
+            session.lock().lock();
+            try {
+                evictLocked(session);
+            } finally {
+                session.lock().unlock();
+            }
+        }
+        eventExecutor.shutdown();
+    }
+
+    /**
+     * A new session holding its lock until its first maze is ready, so nobody sees it empty
+     */
+    private MazeSession create(String id) {
+        MazeSession session = new MazeSession(id, new MazeEventStream(eventExecutor), clock.getAsLong());
+        session.lock().lock();
+        try {
+            MazeSession existing = sessions.putIfAbsent(id, session);
+            if (existing != null) {
+                return existing;
+            }
+            footprintBytes.addAndGet(session.reset(mazes));
+        } finally {
+            session.lock().unlock();
+        }
+        evictExcess();
+        return session;
+    }
+
+    /**
+     * Evict the least recently used sessions while over the limits. The sessions are scanned, which is cheap next
+     * to the cost of generating the maze that made the registry grow. The most recent session is always kept, and
+     * the busy ones are skipped for the next oldest, so the limits may be exceeded until they are done.
+     */
+    private void evictExcess() {
+        synchronized (evictionLock) {
+            Set<MazeSession> busy = new HashSet<>();
+            while (sessions.size() - busy.size() > 1
+                    && (sessions.size() > maxSessions || footprintBytes.get() > maxFootprintBytes)) {
+                MazeSession oldest = null;
+                for (MazeSession session : sessions.values()) {
+                    if (!busy.contains(session)
+                            && (oldest == null || session.getLastAccess() - oldest.getLastAccess() < 0)) {
+                        oldest = session;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                if (!tryEvict(oldest)) {
+                    busy.add(oldest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict the session unless its lock is held, false when it is busy
+     */
+    private boolean tryEvict(MazeSession session) {
+        if (!session.lock().tryLock()) {
+            return false;
+        }
+        try {
+            evictLocked(session);
+            return true;
+        } finally {
+            session.lock().unlock();
+        }
+    }
+
+    private void evictLocked(MazeSession session) {
+        if (!session.isClosed() && sessions.remove(session.getId(), session)) {
+            session.close();
+            footprintBytes.addAndGet(-session.getFootprintBytes());
+        }
+    }
+
+    private static Supplier<Maze> mazes(String mazeFile, Supplier<KeeperAI> keepers) {
+        return mazeFile.isEmpty() ? () -> new Maze(keepers.get()) : () -> loadMaze(mazeFile, keepers.get());
+    }
+
+    /**
+     * Keepers tracing their last traceCapacity decisions, none when it is 0. The rollout budget is only used by
+     * {@link KeeperAI.Mode#ROLLOUT}, whose rollouts stay on the thread that acts: the tick workers and the request
+     * threads already play the sessions in parallel.
+     */
+    private static Supplier<KeeperAI> keepers(KeeperAI.Mode mode, KeeperAI.Homing homing, int traceCapacity,
+                                              long rolloutBudgetNanos) {
+        return () -> {
+            KeeperAI keeper = new KeeperAI(mode, homing);
+            keeper.setRolloutBudget(rolloutBudgetNanos);
+            if (traceCapacity > 0) {
+                keeper.setTracer(new DecisionTracer(traceCapacity));
+            }
+            return keeper;
+        };
+    }
+
+    private static Maze loadMaze(String mazeFile, KeeperAI keeper) {
+        try {
+            return Maze.load(Paths.get(mazeFile), keeper);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package tws.keeper.springboot;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import tws.keeper.metrics.Metrics;
+
+/**
+ * What the keepers of every session have been doing, see {@link Metrics}, along with the sessions alive and the
+ * ticks of the {@link TickScheduler}
+ */
+@RestController
+@RequestMapping("/api")
+public class MetricsRestApi {
+
+    private final MazeSessionRegistry sessions;
+    private final TickScheduler ticks;
+
+    MetricsRestApi(MazeSessionRegistry sessions, TickScheduler ticks) {
+        this.sessions = sessions;
+        this.ticks = ticks;
+    }
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> metrics() {
+        String json = "{\n" +
+                " \"sessions\":{\"count\":" + sessions.size() + ",\"bytes\":" + sessions.getFootprintBytes() + "},\n" +
+                " \"ticks\":" + ticks.toJson() + ",\n" +
+                " \"keeper\":" + Metrics.toJson() + "\n" +
+                "}\n";
+        return new ResponseEntity<>(json, HttpStatus.OK);
+    }
+
+}
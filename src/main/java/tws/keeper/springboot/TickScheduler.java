@@ -0,0 +1,247 @@
+package tws.keeper.springboot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tws.keeper.metrics.Histogram;
+
+/**
+ * Makes the keepers of the running sessions act on the server, one step per tick, so players only watch the
+ * events. A single scheduler thread starts the ticks at a fixed rate and splits the running sessions in batches
+ * played by a fixed pool of workers. A tick that finds the previous one still running is skipped instead of piling
+ * up, and a session busy with a request of its player skips its step. A keeper that fails stops its session and
+ * its subscribers are told why.
+ */
+@Component
+class TickScheduler {
+
+    private static final String INVALID_SETTINGS = "Invalid tick settings: %d per second, batches of %d";
+    private static final String INVALID_WORKERS = "Invalid number of tick workers: %d";
+    private static final String KEEPER_FAILED = "The keeper failed: %s";
+
+    private final MazeSessionRegistry sessions;
+    private final int batchSize;
+    private final Executor workers;
+    private final LongSupplier clock;
+    private final long periodNanos;
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder skippedTicks = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder busySessions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejectedBatches = new LongAdder();
+    private final Histogram tickNanos = new Histogram();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    TickScheduler(MazeSessionRegistry sessions,
+                  @Value("${keeper.ticks.rate:20}") int ticksPerSecond,
+                  @Value("${keeper.ticks.batch:64}") int batchSize,
+                  @Value("${keeper.ticks.workers:0}") int workers) {
+        this(sessions, ticksPerSecond, batchSize, workerPool(workers), System::nanoTime);
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "maze-ticks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    TickScheduler(MazeSessionRegistry sessions, int ticksPerSecond, int batchSize, Executor workers,
+                  LongSupplier clock) {
+        if (ticksPerSecond < 1 || ticksPerSecond > TimeUnit.SECONDS.toNanos(1) || batchSize < 1) {
+            throw new IllegalArgumentException(String.format(INVALID_SETTINGS, ticksPerSecond, batchSize));
+        }
+        this.sessions = sessions;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.clock = clock;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+    }
+
+    /**
+     * Start a tick: one step for every running session, in batches handed to the workers. Skipped when the batches
+     * of the previous tick are not done yet. The tick holds a batch of its own until every batch is handed, so the
+     * last one to finish is known. A batch the workers reject is not played this tick, and nothing thrown escapes
+     * to the scheduler, which would stop ticking.
+     */
+    void tick() {
+        if (batchesInFlight.get() > 0) {
+            skippedTicks.increment();
+            return;
+        }
+        ticks.increment();
+        long start = clock.getAsLong();
+        batchesInFlight.incrementAndGet();
+        try {
+            List<MazeSession> running = new ArrayList<>();
+            for (MazeSession session : sessions.getSessions()) {
+                if (session.isRunning()) {
+                    running.add(session);
+                }
+            }
+            for (int from = 0; from < running.size(); from += batchSize) {
+                List<MazeSession> batch = running.subList(from, Math.min(running.size(), from + batchSize));
+                batchesInFlight.incrementAndGet();
+                try {
+                    workers.execute(() -> play(batch, start));
+                } catch (RejectedExecutionException e) {
+                    rejectedBatches.increment();
+                    batchesInFlight.decrementAndGet();
+                }
+            }
+        } finally {
+            batchDone(start);
+        }
+    }
+
+    /**
+     * Ticks started since the scheduler was created
+     */
+    long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * Ticks not started because the previous one was still running
+     */
+    long getSkippedTicks() {
+        return skippedTicks.sum();
+    }
+
+    /**
+     * Ticks that took longer than the period between two ticks
+     */
+    long getOverruns() {
+        return overruns.sum();
+    }
+
+    /**
+     * Steps made by the keepers of the running sessions
+     */
+    long getSteps() {
+        return steps.sum();
+    }
+
+    /**
+     * Steps skipped because their session was busy with a request of its player
+     */
+    long getBusySessions() {
+        return busySessions.sum();
+    }
+
+    /**
+     * Steps in which the keeper threw, each one stopped its session
+     */
+    long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Batches the workers refused, their sessions did not step in that tick
+     */
+    long getRejectedBatches() {
+        return rejectedBatches.sum();
+    }
+
+    String toJson() {
+        return "{\"periodNanos\":" + periodNanos + ",\"ticks\":" + getTicks() + ",\"skipped\":" + getSkippedTicks()
+                + ",\"overruns\":" + getOverruns() + ",\"steps\":" + getSteps() + ",\"busy\":" + getBusySessions()
+                + ",\"failures\":" + getFailures() + ",\"rejected\":" + getRejectedBatches()
+                + ",\"nanos\":" + tickNanos.toJson() + "}";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workers instanceof ExecutorService) {
+            ((ExecutorService) workers).shutdownNow();
+        }
+    }
+
+    /**
+     * A step for each session of the batch. The last batch of the tick to finish records how long the tick took.
+     */
+    private void play(List<MazeSession> batch, long start) {
+        try {
+            batch.forEach(this::step);
+        } finally {
+            batchDone(start);
+        }
+    }
+
+    /**
+     * A batch of the tick is done, the last one records how long the tick took
+     */
+    private void batchDone(long start) {
+        if (batchesInFlight.decrementAndGet() == 0) {
+            long elapsed = clock.getAsLong() - start;
+            tickNanos.record(elapsed);
+            if (elapsed > periodNanos) {
+                overruns.increment();
+            }
+        }
+    }
+
+    /**
+     * A step of the keeper of the session, unless a request holds it. The session stops running when its maze is
+     * completed or its keeper fails, which is counted and sent to the subscribers of the session.
+     */
+    private void step(MazeSession session) {
+        if (!session.lock().tryLock()) {
+            busySessions.increment();
+            return;
+        }
+        try {
+            if (session.isClosed() || !session.isRunning()) {
+                return;
+            }
+            if (session.getMaze().isMazeCompleted()) {
+                session.setRunning(false);
+                return;
+            }
+            session.getMaze().makeKeeperAct();
+            sessions.measure(session);
+            steps.increment();
+        } catch (RuntimeException e) {
+            failures.increment();
+            session.setRunning(false);
+            session.getEvents().keeperFailed(String.format(KEEPER_FAILED, e));
+        } finally {
+            session.lock().unlock();
+        }
+    }
+
+    private static ExecutorService workerPool(int workers) {
+        if (workers < 0) {
+            throw new IllegalArgumentException(String.format(INVALID_WORKERS, workers));
+        }
+        int threads = workers == 0 ? Runtime.getRuntime().availableProcessors() : workers;
+        AtomicInteger created = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "maze-ticks-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -1,33 +1,69 @@
 var maze;
 var oldkeeper;
 var gamestatus;
-var timer;
+var events;
 
 // Hit the /maze endpoint to retrieve the status of the maze
 function initialize() {
   var xhttp = new XMLHttpRequest();
   xhttp.onreadystatechange = function() {
     if (this.readyState == 4 && this.status == 200) {
-        maze = JSON.parse(this.responseText);
+        maze = decodeRle(this.responseText);
         document.getElementById("theMaze").innerHTML = mazeToHtml();
-        getStatus();
+        listen();
         }
   }
-  xhttp.open("GET", "/api/maze/", true);
+  xhttp.open("GET", "/api/maze/?format=rle", true);
   xhttp.send();
 }
 
-// Hit the /status endpoint to retrieve the status of the maze
-function getStatus() {
-  var xhttp = new XMLHttpRequest();
-  xhttp.onreadystatechange = function() {
-    if (this.readyState == 4 && this.status == 200) {
-        gamestatus = JSON.parse(this.responseText);
-        react();
+// Decodes the run-length encoded rows of /maze into the same object as its json
+function decodeRle(text) {
+  var names = {w: "wall", p: "path", k: "key", d: "door"};
+  var lines = text.split("\n");
+  var size = lines[0].split(" ");
+  var decoded = {height: parseInt(size[0]), width: parseInt(size[1]), cells: []};
+  for (var v = 1; v <= decoded.height; v++) {
+    var row = [];
+    var runs = lines[v].match(/\d+[a-z]/g) || [];
+    for (var r = 0; r < runs.length; r++) {
+      var name = names[runs[r].charAt(runs[r].length - 1)];
+      for (var count = parseInt(runs[r]); count > 0; count--) row.push(name);
     }
+    decoded.cells.push(row);
   }
-  xhttp.open("GET", "/api/status/", true);
-  xhttp.send();
+  return decoded;
+}
+
+// Subscribe to the /events stream, which sends the whole status when it opens, again on every reconnection,
+// and then only what changed
+function listen() {
+  if (events) events.close();
+  gamestatus = null;
+  oldkeeper = null;
+  events = new EventSource("/api/events");
+  events.addEventListener("status", function(e) {
+    gamestatus = JSON.parse(e.data);
+    react();
+    if (gamestatus.complete) events.close();
+  });
+  events.addEventListener("move", function(e) {
+    gamestatus.keeper = JSON.parse(e.data);
+    react();
+  });
+  events.addEventListener("key", function(e) {
+    gamestatus.found.push(JSON.parse(e.data));
+    react();
+  });
+  events.addEventListener("complete", function(e) {
+    gamestatus.complete = true;
+    events.close();
+    react();
+  });
+  events.addEventListener("failed", function(e) {
+    events.close();
+    document.getElementById("win").textContent = JSON.parse(e.data).message;
+  });
 }
 
 // updates the HTML to reflect the new status
@@ -38,24 +74,17 @@ function react() {
   document.getElementById("keysFound").innerHTML = gamestatus.found.length;
   document.getElementById("positionH").innerHTML = gamestatus.keeper.horizontal;
   document.getElementById("positionV").innerHTML = gamestatus.keeper.vertical;
-  document.getElementById("h"+gamestatus.keeper.horizontal+"v"+gamestatus.keeper.vertical).className = "mazebrick keeper";
   if(oldkeeper) document.getElementById("h"+oldkeeper.horizontal+"v"+oldkeeper.vertical).className = "mazebrick path";
+  document.getElementById("h"+gamestatus.keeper.horizontal+"v"+gamestatus.keeper.vertical).className = "mazebrick keeper";
   oldkeeper=gamestatus.keeper;
   document.getElementById("h"+gamestatus.door.horizontal+"v"+gamestatus.door.vertical).className = "mazebrick door";
   if(gamestatus.complete==true) playerWins();
 }
 
-// Hit the /act endpoint to make the keeper act
-function robotAct() {
-  var xhttp = new XMLHttpRequest();
-  xhttp.onreadystatechange = function() { if (this.readyState == 4 && this.status == 200) getStatus(); };
-  xhttp.open("GET", "/api/act/", true);
-  xhttp.send();
-}
-
 // Hit the /reset endpoint to start afresh
 function newWorld() {
   stopRobot();
+  if (events) events.close();
   document.getElementById("win").innerHTML = "";
   var xhttp = new XMLHttpRequest();
   xhttp.onreadystatechange = function() { if (this.readyState == 4 && this.status == 200) initialize(); };
@@ -63,14 +92,18 @@ function newWorld() {
   xhttp.send();
 }
 
-// starts the timer to act every x ms
+// Hit the /start endpoint, the server makes the keeper act and the changes arrive through /events
 function startRobot() {
-    timer = setInterval(robotAct , 50);
+  var xhttp = new XMLHttpRequest();
+  xhttp.open("GET", "/api/start/", true);
+  xhttp.send();
 }
 
-// clears the timer
+// Hit the /stop endpoint to stop the keeper
 function stopRobot() {
-    clearInterval(timer);
+  var xhttp = new XMLHttpRequest();
+  xhttp.open("GET", "/api/stop/", true);
+  xhttp.send();
 }
 
 // maze has been solved
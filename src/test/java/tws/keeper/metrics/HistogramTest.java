@@ -0,0 +1,62 @@
+package tws.keeper.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+	@Test
+	void testPercentilesWithinTheBucketPrecision() {
+		SplittableRandom random = new SplittableRandom(1L);
+		Histogram histogram = new Histogram();
+		long[] values = new long[100_000];
+		for (int i = 0; i < values.length; i++) {
+			// Spread over several orders of magnitude
+			values[i] = (long) Math.exp(random.nextDouble() * 20);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		assertEquals(values.length, histogram.getCount());
+		assertEquals(values[values.length - 1], histogram.getMax());
+		for (double fraction : new double[] { 0.1, 0.5, 0.9, 0.99, 0.999 }) {
+			long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+			long estimate = histogram.getPercentile(fraction);
+			assertTrue(estimate >= exact && estimate <= exact + exact / 16, fraction + ": " + estimate + " " + exact);
+		}
+	}
+
+	@Test
+	void testBucketsCoverEveryValue() {
+		assertEquals(0, Histogram.bucketOf(0));
+		assertEquals(Long.MAX_VALUE, Histogram.highestValueOf(Histogram.bucketOf(Long.MAX_VALUE)));
+		for (int bucket = 0; bucket < Histogram.bucketOf(Long.MAX_VALUE); bucket++) {
+			long highest = Histogram.highestValueOf(bucket);
+			assertEquals(bucket, Histogram.bucketOf(highest));
+			assertEquals(bucket + 1, Histogram.bucketOf(highest + 1));
+		}
+	}
+
+	@Test
+	void testEmptyAndReset() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getPercentile(0.5));
+		histogram.record(-5);
+		histogram.record(1000);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(0.5));
+		assertEquals(500.0, histogram.getMean());
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals("{\"count\":0,\"mean\":0.0,\"p50\":0,\"p90\":0,\"p99\":0,\"p999\":0,\"max\":0}",
+				histogram.toJson());
+	}
+
+}
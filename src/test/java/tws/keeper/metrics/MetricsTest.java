@@ -0,0 +1,41 @@
+package tws.keeper.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Maze;
+import tws.keeper.solution.KeeperAI;
+
+class MetricsTest {
+
+	@Test
+	void testPlayingAMazeIsMeasured() {
+		Metrics.reset();
+		KeeperAI keeper = new KeeperAI();
+		Maze maze = Maze.builder(keeper).height(31).width(31).seed(5L).build();
+		int steps = 0;
+		while (!maze.isMazeCompleted()) {
+			maze.makeKeeperAct();
+			steps++;
+		}
+		String json = maze.toJson();
+
+		assertEquals(1, Metrics.GENERATION_NANOS.getCount());
+		assertEquals(steps, Metrics.ACTS.sum());
+		assertEquals(steps / 16, Metrics.ACT_NANOS.getCount());
+		assertEquals(1, Metrics.JSON_NANOS.getCount());
+		assertEquals(json.length(), Metrics.JSON_BYTES.getMax());
+		assertEquals(keeper.getStarInvocations(), Metrics.PATH_NANOS.getCount());
+		assertEquals(keeper.getStarInvocations(), Metrics.PATH_PEAK_OPEN.getCount());
+		assertTrue(Metrics.FORWARD_STEPS.sum() > 0);
+		assertTrue(Metrics.toJson().contains("\"backtrackRatio\":"));
+
+		Metrics.reset();
+		assertEquals(0, Metrics.ACTS.sum());
+		assertEquals(0, Metrics.ACT_NANOS.getCount());
+		assertEquals(0, Metrics.FORWARD_STEPS.sum());
+	}
+
+}
@@ -0,0 +1,58 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class CellGridTest {
+
+	private static final int HEIGHT = 37;
+	private static final int WIDTH = 53;
+
+	@Test
+	void testNewGridIsAllWalls() {
+		assertAll(CellGrid.allocate(HEIGHT, WIDTH, false), Cell.WALL);
+		assertAll(CellGrid.allocate(HEIGHT, WIDTH, true), Cell.WALL);
+	}
+
+	@Test
+	void testSetAndGetOnHeap() {
+		assertRoundTrip(CellGrid.allocate(HEIGHT, WIDTH, false));
+	}
+
+	@Test
+	void testSetAndGetOffHeap() {
+		assertRoundTrip(CellGrid.allocate(HEIGHT, WIDTH, true));
+	}
+
+	private static void assertRoundTrip(CellGrid grid) {
+		Cell[] cells = Cell.values();
+		for (int i = 0; i < HEIGHT; i++) {
+			for (int j = 0; j < WIDTH; j++) {
+				grid.set(i, j, cells[(i * 7 + j * 3) % cells.length]);
+			}
+		}
+
+		for (int i = 0; i < HEIGHT; i++) {
+			for (int j = 0; j < WIDTH; j++) {
+				assertEquals(cells[(i * 7 + j * 3) % cells.length], grid.get(i, j));
+			}
+		}
+
+		// Overwriting a cell leaves its neighbours untouched
+		grid.set(10, 10, Cell.DOOR);
+		grid.set(10, 10, Cell.WALL);
+		assertEquals(Cell.WALL, grid.get(10, 10));
+		assertEquals(cells[(10 * 7 + 9 * 3) % cells.length], grid.get(10, 9));
+		assertEquals(cells[(10 * 7 + 11 * 3) % cells.length], grid.get(10, 11));
+	}
+
+	private static void assertAll(CellGrid grid, Cell expected) {
+		for (int i = 0; i < grid.height(); i++) {
+			for (int j = 0; j < grid.width(); j++) {
+				assertEquals(expected, grid.get(i, j));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class MazeEncoderTest {
+
+	private static final Keeper IDLE_KEEPER = maze -> Action.DO_NOTHING;
+	private static final int HEIGHT = 23;
+	private static final int WIDTH = 37;
+
+	private final Maze maze = Maze.builder(IDLE_KEEPER).height(HEIGHT).width(WIDTH).keys(5).seed(3L).build();
+
+	@Test
+	void testRleHasTheCellsOfTheJson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		maze.writeRle(out);
+		String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+
+		assertEquals(HEIGHT + " " + WIDTH, lines[0]);
+		assertEquals(HEIGHT + 1, lines.length);
+		List<String> cells = new ArrayList<>();
+		Matcher run = Pattern.compile("(\\d+)([wpkd])").matcher(String.join("", lines).substring(lines[0].length()));
+		while (run.find()) {
+			for (int i = 0; i < Integer.parseInt(run.group(1)); i++) {
+				cells.add(cellNamed(run.group(2)));
+			}
+		}
+
+		assertEquals(jsonCells(), cells);
+	}
+
+	@Test
+	void testPackedHasTheCellsOfTheJson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		maze.writePacked(out);
+		ByteBuffer packed = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+		assertEquals(HEIGHT, packed.getInt(0));
+		assertEquals(WIDTH, packed.getInt(4));
+		assertEquals(0, (packed.capacity() - 8) % 8);
+		List<String> cells = new ArrayList<>();
+		for (int i = 0; i < HEIGHT * WIDTH; i++) {
+			cells.add(Cell.values()[(packed.get(8 + i / 4) >> (2 * (i % 4))) & 3].toString());
+		}
+
+		assertEquals(jsonCells(), cells);
+	}
+
+	private List<String> jsonCells() {
+		List<String> cells = new ArrayList<>();
+		Matcher cell = Pattern.compile("\"(wall|path|key|door)\"").matcher(maze.toJson());
+		while (cell.find()) {
+			cells.add(cell.group(1));
+		}
+		return cells;
+	}
+
+	private static String cellNamed(String letter) {
+		for (Cell cell : Cell.values()) {
+			if (cell.toString().startsWith(letter)) {
+				return cell.toString();
+			}
+		}
+		throw new IllegalArgumentException(letter);
+	}
+
+}
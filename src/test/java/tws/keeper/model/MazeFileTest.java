@@ -0,0 +1,101 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.solution.KeeperAI;
+
+class MazeFileTest {
+
+	private static final Keeper IDLE_KEEPER = maze -> Action.DO_NOTHING;
+	private static final int HEIGHT = 45;
+	private static final int WIDTH = 70;
+	private static final int KEYS = 7;
+	private static final long SEED = 99L;
+
+	private Path file;
+
+	@BeforeEach
+	void createFile() throws IOException {
+		file = Files.createTempFile("maze", ".bin");
+	}
+
+	@AfterEach
+	void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void testGenerateAndOpen() throws IOException {
+		MazeFile.generate(file, HEIGHT, WIDTH, KEYS, SEED);
+		Maze maze = Maze.load(file, IDLE_KEEPER);
+		String json = maze.toJson();
+
+		assertEquals(SEED, maze.getSeed());
+		assertEquals(KEYS, maze.getTotalNumberOfKeys());
+		assertEquals(KEYS, maze.getKeysPositions().size());
+		assertEquals(KEYS, json.split("\"key\"", -1).length - 1);
+		assertEquals(1, json.split("\"door\"", -1).length - 1);
+		assertFalse(maze.getKeysPositions().contains(maze.getKeeperPosition()));
+		assertFalse(maze.getDoorPosition().equals(maze.getKeeperPosition()));
+	}
+
+	@Test
+	void testSameSeedGeneratesSameFile() throws IOException {
+		Path other = Files.createTempFile("maze", ".bin");
+		try {
+			MazeFile.generate(file, HEIGHT, WIDTH, KEYS, SEED);
+			MazeFile.generate(other, HEIGHT, WIDTH, KEYS, SEED);
+
+			assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(other));
+		} finally {
+			Files.deleteIfExists(other);
+		}
+	}
+
+	@Test
+	void testSaveAndLoad() throws IOException {
+		Maze maze = Maze.builder(IDLE_KEEPER).height(HEIGHT).width(WIDTH).keys(KEYS).seed(SEED).build();
+		maze.save(file);
+		Maze loaded = Maze.load(file, IDLE_KEEPER);
+
+		assertEquals(maze.toJson(), loaded.toJson());
+		assertEquals(maze.getSeed(), loaded.getSeed());
+		assertEquals(maze.getKeeperPosition(), loaded.getKeeperPosition());
+		assertEquals(maze.getDoorPosition(), loaded.getDoorPosition());
+		assertEquals(maze.getKeysPositions(), loaded.getKeysPositions());
+	}
+
+	@Test
+	void testPlayingLeavesTheFileAsItWas() throws IOException {
+		MazeFile.generate(file, HEIGHT, WIDTH, KEYS, SEED);
+		byte[] generated = Files.readAllBytes(file);
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(SEED);
+		Maze maze = Maze.load(file, keeper);
+		while (maze.getKeysFound() < KEYS) {
+			maze.makeKeeperAct();
+		}
+
+		assertArrayEquals(generated, Files.readAllBytes(file));
+		assertEquals(KEYS, maze.snapshot().getKeysFoundPositions().size());
+	}
+
+	@Test
+	void testOpenIsNotAMaze() throws IOException {
+		Files.write(file, new byte[128]);
+
+		assertThrows(IOException.class, () -> Maze.load(file, IDLE_KEEPER));
+	}
+
+}
@@ -0,0 +1,112 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.solution.KeeperAI;
+
+class MazeSnapshotTest {
+
+	@Test
+	void testSnapshotsDoNotChange() {
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(1L);
+		Maze maze = Maze.builder(keeper).height(41).width(41).keys(3).seed(2L).build();
+		MazeSnapshot initial = maze.snapshot();
+		String initialJson = initial.toJson();
+		while (maze.getKeysFound() == 0) {
+			maze.makeKeeperAct();
+		}
+		MazeSnapshot afterKey = maze.snapshot();
+		maze.makeKeeperAct();
+		MazeSnapshot later = maze.snapshot();
+
+		Position key = afterKey.getKeysFoundPositions().get(0);
+		assertEquals(maze.getKeysPositions(), initial.getKeysPositions());
+		assertTrue(initial.getKeysFoundPositions().isEmpty());
+		assertEquals(Cell.KEY, initial.getCell(key.getVertical(), key.getHorizontal()));
+		assertEquals(Cell.PATH, afterKey.getCell(key.getVertical(), key.getHorizontal()));
+		assertEquals(initialJson, initial.toJson());
+		assertNotEquals(initialJson, afterKey.toJson());
+		assertEquals(afterKey.getMoves() + 1, later.getMoves());
+		assertSame(afterKey.getKeysFoundPositions(), later.getKeysFoundPositions());
+		assertThrows(UnsupportedOperationException.class, () -> afterKey.getKeysFoundPositions().add(key));
+	}
+
+	@Test
+	void testPackedCellsShowTheKeysFound() throws IOException {
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(3L);
+		Maze maze = Maze.builder(keeper).height(37).width(53).keys(12).seed(4L).build();
+		while (!maze.isMazeCompleted()) {
+			maze.makeKeeperAct();
+		}
+		MazeSnapshot snapshot = maze.snapshot();
+		CellGrid expected = CellGrid.allocate(snapshot.getHeight(), snapshot.getWidth());
+		for (int v = 0; v < snapshot.getHeight(); v++) {
+			for (int h = 0; h < snapshot.getWidth(); h++) {
+				expected.set(v, h, snapshot.getCell(v, h));
+			}
+		}
+		ByteArrayOutputStream packed = new ByteArrayOutputStream();
+		snapshot.writePacked(packed);
+		ByteArrayOutputStream reference = new ByteArrayOutputStream();
+		MazeEncoder.writePacked(expected, reference);
+
+		assertEquals(12, snapshot.getKeysFoundPositions().size());
+		assertArrayEquals(reference.toByteArray(), packed.toByteArray());
+		assertEquals(MazeEncoder.writeJson(expected, new ByteArrayOutputStream()), snapshot.toJson().length());
+	}
+
+	@Test
+	void testReadersSeeWholeSteps() throws InterruptedException {
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(5L);
+		Maze maze = Maze.builder(keeper).height(101).width(101).keys(20).seed(6L).build();
+		AtomicBoolean playing = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				long moves = -1;
+				while (playing.get()) {
+					MazeSnapshot snapshot = maze.snapshot();
+					Position keeperPosition = snapshot.getKeeperPosition();
+					assertNotEquals(Cell.WALL, snapshot.getCell(keeperPosition.getVertical(),
+							keeperPosition.getHorizontal()));
+					assertTrue(snapshot.getMoves() >= moves);
+					assertTrue(snapshot.getKeysFoundPositions().size() <= snapshot.getTotalNumberOfKeys());
+					assertTrue(!snapshot.isMazeCompleted() || snapshot.getKeysFoundPositions().size() == 20);
+					snapshot.toStatusJson();
+					moves = snapshot.getMoves();
+				}
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		try {
+			while (!maze.isMazeCompleted()) {
+				maze.makeKeeperAct();
+			}
+		} finally {
+			playing.set(false);
+			reader.join();
+		}
+
+		assertNull(failure.get());
+		assertTrue(maze.snapshot().isMazeCompleted());
+	}
+
+}
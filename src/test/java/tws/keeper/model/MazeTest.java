@@ -0,0 +1,186 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.generator.PrimGenerator;
+import tws.keeper.solution.KeeperAI;
+
+class MazeTest {
+
+	private static final Keeper IDLE_KEEPER = maze -> Action.DO_NOTHING;
+	private static final long SEED = 1234L;
+
+	@Test
+	void testSameSeedGeneratesSameMaze() {
+		Maze maze = Maze.builder(IDLE_KEEPER).seed(SEED).build();
+		Maze sameMaze = Maze.builder(IDLE_KEEPER).seed(SEED).build();
+
+		assertEquals(SEED, maze.getSeed());
+		assertEquals(maze.toJson(), sameMaze.toJson());
+		assertEquals(maze.getKeeperPosition(), sameMaze.getKeeperPosition());
+		assertEquals(maze.getDoorPosition(), sameMaze.getDoorPosition());
+		assertEquals(maze.getKeysPositions(), sameMaze.getKeysPositions());
+	}
+
+	@Test
+	void testDifferentSeedsGenerateDifferentMazes() {
+		assertNotEquals(Maze.builder(IDLE_KEEPER).seed(SEED).build().toJson(),
+				Maze.builder(IDLE_KEEPER).seed(SEED + 1).build().toJson());
+	}
+
+	@Test
+	void testObjectsArePlacedInDistinctCells() {
+		Maze maze = Maze.builder(IDLE_KEEPER).height(21).width(31).keys(40).generator(new PrimGenerator()).seed(SEED)
+				.build();
+		String json = maze.toJson();
+
+		assertEquals(40, maze.getKeysPositions().size());
+		assertEquals(40, occurrences(json, "\"key\""));
+		assertEquals(1, occurrences(json, "\"door\""));
+		assertEquals(21 * 31, occurrences(json, "\"wall\"") + occurrences(json, "\"path\"") + 41);
+	}
+
+	@Test
+	void testOpeningsAreCarvedFromTheWalls() {
+		for (long seed = 0; seed < 20; seed++) {
+			Maze closed = Maze.builder(IDLE_KEEPER).height(41).width(41).openings(0).seed(seed).build();
+			Maze open = Maze.builder(IDLE_KEEPER).height(41).width(41).openings(50).seed(seed).build();
+			String json = open.toJson();
+			Position keeper = open.getKeeperPosition();
+
+			assertEquals(occurrences(closed.toJson(), "\"wall\"") - 50, occurrences(json, "\"wall\""));
+			assertEquals(Cell.PATH, open.snapshot().getCell(keeper.getVertical(), keeper.getHorizontal()));
+		}
+	}
+
+	@Test
+	void testNotEnoughPathsForTheKeys() {
+		assertThrows(IllegalStateException.class, () -> Maze.builder(IDLE_KEEPER).height(5).width(5).keys(20).build());
+	}
+
+	@Test
+	void testInvalidSize() {
+		assertThrows(IllegalArgumentException.class, () -> Maze.builder(IDLE_KEEPER).height(2).build());
+	}
+
+	@Test
+	void testListenersFollowTheKeeper() {
+		Keeper walker = maze -> !maze.lookUp().equals(Cell.WALL) ? Action.GO_UP
+				: !maze.lookDown().equals(Cell.WALL) ? Action.GO_DOWN
+						: !maze.lookLeft().equals(Cell.WALL) ? Action.GO_LEFT : Action.GO_RIGHT;
+		Maze maze = Maze.builder(walker).seed(SEED).build();
+		List<Position> moves = new ArrayList<>();
+		MazeListener listener = new MazeListener() {
+			@Override
+			public void keeperMoved(Position position) {
+				moves.add(position);
+			}
+		};
+		maze.addListener(listener);
+		maze.makeKeeperAct();
+		maze.removeListener(listener);
+		maze.makeKeeperAct();
+
+		assertEquals(1, moves.size());
+	}
+
+	@Test
+	void testLookAroundPacksTheFourLooks() {
+		List<Integer> surroundings = new ArrayList<>();
+		Keeper observer = maze -> {
+			int around = maze.lookAround();
+			assertEquals(maze.lookUp(), Surroundings.get(around, Action.GO_UP));
+			assertEquals(maze.lookDown(), Surroundings.get(around, Action.GO_DOWN));
+			assertEquals(maze.lookLeft(), Surroundings.get(around, Action.GO_LEFT));
+			assertEquals(maze.lookRight(), Surroundings.get(around, Action.GO_RIGHT));
+			surroundings.add(around);
+			Action[] directions = { Action.GO_UP, Action.GO_RIGHT, Action.GO_DOWN, Action.GO_LEFT };
+			for (int turn = surroundings.size(); ; turn++) {
+				Action action = directions[turn % directions.length];
+				if (Surroundings.contains(Surroundings.free(around), action)) {
+					return action;
+				}
+			}
+		};
+		Maze maze = Maze.builder(observer).height(21).width(21).seed(SEED).build();
+		for (int step = 0; step < 200 && !maze.isMazeCompleted(); step++) {
+			maze.makeKeeperAct();
+		}
+
+		assertEquals(200, surroundings.size());
+		int around = Surroundings.of(Cell.WALL, Cell.DOOR, Cell.KEY, Cell.PATH);
+		assertEquals(1 << Action.GO_UP.ordinal(), Surroundings.directionsTo(around, Cell.WALL));
+		assertEquals(Cell.KEY, Surroundings.get(around, Action.GO_LEFT));
+	}
+
+	@Test
+	void testForksPlayApart() {
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(SEED);
+		Maze maze = Maze.builder(keeper).height(31).width(31).keys(5).seed(SEED).build();
+		while (maze.getKeysFound() == 0) {
+			maze.makeKeeperAct();
+		}
+		Maze fork = maze.fork(IDLE_KEEPER);
+
+		assertSame(maze.snapshot(), fork.snapshot());
+		assertEquals(maze.getKeeperPosition(), fork.getKeeperPosition());
+		assertEquals(maze.getKeysFoundPositions(), fork.getKeysFoundPositions());
+		assertEquals(maze.toJson(), fork.toJson());
+
+		Trajectory trajectory = new Trajectory();
+		MazeSnapshot forked = fork.snapshot();
+		while (!maze.isMazeCompleted()) {
+			Action action = maze.makeKeeperAct();
+			if (action != Action.DO_NOTHING) {
+				trajectory.add(action);
+			}
+		}
+
+		assertSame(forked, fork.snapshot());
+		assertEquals(1, fork.getKeysFound());
+
+		fork.replay(trajectory);
+
+		assertEquals(maze.getKeeperPosition(), fork.getKeeperPosition());
+		assertEquals(maze.getKeysFoundPositions(), fork.getKeysFoundPositions());
+		assertEquals(maze.toJson(), fork.toJson());
+		assertEquals(true, fork.isMazeCompleted());
+	}
+
+	@Test
+	void testMovesOfTheForkAreNotHeardByTheListeners() {
+		Maze maze = Maze.builder(IDLE_KEEPER).height(21).width(21).seed(SEED).build();
+		List<Position> moves = new ArrayList<>();
+		maze.addListener(new MazeListener() {
+			@Override
+			public void keeperMoved(Position position) {
+				moves.add(position);
+			}
+		});
+		Maze fork = maze.fork(IDLE_KEEPER);
+		for (Action action : Action.values()) {
+			fork.move(action);
+		}
+
+		assertEquals(0, moves.size());
+		assertEquals(maze.getSeed(), fork.rebuild(IDLE_KEEPER).build().getSeed());
+	}
+
+	private static int occurrences(String text, String word) {
+		int count = 0;
+		for (int index = text.indexOf(word); index >= 0; index = text.indexOf(word, index + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,166 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.generator.WilsonGenerator;
+import tws.keeper.solution.KeeperAI;
+
+class TrajectoryFileTest {
+
+	private static final Keeper IDLE_KEEPER = maze -> Action.DO_NOTHING;
+
+	private static boolean notAGeneratorInitialized;
+
+	private Path file;
+
+	@BeforeEach
+	void createFile() throws IOException {
+		file = Files.createTempFile("trajectory", ".bin");
+	}
+
+	@AfterEach
+	void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void testReplayEndsWhereTheKeeperDid() throws IOException {
+		KeeperAI keeper = new KeeperAI();
+		keeper.setSeed(3L);
+		Maze maze = Maze.builder(keeper).height(61).width(61).keys(5).generator(new WilsonGenerator()).openings(20)
+				.build();
+		try (TrajectoryFile.Recorder recorder = TrajectoryFile.record(file, maze)) {
+			while (!maze.isMazeCompleted()) {
+				maze.makeKeeperAct();
+			}
+		}
+
+		TrajectoryFile.Recording recording = TrajectoryFile.read(file);
+		Maze replayed = recording.replay();
+		assertEquals(maze.getSeed(), recording.getSeed());
+		assertEquals(maze.getKeeperPosition(), replayed.getKeeperPosition());
+		assertEquals(maze.getKeysFoundPositions(), replayed.getKeysFoundPositions());
+		assertTrue(replayed.isMazeCompleted());
+		assertEquals(maze.toJson(), replayed.toJson());
+	}
+
+	@Test
+	void testLongGamesAreWrittenInChunks() throws IOException {
+		SplittableRandom random = new SplittableRandom(5L);
+		Maze maze = Maze.builder(observable -> Action.values()[random.nextInt(5)]).height(41).width(41).keys(3)
+				.seed(8L).build();
+		Trajectory moves = new Trajectory();
+		long recorded;
+		try (TrajectoryFile.Recorder recorder = TrajectoryFile.record(file, maze)) {
+			for (int i = 0; i < 100_000 && !maze.isMazeCompleted(); i++) {
+				moves.add(maze.makeKeeperAct());
+			}
+			recorded = recorder.getRecorded();
+		}
+		// A chunk cut short while it was appended
+		Files.write(file, new byte[] { 100, 0, 0, 0, 1, 2 }, StandardOpenOption.APPEND);
+
+		Trajectory read = TrajectoryFile.read(file).getTrajectory();
+		assertTrue(moves.getMoves() > 1 << 14);
+		assertEquals(moves.getMoves(), recorded);
+		assertArrayEquals(moves.toByteArray(), read.toByteArray());
+		Maze replayed = TrajectoryFile.read(file).replay();
+		assertEquals(maze.getKeeperPosition(), replayed.getKeeperPosition());
+		assertEquals(maze.getKeysFoundPositions(), replayed.getKeysFoundPositions());
+	}
+
+	@Test
+	void testSameSeedPlaysTheSameGame() {
+		Trajectory[] games = new Trajectory[2];
+		for (int i = 0; i < games.length; i++) {
+			KeeperAI keeper = new KeeperAI();
+			keeper.setSeed(21L);
+			Maze maze = Maze.builder(keeper).height(41).width(41).seed(4L).build();
+			games[i] = new Trajectory();
+			while (!maze.isMazeCompleted()) {
+				games[i].add(maze.makeKeeperAct());
+			}
+		}
+
+		assertArrayEquals(games[0].toByteArray(), games[1].toByteArray());
+	}
+
+	@Test
+	void testOnlyNewGamesCanBeRecorded() throws IOException {
+		Maze maze = Maze.builder(IDLE_KEEPER).height(21).width(21).seed(2L).build();
+		maze.save(file);
+		Maze loaded = Maze.load(file, IDLE_KEEPER);
+		assertThrows(IllegalStateException.class, () -> TrajectoryFile.record(file, loaded));
+		assertThrows(IllegalStateException.class, () -> loaded.rebuild(IDLE_KEEPER));
+
+		Maze played = Maze.builder(new RandomWalk()).height(21).width(21).seed(2L).build();
+		while (played.makeKeeperAct() == Action.DO_NOTHING) {
+			// Until it moves
+		}
+		assertThrows(IllegalStateException.class, () -> TrajectoryFile.record(file, played));
+	}
+
+	@Test
+	void testReplayOnAnotherMaze() throws IOException {
+		Maze maze = Maze.builder(new RandomWalk()).height(21).width(21).seed(2L).build();
+		Trajectory moves = new Trajectory();
+		while (moves.getMoves() < 200) {
+			moves.add(maze.makeKeeperAct());
+		}
+		Maze other = Maze.builder(IDLE_KEEPER).height(21).width(21).seed(3L).build();
+
+		assertThrows(IllegalStateException.class, () -> other.replay(moves));
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> TrajectoryFile.read(file));
+	}
+
+	@Test
+	void testOnlyGeneratorsAreCreatedFromTheFile() throws IOException {
+		Maze maze = Maze.builder(IDLE_KEEPER).height(21).width(21).seed(2L).build();
+		TrajectoryFile.record(file, maze).close();
+		byte[] name = NotAGenerator.class.getName().getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer header = ByteBuffer.allocate(48 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(Files.readAllBytes(file), 0, 44).putInt(name.length).put(name);
+		Files.write(file, header.array());
+
+		assertThrows(IOException.class, () -> TrajectoryFile.read(file));
+		assertFalse(notAGeneratorInitialized);
+	}
+
+	private static final class NotAGenerator {
+
+		static {
+			notAGeneratorInitialized = true;
+		}
+
+	}
+
+	private static final class RandomWalk implements Keeper {
+
+		private final SplittableRandom random = new SplittableRandom(1L);
+
+		@Override
+		public Action act(Observable maze) {
+			return Action.values()[random.nextInt(4)];
+		}
+
+	}
+
+}
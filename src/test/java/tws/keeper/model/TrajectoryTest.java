@@ -0,0 +1,86 @@
+package tws.keeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class TrajectoryTest {
+
+	@Test
+	void testMovesArePackedTwoBitsEach() {
+		Trajectory trajectory = new Trajectory();
+		trajectory.add(Action.GO_RIGHT);
+		trajectory.add(Action.DO_NOTHING);
+		trajectory.add(Action.GO_UP);
+		trajectory.add(Action.GO_LEFT);
+		trajectory.add(Action.GO_DOWN);
+		trajectory.add(Action.GO_RIGHT);
+
+		assertEquals(5, trajectory.getMoves());
+		assertEquals(1, trajectory.getIdleSteps());
+		assertArrayEquals(new byte[] { (byte) 0b01_10_00_11, 0b11 }, trajectory.toByteArray());
+		assertEquals(Action.GO_LEFT, trajectory.get(2));
+		assertThrows(IndexOutOfBoundsException.class, () -> trajectory.get(5));
+	}
+
+	@Test
+	void testRoundTrip() {
+		SplittableRandom random = new SplittableRandom(7L);
+		List<Action> moves = new ArrayList<>();
+		Trajectory trajectory = new Trajectory();
+		for (int i = 0; i < 1001; i++) {
+			Action move = Action.values()[random.nextInt(4)];
+			moves.add(move);
+			trajectory.add(move);
+		}
+		Trajectory decoded = Trajectory.of(trajectory.toByteArray(), trajectory.getMoves());
+
+		for (int i = 0; i < moves.size(); i++) {
+			assertEquals(moves.get(i), decoded.get(i));
+		}
+		assertThrows(IllegalArgumentException.class, () -> Trajectory.of(new byte[2], 9));
+	}
+
+	@Test
+	void testReplayReachesTheSamePosition() {
+		SplittableRandom random = new SplittableRandom(5L);
+		Maze maze = Maze.builder(observable -> Action.values()[random.nextInt(5)]).height(21).width(21).keys(2)
+				.seed(11L).build();
+		Trajectory trajectory = new Trajectory();
+		for (int i = 0; i < 2000 && !maze.isMazeCompleted(); i++) {
+			trajectory.add(maze.makeKeeperAct());
+		}
+		Trajectory replay = Trajectory.of(trajectory.toByteArray(), trajectory.getMoves());
+		Maze replayed = Maze.builder(new ReplayKeeper(replay)).height(21).width(21).keys(2).seed(11L).build();
+		for (int i = 0; i < replay.getMoves(); i++) {
+			replayed.makeKeeperAct();
+		}
+
+		assertEquals(maze.getKeeperPosition(), replayed.getKeeperPosition());
+		assertEquals(maze.getKeysFoundPositions(), replayed.getKeysFoundPositions());
+		assertEquals(maze.isMazeCompleted(), replayed.isMazeCompleted());
+	}
+
+	private static final class ReplayKeeper implements Keeper {
+
+		private final Trajectory trajectory;
+		private int next;
+
+		private ReplayKeeper(Trajectory trajectory) {
+			this.trajectory = trajectory;
+		}
+
+		@Override
+		public Action act(Observable maze) {
+			return trajectory.get(next++);
+		}
+
+	}
+
+}
@@ -0,0 +1,108 @@
+package tws.keeper.model.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Cell;
+import tws.keeper.model.CellGrid;
+
+class MazeGeneratorTest {
+
+	private static final int HEIGHT = 41;
+	private static final int WIDTH = 60;
+
+	@Test
+	void testRandomizedBacktrackerCreatesAPerfectMaze() {
+		assertPerfectMaze(new RandomizedBacktrackerGenerator());
+	}
+
+	@Test
+	void testPrimCreatesAPerfectMaze() {
+		assertPerfectMaze(new PrimGenerator());
+	}
+
+	@Test
+	void testWilsonCreatesAPerfectMaze() {
+		assertPerfectMaze(new WilsonGenerator());
+	}
+
+	@Test
+	void testEllerCreatesAPerfectMaze() {
+		assertPerfectMaze(new EllerGenerator());
+	}
+
+	@Test
+	void testEllerFinishesEveryRowOnceAndInOrder() {
+		List<Integer> rows = new ArrayList<>();
+		new EllerGenerator().generate(CellGrid.allocate(HEIGHT, WIDTH), new SplittableRandom(7), rows::add);
+
+		assertEquals(HEIGHT, rows.size());
+		for (int i = 0; i < HEIGHT; i++) {
+			assertEquals(i, rows.get(i).intValue());
+		}
+	}
+
+	@Test
+	void testGridTooSmall() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new PrimGenerator().generate(CellGrid.allocate(2, 10), new SplittableRandom()));
+	}
+
+	/**
+	 * Every lattice cell is carved, the border is intact and the paths form a
+	 * tree: connected and with exactly one passage less than cells
+	 */
+	private static void assertPerfectMaze(MazeGenerator generator) {
+		CellGrid grid = CellGrid.allocate(HEIGHT, WIDTH);
+		generator.generate(grid, new SplittableRandom(7));
+
+		int paths = 0;
+		int edges = 0;
+		for (int i = 0; i < HEIGHT; i++) {
+			for (int j = 0; j < WIDTH; j++) {
+				boolean border = i == 0 || j == 0 || i == HEIGHT - 1 || j == WIDTH - 1;
+				if (border || (i % 2 == 1 && j % 2 == 1)) {
+					assertEquals(border ? Cell.WALL : Cell.PATH, grid.get(i, j));
+				}
+				if (grid.get(i, j) == Cell.PATH) {
+					paths++;
+					edges += grid.get(i + 1, j) == Cell.PATH ? 1 : 0;
+					edges += grid.get(i, j + 1) == Cell.PATH ? 1 : 0;
+				}
+			}
+		}
+
+		assertEquals(paths - 1, edges);
+		assertEquals(paths, reachableFrom(grid, 1, 1));
+	}
+
+	private static int reachableFrom(CellGrid grid, int vertical, int horizontal) {
+		boolean[][] seen = new boolean[grid.height()][grid.width()];
+		Deque<int[]> pending = new ArrayDeque<>();
+		pending.push(new int[] { vertical, horizontal });
+		seen[vertical][horizontal] = true;
+		int reached = 0;
+		while (!pending.isEmpty()) {
+			int[] cell = pending.pop();
+			reached++;
+			int[][] neighbours = { { cell[0] - 1, cell[1] }, { cell[0] + 1, cell[1] }, { cell[0], cell[1] - 1 },
+					{ cell[0], cell[1] + 1 } };
+			for (int[] neighbour : neighbours) {
+				if (!seen[neighbour[0]][neighbour[1]] && grid.get(neighbour[0], neighbour[1]) != Cell.WALL) {
+					seen[neighbour[0]][neighbour[1]] = true;
+					pending.push(neighbour);
+				}
+			}
+		}
+		return reached;
+	}
+
+}
@@ -0,0 +1,91 @@
+package tws.keeper.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.solution.KeeperAI;
+
+class BatchSimulatorTest {
+
+	@Test
+	void testALinePerMaze() throws IOException {
+		StringWriter out = new StringWriter();
+		int completed = BatchSimulator.builder().mazes(40).height(15).width(15).keys(2).seed(100).parallelism(4).build()
+				.run(out);
+		List<String> lines = Arrays.asList(out.toString().split("\n"));
+
+		assertEquals(SimulationResult.CSV_HEADER, lines.get(0));
+		assertEquals(41, lines.size());
+		Set<String> mazes = new HashSet<>();
+		int completedLines = 0;
+		for (String line : lines.subList(1, lines.size())) {
+			String[] fields = line.split(",", -1);
+			mazes.add(fields[0]);
+			if (Boolean.parseBoolean(fields[5])) {
+				completedLines++;
+				assertEquals("2", fields[3]);
+			}
+		}
+		assertEquals(40, mazes.size());
+		assertTrue(mazes.contains("100") && mazes.contains("139"));
+		assertEquals(completed, completedLines);
+	}
+
+	@Test
+	void testStepCap() throws IOException {
+		StringWriter out = new StringWriter();
+		int completed = BatchSimulator.builder().mazes(3).height(101).width(101).maxSteps(10)
+				.format(BatchSimulator.Format.JSONL).build().run(out);
+
+		assertEquals(0, completed);
+		for (String line : out.toString().split("\n")) {
+			assertTrue(line.startsWith("{\"maze\":"));
+			assertTrue(line.contains("\"steps\":10,"));
+			assertTrue(line.contains("\"completed\":false,"));
+		}
+	}
+
+	@Test
+	void testRolloutsSplitInTasks() throws IOException {
+		int completed = BatchSimulator.builder().mazes(8).height(21).width(21).keys(2).maxSteps(21 * 21 * 4)
+				.parallelism(2).rolloutTasks(3).mode(KeeperAI.Mode.ROLLOUT).build().run(new StringWriter());
+
+		assertEquals(8, completed);
+	}
+
+	@Test
+	void testMazeFiles() throws IOException {
+		Path file = Files.createTempFile("maze", ".kmaz");
+		try {
+			Maze.builder(maze -> Action.DO_NOTHING).height(11).width(11).keys(1).seed(3L).build().save(file);
+			BatchSimulator simulator = BatchSimulator.builder().file(file).file(file).build();
+
+			SimulationResult result = simulator.play(1, Runnable::run);
+			assertEquals(file.toString(), result.getMaze());
+			assertEquals(1, result.getKeys());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> BatchSimulator.builder().parallelism(0).build());
+		assertThrows(IllegalArgumentException.class, () -> BatchSimulator.builder().rolloutTasks(0).build());
+	}
+
+}
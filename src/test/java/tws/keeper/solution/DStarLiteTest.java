@@ -0,0 +1,70 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static tws.keeper.model.Action.GO_DOWN;
+import static tws.keeper.model.Action.GO_LEFT;
+import static tws.keeper.model.Action.GO_RIGHT;
+import static tws.keeper.solution.Mazes.SIDE;
+import static tws.keeper.solution.Mazes.availableActions;
+import static tws.keeper.solution.Mazes.breadthFirstDistance;
+import static tws.keeper.solution.Mazes.freeCells;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Position;
+import tws.keeper.model.generator.PrimGenerator;
+
+class DStarLiteTest {
+
+	@Test
+	void testDistancesFollowTheKnownCells() {
+		SplittableRandom random = new SplittableRandom(5L);
+		List<Position> free = freeCells(new PrimGenerator(), new SplittableRandom(4L), SIDE * SIDE / 10, random);
+		Collections.shuffle(free, new Random(6L));
+		Position goal = free.get(0);
+		DStarLite planner = new DStarLite(goal, free.get(1), availableActions);
+
+		List<Position> known = new ArrayList<>();
+		for (int revealed = 0; revealed < free.size();) {
+			revealed = Math.min(free.size(), revealed + 1 + random.nextInt(40));
+			known.addAll(free.subList(known.size(), revealed));
+			Position keeper = known.get(random.nextInt(known.size()));
+			planner.learn(known, keeper);
+
+			assertEquals(breadthFirstDistance(known, keeper, goal), planner.distance(keeper));
+		}
+	}
+
+	@Test
+	void testFollowsAShortestPath() {
+		List<Position> corridor = new ArrayList<>();
+		for (int h = 0; h < 10; h++) {
+			corridor.add(new Position(0, h));
+			corridor.add(new Position(2, h));
+		}
+		corridor.add(new Position(1, 9));
+		DStarLite planner = new DStarLite(new Position(2, 0), new Position(0, 0), availableActions);
+		planner.learn(corridor, new Position(0, 0));
+
+		assertEquals(20, planner.distance(new Position(0, 0)));
+		assertEquals(GO_RIGHT, planner.nextAction(new Position(0, 0)));
+		corridor.add(new Position(1, 0));
+		planner.learn(corridor, new Position(0, 1));
+		assertEquals(GO_LEFT, planner.nextAction(new Position(0, 1)));
+		assertEquals(GO_DOWN, planner.nextAction(new Position(0, 0)));
+		assertEquals(Action.DO_NOTHING, planner.nextAction(new Position(2, 0)));
+	}
+
+	@Test
+	void testKeeperCompletesEveryMaze() {
+		Mazes.completeEveryMaze(KeeperAI.Homing.D_STAR_LITE, 31 * 31 / 100);
+	}
+
+}
@@ -0,0 +1,120 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
+
+class DecisionTracerTest {
+
+	@Test
+	void testOnlyTheLastRecordsAreKept() {
+		DecisionTracer tracer = new DecisionTracer(5);
+		for (int step = 0; step < 20; step++) {
+			tracer.record(new Position(step, -step), Decision.RANDOM, 0b1010, Action.GO_DOWN, step * 10, step);
+		}
+
+		assertEquals(8, tracer.getCapacity());
+		assertEquals(20, tracer.getRecorded());
+		List<DecisionTracer.Record> records = tracer.last(100);
+		assertEquals(7, records.size());
+		assertEquals(3, tracer.last(3).size());
+		for (int i = 0; i < records.size(); i++) {
+			DecisionTracer.Record record = records.get(i);
+			long step = 13 + i;
+			assertEquals(step, record.getStep());
+			assertEquals(new Position((int) step, (int) -step), record.getPosition());
+			assertEquals(step * 10, record.getNanos());
+			assertEquals(step, record.getDepth());
+		}
+		assertEquals("{\"recorded\":20,\"records\":[{\"step\":19,\"keeper\":" + new Position(19, -19).toJson()
+				+ ",\"decision\":\"RANDOM\",\"candidates\":[\"GO_DOWN\",\"GO_RIGHT\"],\"action\":\"GO_DOWN\","
+				+ "\"nanos\":190,\"depth\":19}]}", tracer.toJson(1));
+	}
+
+	@Test
+	void testInvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new DecisionTracer(0));
+		assertEquals(1, new DecisionTracer(1).getCapacity());
+		assertTrue(new DecisionTracer(1).last(10).isEmpty());
+	}
+
+	@Test
+	void testEveryStepIsTraced() {
+		for (KeeperAI.Mode mode : KeeperAI.Mode.values()) {
+			for (KeeperAI.Homing homing : KeeperAI.Homing.values()) {
+				// The same game every time, the rollouts never cut short
+				KeeperAI keeper = new KeeperAI(mode, homing);
+				keeper.setSeed(4L);
+				keeper.setRolloutBudget(TimeUnit.SECONDS.toNanos(1));
+				keeper.setTracer(new DecisionTracer(1 << 12));
+				Maze maze = Maze.builder(keeper).height(31).width(31).seed(4L).build();
+				long steps = 0;
+				while (!maze.isMazeCompleted()) {
+					maze.makeKeeperAct();
+					steps++;
+				}
+
+				List<DecisionTracer.Record> records = keeper.getTracer().last(Integer.MAX_VALUE);
+				assertEquals(steps, records.size());
+				for (DecisionTracer.Record record : records) {
+					if (record.getDecision() != Decision.IDLE) {
+						assertTrue(Surroundings.contains(record.getCandidates(), record.getAction()));
+					}
+					assertTrue(record.getNanos() >= 0);
+				}
+				assertHomingIsTraced(mode, homing, records.get(records.size() - 1));
+			}
+		}
+	}
+
+	@Test
+	void testBacktrackingUnwindsTheStack() {
+		KeeperAI keeper = new KeeperAI(KeeperAI.Mode.DEPTH_FIRST);
+		keeper.setTracer(new DecisionTracer(1 << 12));
+		Maze maze = Maze.builder(keeper).height(31).width(31).seed(6L).build();
+		while (!maze.isMazeCompleted()) {
+			maze.makeKeeperAct();
+		}
+
+		DecisionTracer.Record previous = null;
+		for (DecisionTracer.Record record : keeper.getTracer().last(Integer.MAX_VALUE)) {
+			if (previous != null && previous.getDecision() == Decision.BACKTRACK
+					&& record.getDecision() == Decision.BACKTRACK) {
+				assertEquals(previous.getDepth() - 1, record.getDepth());
+				assertNotEquals(previous.getPosition(), record.getPosition());
+			}
+			previous = record;
+		}
+	}
+
+	private static void assertHomingIsTraced(KeeperAI.Mode mode, KeeperAI.Homing homing, DecisionTracer.Record last) {
+		if (mode == KeeperAI.Mode.ROLLOUT && last.getDecision() == Decision.ROLLOUT) {
+			return; // The rollouts see the door before the keeper does and walk into it
+		}
+		switch (homing) {
+		case D_STAR_LITE:
+			assertEquals(Decision.INCREMENTAL_PATH, last.getDecision());
+			break;
+		case DISTANCE_FIELD:
+			assertEquals(Decision.GRADIENT, last.getDecision());
+			assertEquals(1, last.getDepth());
+			break;
+		default:
+			// Walking into the door while exploring is as good as planning
+			assertTrue(last.getDecision() == Decision.PLANNED_PATH || last.getDecision() == Decision.PROBABLE_ACTION
+					|| last.getDecision() == Decision.FRONTIER);
+		}
+	}
+
+}
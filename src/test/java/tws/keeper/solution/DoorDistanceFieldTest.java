@@ -0,0 +1,137 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tws.keeper.model.Action.GO_DOWN;
+import static tws.keeper.model.Action.GO_LEFT;
+import static tws.keeper.model.Action.GO_RIGHT;
+import static tws.keeper.solution.Mazes.SIDE;
+import static tws.keeper.solution.Mazes.availableActions;
+import static tws.keeper.solution.Mazes.breadthFirstDistance;
+import static tws.keeper.solution.Mazes.freeCells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Position;
+import tws.keeper.model.generator.PrimGenerator;
+
+class DoorDistanceFieldTest {
+
+	@Test
+	void testDistancesFollowTheKnownCells() {
+		SplittableRandom random = new SplittableRandom(8L);
+		List<Position> free = freeCells(new PrimGenerator(), new SplittableRandom(7L), SIDE * SIDE / 10, random);
+		Collections.shuffle(free, new Random(9L));
+		Position door = free.get(0);
+		DoorDistanceField field = new DoorDistanceField(door, availableActions);
+
+		List<Position> known = new ArrayList<>();
+		for (int revealed = 0; revealed < free.size();) {
+			revealed = Math.min(free.size(), revealed + 1 + random.nextInt(40));
+			known.addAll(free.subList(known.size(), revealed));
+			field.learn(known);
+
+			Position keeper = known.get(random.nextInt(known.size()));
+			int distance = breadthFirstDistance(known, keeper, door);
+			assertEquals(distance, field.distance(keeper));
+			if (distance > 0) {
+				Position next = MazeUtils.positionAfterAction(field.nextAction(keeper), keeper);
+				assertEquals(distance - 1, field.distance(next));
+			}
+		}
+		assertEquals(free.size(), field.size());
+	}
+
+	@Test
+	void testNewCellsShortenTheWay() {
+		List<Position> corridor = new ArrayList<>();
+		for (int h = 0; h < 10; h++) {
+			corridor.add(new Position(0, h));
+			corridor.add(new Position(2, h));
+		}
+		corridor.add(new Position(1, 9));
+		DoorDistanceField field = new DoorDistanceField(new Position(2, 0), availableActions);
+		field.learn(corridor);
+
+		assertEquals(20, field.distance(new Position(0, 0)));
+		assertEquals(GO_RIGHT, field.nextAction(new Position(0, 0)));
+		corridor.add(new Position(1, 0));
+		field.learn(corridor);
+		assertEquals(2, field.distance(new Position(0, 0)));
+		assertEquals(3, field.distance(new Position(0, 1)));
+		assertEquals(GO_LEFT, field.nextAction(new Position(0, 1)));
+		assertEquals(GO_DOWN, field.nextAction(new Position(0, 0)));
+		assertEquals(Action.DO_NOTHING, field.nextAction(new Position(2, 0)));
+	}
+
+	@Test
+	void testUnknownPositionHasNoWay() {
+		DoorDistanceField field = new DoorDistanceField(new Position(0, 0), availableActions);
+		field.learn(Arrays.asList(new Position(0, 1), new Position(5, 5)));
+
+		assertEquals(1, field.distance(new Position(0, 1)));
+		assertEquals(-1, field.distance(new Position(5, 5)));
+		assertEquals(-1, field.distance(new Position(9, 9)));
+		assertThrows(IllegalStateException.class, () -> field.nextAction(new Position(5, 5)));
+	}
+
+	@Test
+	void testKeeperCompletesEveryMaze() {
+		for (KeeperAI keeper : Mazes.completeEveryMaze(KeeperAI.Homing.DISTANCE_FIELD, 31 * 31 / 100)) {
+			assertEquals(0, keeper.getStarInvocations());
+		}
+	}
+
+	@Test
+	void testGuidedKeeperReadsTheGuideDistances() {
+		KeeperAI guide = new KeeperAI(KeeperAI.Mode.FRONTIER, KeeperAI.Homing.DISTANCE_FIELD);
+		Maze guided = Maze.builder(guide).height(31).width(31).seed(3L).build();
+		while (!guided.isMazeCompleted()) {
+			guided.makeKeeperAct();
+		}
+
+		KeeperAI follower = new KeeperAI(KeeperAI.Mode.DEPTH_FIRST, guide);
+		Maze maze = Maze.builder(follower).height(31).width(31).seed(3L).build();
+		while (!maze.isMazeCompleted()) {
+			maze.makeKeeperAct();
+		}
+
+		assertEquals(guide.getDoorDistances().distance(maze.getKeeperPosition()),
+				follower.getDoorDistances().distance(maze.getKeeperPosition()));
+		assertTrue(maze.isMazeCompleted());
+	}
+
+	@Test
+	void testSharedFieldIsConfinedToTheThreadUpdatingIt() throws Exception {
+		DoorDistanceField field = new DoorDistanceField(new Position(1, 1), availableActions);
+		DistanceField shared = field.readOnly();
+		List<Position> known = Arrays.asList(new Position(1, 1), new Position(1, 2));
+
+		ExecutorService other = Executors.newSingleThreadExecutor();
+		try {
+			other.submit(() -> field.learn(known)).get();
+			assertEquals(1, other.submit(() -> shared.distance(new Position(1, 2))).get().intValue());
+			assertThrows(IllegalStateException.class, () -> shared.distance(new Position(1, 2)));
+			assertThrows(IllegalStateException.class, () -> shared.nextAction(new Position(1, 2)));
+		} finally {
+			other.shutdown();
+		}
+
+		field.learn(known);
+		assertEquals(1, shared.distance(new Position(1, 2)));
+		assertEquals(Action.GO_LEFT, shared.nextAction(new Position(1, 2)));
+	}
+
+}
@@ -0,0 +1,57 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Cell;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Position;
+
+class FrontierExplorationAlgorithmTest {
+
+	@Test
+	void testCompletesEveryMaze() {
+		for (long seed = 0; seed < 30; seed++) {
+			Maze maze = Maze.builder(new KeeperAI(KeeperAI.Mode.FRONTIER)).height(31).width(45).keys(7).seed(seed)
+					.build();
+			int steps = 0;
+			while (!maze.isMazeCompleted() && steps < 31 * 45 * 4) {
+				maze.makeKeeperAct();
+				steps++;
+			}
+
+			assertTrue(maze.isMazeCompleted(), "maze " + seed);
+		}
+	}
+
+	@Test
+	void testEveryStepMoves() {
+		Maze maze = Maze.builder(new KeeperAI(KeeperAI.Mode.FRONTIER)).height(25).width(25).keys(3).seed(9L).build();
+		while (!maze.isMazeCompleted()) {
+			assertNotEquals(Action.DO_NOTHING, maze.makeKeeperAct());
+		}
+	}
+
+	@Test
+	void testKnowledgeMapGrowsAroundTheStart() {
+		KnowledgeMap knowledge = new KnowledgeMap(new Position(0, 0));
+		knowledge.learn(new Position(-100, 3), Cell.KEY);
+		knowledge.visit(new Position(500, -700));
+		knowledge.learn(new Position(0, 0), Cell.WALL);
+
+		assertEquals(3, knowledge.known());
+		assertEquals(1, knowledge.keysToVisit());
+		assertEquals(KnowledgeMap.KEY, knowledge.kind(knowledge.indexOf(new Position(-100, 3))));
+		assertTrue(knowledge.isVisited(knowledge.indexOf(new Position(500, -700))));
+		assertFalse(knowledge.isFree(knowledge.indexOf(new Position(0, 0))));
+		assertEquals(KnowledgeMap.UNKNOWN, knowledge.kind(knowledge.indexOf(new Position(1, 1))));
+		assertEquals(2, knowledge.freePositions().size());
+		assertEquals(new Position(-100, 3), knowledge.freePositions().get(0));
+	}
+
+}
@@ -0,0 +1,106 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tws.keeper.solution.Mazes.SIDE;
+import static tws.keeper.solution.Mazes.availableActions;
+import static tws.keeper.solution.Mazes.breadthFirstDistance;
+import static tws.keeper.solution.Mazes.freeCells;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Observable;
+import tws.keeper.model.Position;
+import tws.keeper.model.generator.RandomizedBacktrackerGenerator;
+
+class JumpPointSearchTest {
+
+	@Test
+	void testPathsAreAsLongAsTheStarOnes() {
+		for (int openings : new int[] { 0, SIDE * SIDE / 100, SIDE * SIDE / 4 }) {
+			for (long seed = 0; seed < 20; seed++) {
+				SplittableRandom random = new SplittableRandom(seed);
+				Set<Position> free = new HashSet<>(
+						freeCells(new RandomizedBacktrackerGenerator(), random, openings, random));
+				List<Position> shuffled = new ArrayList<>(free);
+				Collections.shuffle(shuffled, new Random(seed));
+				Position keeper = shuffled.get(0);
+				Position door = shuffled.get(1);
+				free.remove(door);
+				Explorer explorer = explorer(new ArrayList<>(free), keeper, door);
+				free.add(door);
+
+				List<Action> jumpPath = new JumpPointSearch(explorer).createPath();
+				List<Action> starPath = new StarAlgorithm(explorer).createPath();
+
+				String maze = "openings " + openings + ", seed " + seed;
+				assertEquals(breadthFirstDistance(free, keeper, door), jumpPath.size(), maze);
+				assertEquals(starPath.size(), jumpPath.size(), maze);
+				assertEquals(door, follow(jumpPath, keeper, free), maze);
+			}
+		}
+	}
+
+	@Test
+	void testOpenAreasNeedFewerExpansions() {
+		Set<Position> free = new HashSet<>();
+		for (int v = 0; v < SIDE; v++) {
+			for (int h = 0; h < SIDE; h++) {
+				free.add(new Position(v, h));
+			}
+		}
+		Explorer explorer = explorer(new ArrayList<>(free), new Position(0, 0), new Position(SIDE - 1, SIDE - 1));
+		JumpPointSearch jumpPointSearch = new JumpPointSearch(explorer);
+		StarAlgorithm starAlgorithm = new StarAlgorithm(explorer);
+
+		assertEquals(2 * (SIDE - 1), jumpPointSearch.createPath().size());
+		assertEquals(2 * (SIDE - 1), starAlgorithm.createPath().size());
+		assertTrue(jumpPointSearch.getExpansions() < starAlgorithm.getExpansions());
+	}
+
+	@Test
+	void testNoPathToTheDoor() {
+		List<Position> known = Arrays.asList(new Position(0, 0), new Position(0, 1), new Position(2, 1));
+		Explorer explorer = explorer(known, new Position(0, 0), new Position(2, 0));
+
+		assertThrows(IllegalStateException.class, () -> new JumpPointSearch(explorer).createPath());
+	}
+
+	@Test
+	void testKeeperCompletesEveryMaze() {
+		Mazes.completeEveryMaze(KeeperAI.Homing.JUMP_POINT, 31 * 31 / 10);
+	}
+
+	private static Explorer explorer(List<Position> known, Position keeper, Position door) {
+		Observable maze = Mockito.mock(Observable.class);
+		Mockito.when(maze.getKeeperPosition()).thenReturn(keeper);
+		Explorer explorer = Mockito.mock(Explorer.class);
+		Mockito.when(explorer.getMaze()).thenReturn(maze);
+		Mockito.when(explorer.getDoorPosition()).thenReturn(door);
+		Mockito.when(explorer.getVisitedPositions()).thenReturn(known);
+		Mockito.when(explorer.getAvailableActions()).thenReturn(availableActions);
+		return explorer;
+	}
+
+	private static Position follow(List<Action> path, Position from, Set<Position> free) {
+		Position position = from;
+		for (Action action : path) {
+			position = MazeUtils.positionAfterAction(action, position);
+			assertTrue(free.contains(position), "off the known cells at " + position);
+		}
+		return position;
+	}
+
+}
@@ -0,0 +1,70 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LongIntMapTest {
+
+	@Test
+	void testSameAsAHashMap() {
+		SplittableRandom random = new SplittableRandom(2L);
+		LongIntMap map = new LongIntMap();
+		Map<Long, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 20_000; i++) {
+			long key = Coordinates.pack(random.nextInt(-50, 200), random.nextInt(-50, 200));
+			int value = random.nextInt();
+			expected.put(key, value);
+			int index = map.put(key, value);
+
+			assertEquals(key, map.keyAt(index));
+			assertEquals(value, map.valueAt(index));
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (int i = 0; i < 1000; i++) {
+			long key = Coordinates.pack(random.nextInt(-60, 210), random.nextInt(-60, 210));
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+			assertEquals(expected.getOrDefault(key, -7), (Integer) map.get(key, -7));
+		}
+	}
+
+	@Test
+	void testEntriesAreUpdatedByIndex() {
+		LongIntMap map = new LongIntMap();
+		int first = map.put(Coordinates.pack(Integer.MIN_VALUE, -1), 1);
+		int second = map.put(Coordinates.pack(-1, Integer.MIN_VALUE), 2);
+		map.setValueAt(first, 10);
+
+		assertEquals(0, first);
+		assertEquals(1, second);
+		assertEquals(10, map.get(Coordinates.pack(Integer.MIN_VALUE, -1), 0));
+		assertEquals(second, map.put(Coordinates.pack(-1, Integer.MIN_VALUE), 20));
+		assertEquals(20, map.valueAt(second));
+		assertEquals(LongHashSet.ABSENT, map.indexOf(Coordinates.pack(0, 0)));
+		assertFalse(map.containsKey(Coordinates.pack(0, 0)));
+		assertThrows(IndexOutOfBoundsException.class, () -> map.valueAt(2));
+	}
+
+	@Test
+	void testCoordinatesRoundTrip() {
+		int[] coordinates = { Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE };
+		for (int vertical : coordinates) {
+			for (int horizontal : coordinates) {
+				long packed = Coordinates.pack(vertical, horizontal);
+
+				assertEquals(vertical, Coordinates.vertical(packed));
+				assertEquals(horizontal, Coordinates.horizontal(packed));
+			}
+		}
+		assertTrue(Coordinates.pack(-1, 0) != Coordinates.pack(0, -1));
+	}
+
+}
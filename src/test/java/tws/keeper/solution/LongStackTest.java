@@ -0,0 +1,42 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class LongStackTest {
+
+	@Test
+	void testSameAsADeque() {
+		SplittableRandom random = new SplittableRandom(3L);
+		LongStack stack = new LongStack();
+		Deque<Long> expected = new ArrayDeque<>();
+		for (int i = 0; i < 10_000; i++) {
+			if (expected.isEmpty() || random.nextInt(3) > 0) {
+				long element = random.nextLong();
+				expected.push(element);
+				stack.push(element);
+			} else {
+				assertEquals((long) expected.peek(), stack.peek());
+				assertEquals((long) expected.pop(), stack.pop());
+			}
+			assertEquals(expected.size(), stack.size());
+		}
+	}
+
+	@Test
+	void testEmptyStack() {
+		LongStack stack = new LongStack();
+
+		assertTrue(stack.isEmpty());
+		assertThrows(IllegalStateException.class, stack::pop);
+		assertThrows(IllegalStateException.class, stack::peek);
+	}
+
+}
@@ -23,6 +23,7 @@ import tws.keeper.model.Action;
 import tws.keeper.model.Cell;
 import tws.keeper.model.Observable;
 import tws.keeper.model.Position;
+import tws.keeper.model.Surroundings;
 
 class MazeUtilsTest {
 
@@ -103,6 +104,7 @@ class MazeUtilsTest {
 		createMaze();
 
 		Mockito.when(maze.lookDown()).thenReturn(Cell.PATH);
+		Mockito.when(maze.lookAround()).thenReturn(Surroundings.of(Cell.WALL, Cell.PATH, Cell.PATH, Cell.KEY));
 
 		assertEquals(null, MazeUtils.getDoorPosition(maze, availableActions));
 	}
@@ -128,6 +130,7 @@ class MazeUtilsTest {
 		Mockito.when(maze.lookDown()).thenReturn(Cell.DOOR);
 		Mockito.when(maze.lookRight()).thenReturn(Cell.KEY);
 		Mockito.when(maze.lookLeft()).thenReturn(Cell.PATH);
+		Mockito.when(maze.lookAround()).thenReturn(Surroundings.of(Cell.WALL, Cell.DOOR, Cell.PATH, Cell.KEY));
 		Mockito.when(maze.getKeysFound()).thenReturn(4);
 		Mockito.when(maze.getTotalNumberOfKeys()).thenReturn(7);
 
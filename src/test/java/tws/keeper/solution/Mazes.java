@@ -0,0 +1,108 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tws.keeper.model.Action.GO_DOWN;
+import static tws.keeper.model.Action.GO_LEFT;
+import static tws.keeper.model.Action.GO_RIGHT;
+import static tws.keeper.model.Action.GO_UP;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Cell;
+import tws.keeper.model.CellGrid;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Position;
+import tws.keeper.model.generator.MazeGenerator;
+
+/**
+ * Mazes and a breadth first oracle shared by the planner tests
+ */
+final class Mazes {
+
+	static final List<Action> availableActions = Arrays.asList(GO_DOWN, GO_LEFT, GO_RIGHT, GO_UP);
+	static final int SIDE = 41;
+
+	private Mazes() {
+	}
+
+	/**
+	 * The cells that are not walls of a maze of SIDE by SIDE made by the
+	 * generator, with openings random walls turned into path, row by row
+	 */
+	static List<Position> freeCells(MazeGenerator generator, SplittableRandom mazeRandom, int openings,
+			SplittableRandom random) {
+		CellGrid grid = CellGrid.allocate(SIDE, SIDE);
+		generator.generate(grid, mazeRandom);
+		for (int i = 0; i < openings; i++) {
+			grid.set(1 + random.nextInt(SIDE - 2), 1 + random.nextInt(SIDE - 2), Cell.PATH);
+		}
+		List<Position> free = new ArrayList<>();
+		for (int v = 0; v < SIDE; v++) {
+			for (int h = 0; h < SIDE; h++) {
+				if (grid.get(v, h) != Cell.WALL) {
+					free.add(new Position(v, h));
+				}
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * The steps from one position to another over the known ones, -1 when there
+	 * is no way
+	 */
+	static int breadthFirstDistance(Collection<Position> known, Position from, Position to) {
+		Set<Position> cells = new HashSet<>(known);
+		Deque<Position> queue = new ArrayDeque<>();
+		Set<Position> reached = new HashSet<>();
+		queue.add(from);
+		reached.add(from);
+		for (int distance = 0; !queue.isEmpty(); distance++) {
+			for (int i = queue.size(); i > 0; i--) {
+				Position position = queue.poll();
+				if (position.equals(to)) {
+					return distance;
+				}
+				for (Action action : availableActions) {
+					Position next = MazeUtils.positionAfterAction(action, position);
+					if (cells.contains(next) && reached.add(next)) {
+						queue.add(next);
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Plays 30 mazes of 31 by 31 with the given openings for each mode with the
+	 * homing, asserts every one is completed within 10 steps per cell and
+	 * returns the keepers
+	 */
+	static List<KeeperAI> completeEveryMaze(KeeperAI.Homing homing, long openings) {
+		List<KeeperAI> keepers = new ArrayList<>();
+		for (KeeperAI.Mode mode : KeeperAI.Mode.values()) {
+			for (long seed = 0; seed < 30; seed++) {
+				KeeperAI keeper = new KeeperAI(mode, homing);
+				Maze maze = Maze.builder(keeper).height(31).width(31).openings(openings).seed(seed).build();
+				for (int step = 0; step < 31 * 31 * 10 && !maze.isMazeCompleted(); step++) {
+					maze.makeKeeperAct();
+				}
+
+				assertTrue(maze.isMazeCompleted(), mode + ", seed " + seed);
+				keepers.add(keeper);
+			}
+		}
+		return keepers;
+	}
+
+}
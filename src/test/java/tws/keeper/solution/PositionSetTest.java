@@ -0,0 +1,57 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Position;
+
+class PositionSetTest {
+
+	@Test
+	void testSameAsAHashSet() {
+		SplittableRandom random = new SplittableRandom(1L);
+		PositionSet set = new PositionSet();
+		Set<Position> expected = new HashSet<>();
+		List<Position> order = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			Position position = new Position(random.nextInt(-50, 200), random.nextInt(-50, 200));
+			boolean added = expected.add(position);
+			if (added) {
+				order.add(position);
+			}
+			assertEquals(added, set.add(position));
+		}
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(order, set.asList());
+		for (int i = 0; i < 1000; i++) {
+			Position position = new Position(random.nextInt(-60, 210), random.nextInt(-60, 210));
+			assertEquals(expected.contains(position), set.contains(position));
+			assertEquals(expected.contains(position), set.asList().contains(position));
+		}
+	}
+
+	@Test
+	void testExtremeCoordinates() {
+		PositionSet set = new PositionSet();
+		set.add(new Position(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		set.add(new Position(-1, -1));
+
+		assertTrue(set.contains(new Position(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+		assertTrue(set.contains(new Position(-1, -1)));
+		assertFalse(set.contains(new Position(0, 0)));
+		assertEquals(new Position(-1, -1), set.get(1));
+		assertThrows(UnsupportedOperationException.class, () -> set.asList().add(new Position(0, 0)));
+	}
+
+}
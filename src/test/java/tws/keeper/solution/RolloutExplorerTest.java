@@ -0,0 +1,103 @@
+package tws.keeper.solution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.model.Observable;
+import tws.keeper.model.Position;
+
+class RolloutExplorerTest {
+
+	private static final List<Action> ACTIONS = Arrays.asList(Action.GO_DOWN, Action.GO_LEFT, Action.GO_RIGHT,
+			Action.GO_UP);
+
+	@Test
+	void testCompletesEveryMaze() {
+		for (long seed = 0; seed < 10; seed++) {
+			KeeperAI keeper = new KeeperAI(KeeperAI.Mode.ROLLOUT);
+			keeper.setSeed(seed);
+			Maze maze = Maze.builder(keeper).height(21).width(21).keys(3).seed(seed).build();
+			int steps = 0;
+			while (!maze.isMazeCompleted() && steps < 21 * 21 * 4) {
+				maze.makeKeeperAct();
+				steps++;
+			}
+
+			assertTrue(maze.isMazeCompleted(), "maze " + seed);
+		}
+	}
+
+	@Test
+	void testParallelRolloutsMakeTheSameChoices() {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for (long seed = 0; seed < 5; seed++) {
+				assertEquals(play(seed, 1, executor), play(seed, 4, executor), "maze " + seed);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testKeeperSplitsTheRolloutsOnTheGivenExecutor() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		AtomicInteger tasks = new AtomicInteger();
+		try {
+			KeeperAI keeper = new KeeperAI(KeeperAI.Mode.ROLLOUT);
+			keeper.setSeed(5L);
+			keeper.setRolloutExecutor(task -> {
+				tasks.incrementAndGet();
+				executor.execute(task);
+			}, 3);
+			Maze maze = Maze.builder(keeper).height(21).width(21).keys(3).seed(5L).build();
+			while (!maze.isMazeCompleted()) {
+				maze.makeKeeperAct();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertTrue(tasks.get() > 0);
+	}
+
+	@Test
+	void testRolloutsNeedAMaze() {
+		KeeperAI keeper = new KeeperAI(KeeperAI.Mode.ROLLOUT);
+
+		assertThrows(IllegalArgumentException.class, () -> keeper.act(mock(Observable.class)));
+	}
+
+	/**
+	 * Where the keeper is after 100 steps on the maze of the seed, the
+	 * rollouts never cut short by the budget
+	 */
+	private static Position play(long seed, int parallelism, ExecutorService executor) {
+		RolloutExplorer[] explorer = new RolloutExplorer[1];
+		Maze maze = Maze.builder(observable -> {
+			explorer[0].addVisitedPosition();
+			return explorer[0].getNextAction();
+		}).height(31).width(31).keys(5).seed(seed).build();
+		explorer[0] = new RolloutExplorer(maze, ACTIONS, new SplittableRandom(11L), 8, 16, parallelism,
+				TimeUnit.MINUTES.toNanos(1), executor);
+		for (int step = 0; step < 100 && !maze.isMazeCompleted(); step++) {
+			maze.makeKeeperAct();
+		}
+		return maze.getKeeperPosition();
+	}
+
+}
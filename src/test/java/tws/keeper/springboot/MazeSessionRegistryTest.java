@@ -0,0 +1,175 @@
+package tws.keeper.springboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Action;
+import tws.keeper.model.Maze;
+import tws.keeper.solution.KeeperAI;
+
+class MazeSessionRegistryTest {
+
+    private static final long IDLE_MILLIS = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Supplier<Maze> mazes = () -> Maze.builder(maze -> Action.DO_NOTHING).height(11).width(11).keys(1).build();
+    private final long mazeBytes = mazes.get().getFootprintBytes();
+
+    @Test
+    void testSessionsAreKeptApart() {
+        MazeSessionRegistry registry = new MazeSessionRegistry(10, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get);
+        Maze first = registry.withSession("a", MazeSession::getMaze);
+
+        assertSame(first, registry.withSession("a", MazeSession::getMaze));
+        assertNotSame(first, registry.withSession("b", MazeSession::getMaze));
+        registry.reset("a");
+        assertNotSame(first, registry.withSession("a", MazeSession::getMaze));
+        assertEquals(2, registry.size());
+        assertEquals(2 * mazeBytes, registry.getFootprintBytes());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        MazeSessionRegistry registry = new MazeSessionRegistry(2, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get);
+        Maze first = access(registry, "a");
+        access(registry, "b");
+        access(registry, "a");
+        access(registry, "c");
+
+        assertEquals(2, registry.size());
+        assertSame(first, access(registry, "a"));
+        assertEquals(2, registry.size());
+        assertEquals(2 * mazeBytes, registry.getFootprintBytes());
+    }
+
+    @Test
+    void testFootprintIsBounded() {
+        MazeSessionRegistry registry = new MazeSessionRegistry(10, 3 * mazeBytes, IDLE_MILLIS, mazes, clock::get);
+        for (int i = 0; i < 10; i++) {
+            access(registry, "s" + i);
+        }
+
+        assertEquals(3, registry.size());
+        assertEquals(3 * mazeBytes, registry.getFootprintBytes());
+    }
+
+    @Test
+    void testIdleSessionsAreEvicted() {
+        MazeSessionRegistry registry = new MazeSessionRegistry(10, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get);
+        access(registry, "a");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(IDLE_MILLIS / 2));
+        access(registry, "b");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(IDLE_MILLIS / 2 + 1));
+        registry.evictIdle();
+
+        assertEquals(1, registry.size());
+        assertEquals(mazeBytes, registry.getFootprintBytes());
+    }
+
+    @Test
+    void testActionsOnASessionAreSerialized() throws Exception {
+        MazeSessionRegistry registry = new MazeSessionRegistry(10, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        registry.withSession("a", session -> {
+                            if (inside.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            session.getMaze().makeKeeperAct();
+                            return inside.decrementAndGet();
+                        });
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, overlaps.get());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testBusySessionsAreSkipped() throws Exception {
+        MazeSessionRegistry registry = new MazeSessionRegistry(2, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get);
+        Maze busy = access(registry, "a");
+        access(registry, "b");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> run = executor.submit(() -> registry.withSession("a", session -> {
+                running.countDown();
+                try {
+                    return done.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            running.await();
+            access(registry, "c");
+
+            assertEquals(2, registry.size());
+            assertNull(registry.getSessions().stream().filter(session -> session.getId().equals("b")).findAny()
+                    .orElse(null));
+            done.countDown();
+            run.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertSame(busy, access(registry, "a"));
+    }
+
+    @Test
+    void testWhatTheKeepersLearnIsCounted() {
+        Supplier<Maze> played = () -> Maze.builder(new KeeperAI()).height(31).width(31).seed(1L).build();
+        MazeSessionRegistry registry = new MazeSessionRegistry(10, Long.MAX_VALUE, IDLE_MILLIS, played, clock::get);
+        long fresh = registry.withSession("a", session -> session.getMaze().getFootprintBytes());
+        long before = registry.getFootprintBytes();
+        for (int i = 0; i < 100; i++) {
+            registry.withSession("a", session -> session.getMaze().makeKeeperAct());
+        }
+
+        assertTrue(before > fresh);
+        assertTrue(registry.getFootprintBytes() > before);
+        long measured = registry.withSession("a", MazeSession::getFootprintBytes);
+        assertEquals(measured, registry.getFootprintBytes());
+    }
+
+    @Test
+    void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MazeSessionRegistry(0, Long.MAX_VALUE, IDLE_MILLIS, mazes, clock::get));
+    }
+
+    private Maze access(MazeSessionRegistry registry, String id) {
+        clock.incrementAndGet();
+        return registry.withSession(id, MazeSession::getMaze);
+    }
+
+}
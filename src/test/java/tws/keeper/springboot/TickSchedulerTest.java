@@ -0,0 +1,177 @@
+package tws.keeper.springboot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import tws.keeper.model.Maze;
+import tws.keeper.solution.KeeperAI;
+
+class TickSchedulerTest {
+
+    private static final long IDLE_MILLIS = 1000;
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Supplier<Maze> mazes = () -> {
+        KeeperAI keeper = new KeeperAI();
+        keeper.setSeed(1L);
+        return Maze.builder(keeper).height(21).width(21).keys(2).seed(2L).build();
+    };
+    private final MazeSessionRegistry registry = new MazeSessionRegistry(100, Long.MAX_VALUE, IDLE_MILLIS, mazes,
+            clock::get);
+
+    @Test
+    void testOnlyRunningSessionsAct() {
+        TickScheduler scheduler = new TickScheduler(registry, TICKS_PER_SECOND, 3, Runnable::run, clock::get);
+        for (int i = 0; i < 10; i++) {
+            start(i % 2 == 0 ? "running" + i : "stopped" + i, i % 2 == 0);
+        }
+        for (int tick = 0; tick < 5; tick++) {
+            scheduler.tick();
+        }
+
+        assertEquals(5, scheduler.getTicks());
+        assertEquals(25, scheduler.getSteps());
+        assertEquals(0, scheduler.getSkippedTicks());
+        for (MazeSession session : registry.getSessions()) {
+            assertEquals(session.isRunning(), session.getId().startsWith("running"));
+        }
+    }
+
+    @Test
+    void testSessionsStopWhenCompleted() {
+        TickScheduler scheduler = new TickScheduler(registry, TICKS_PER_SECOND, 64, Runnable::run, clock::get);
+        start("a", true);
+        for (int tick = 0; tick < 100_000 && registry.withSession("a", MazeSession::isRunning); tick++) {
+            scheduler.tick();
+        }
+
+        boolean completed = registry.withSession("a", session -> session.getMaze().isMazeCompleted());
+        assertTrue(completed);
+        long steps = scheduler.getSteps();
+        scheduler.tick();
+        assertEquals(steps, scheduler.getSteps());
+        registry.reset("a");
+        boolean running = registry.withSession("a", MazeSession::isRunning);
+        assertFalse(running);
+    }
+
+    @Test
+    void testTickIsSkippedWhileThePreviousOneRuns() {
+        Queue<Runnable> pending = new ArrayDeque<>();
+        TickScheduler scheduler = new TickScheduler(registry, TICKS_PER_SECOND, 2, pending::add, clock::get);
+        for (int i = 0; i < 5; i++) {
+            start("s" + i, true);
+        }
+        scheduler.tick();
+        scheduler.tick();
+
+        assertEquals(3, pending.size());
+        assertEquals(1, scheduler.getTicks());
+        assertEquals(1, scheduler.getSkippedTicks());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND + 1);
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+        assertEquals(1, scheduler.getOverruns());
+        assertEquals(5, scheduler.getSteps());
+        scheduler.tick();
+        assertEquals(2, scheduler.getTicks());
+    }
+
+    @Test
+    void testBusySessionSkipsItsStep() throws Exception {
+        TickScheduler scheduler = new TickScheduler(registry, TICKS_PER_SECOND, 64, Runnable::run, clock::get);
+        start("a", true);
+        Thread request = new Thread(scheduler::tick);
+        registry.withSession("a", session -> {
+            request.start();
+            try {
+                request.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return session;
+        });
+
+        assertEquals(1, scheduler.getBusySessions());
+        assertEquals(0, scheduler.getSteps());
+    }
+
+    @Test
+    void testFailingKeeperStopsItsSession() {
+        MazeSessionRegistry failing = new MazeSessionRegistry(100, Long.MAX_VALUE, IDLE_MILLIS,
+                () -> Maze.builder(maze -> {
+                    throw new IllegalStateException("lost");
+                }).height(21).width(21).seed(2L).build(), clock::get);
+        TickScheduler scheduler = new TickScheduler(failing, TICKS_PER_SECOND, 64, Runnable::run, clock::get);
+        failing.withSession("a", session -> {
+            session.setRunning(true);
+            return session;
+        });
+        scheduler.tick();
+        scheduler.tick();
+
+        assertEquals(1, scheduler.getFailures());
+        assertEquals(0, scheduler.getSteps());
+        boolean running = failing.withSession("a", MazeSession::isRunning);
+        assertFalse(running);
+        assertTrue(scheduler.toJson().contains("\"failures\":1"));
+    }
+
+    @Test
+    void testRejectedBatchesDoNotStopTheTicks() {
+        Queue<Runnable> pending = new ArrayDeque<>();
+        AtomicInteger submitted = new AtomicInteger();
+        Executor rejectingEveryOther = task -> {
+            if (submitted.incrementAndGet() % 2 == 0) {
+                throw new RejectedExecutionException();
+            }
+            pending.add(task);
+        };
+        TickScheduler scheduler = new TickScheduler(registry, TICKS_PER_SECOND, 1, rejectingEveryOther, clock::get);
+        for (int i = 0; i < 4; i++) {
+            start("s" + i, true);
+        }
+        scheduler.tick();
+
+        assertEquals(2, scheduler.getRejectedBatches());
+        assertEquals(2, pending.size());
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+        assertEquals(2, scheduler.getSteps());
+        scheduler.tick();
+        assertEquals(2, scheduler.getTicks());
+        assertEquals(0, scheduler.getSkippedTicks());
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickScheduler(registry, 0, 64, Runnable::run, clock::get));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickScheduler(registry, TICKS_PER_SECOND, 0, Runnable::run, clock::get));
+    }
+
+    private void start(String id, boolean running) {
+        registry.withSession(id, session -> {
+            session.setRunning(running);
+            return session;
+        });
+    }
+
+}